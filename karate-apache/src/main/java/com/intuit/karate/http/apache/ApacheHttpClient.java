@@ -93,6 +93,7 @@ public class ApacheHttpClient extends HttpClient<HttpEntity> {
     private RequestBuilder requestBuilder;
     private CookieStore cookieStore;
     private Charset charset;
+    private volatile HttpUriRequest currentRequest;
 
     private void build() {
         try {
@@ -275,6 +276,14 @@ public class ApacheHttpClient extends HttpClient<HttpEntity> {
         return ApacheHttpUtils.getEntity(value, mediaType, charset);
     }
 
+    @Override
+    protected void abort() {
+        HttpUriRequest httpRequest = currentRequest;
+        if (httpRequest != null) {
+            httpRequest.abort();
+        }
+    }
+
     @Override
     protected HttpResponse makeHttpRequest(HttpEntity entity, ScriptContext context) {
         if (entity != null) {
@@ -282,6 +291,7 @@ public class ApacheHttpClient extends HttpClient<HttpEntity> {
             requestBuilder.setHeader(entity.getContentType());
         }
         HttpUriRequest httpRequest = requestBuilder.build();
+        currentRequest = httpRequest;
         CloseableHttpClient client = clientBuilder.build();
         BasicHttpContext httpContext = new BasicHttpContext();
         httpContext.setAttribute(URI_CONTEXT_KEY, getRequestUri());
@@ -298,6 +308,8 @@ public class ApacheHttpClient extends HttpClient<HttpEntity> {
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            currentRequest = null;
         }
         HttpRequest actualRequest = context.getPrevRequest();
         HttpResponse response = new HttpResponse(actualRequest.getStartTime(), actualRequest.getEndTime());
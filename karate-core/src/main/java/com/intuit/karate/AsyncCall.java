@@ -0,0 +1,186 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import com.intuit.karate.cucumber.BufferedReporter;
+import com.intuit.karate.cucumber.CucumberUtils;
+import com.intuit.karate.cucumber.KarateReporter;
+import com.intuit.karate.cucumber.KarateReporterBase;
+import com.intuit.karate.cucumber.StepResult;
+import com.intuit.karate.exception.KarateException;
+import gherkin.formatter.model.Result;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import jdk.nashorn.api.scripting.ScriptObjectMirror;
+
+/**
+ * a feature or js function call started by karate.callAsync() that runs on a
+ * shared, bounded pool of threads, the call gets an isolated copy of the
+ * caller's variables and config, and its steps are buffered until the caller
+ * does karate.await() - which is when errors surface and the report is updated
+ *
+ * @author pthomas3
+ */
+public class AsyncCall {
+
+    public static final String THREADS_PROPERTY = "karate.async.threads";
+
+    // shows up in the report and errors in place of the file called
+    private static final String FUNCTION_PATH = "js function";
+
+    // only the (copied) feature variables can be seen, not those of an enclosing js function
+    static final String CAPTURE_HINT = "a js function passed to callAsync() is re-created from its source, "
+            + "so it cannot see variables captured from an enclosing function - pass them in the argument instead";
+
+    // created only when first needed, shared by all callers in the JVM
+    private static class Pool {
+
+        static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+        static final ThreadPoolExecutor EXECUTOR;
+
+        static {
+            int threads = Integer.getInteger(THREADS_PROPERTY, Math.max(8, Runtime.getRuntime().availableProcessors() * 2));
+            EXECUTOR = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue(), r -> {
+                Thread thread = new Thread(r, "karate-async-" + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        }
+
+    }
+
+    private final String path;
+    private final ScriptContext parentContext;
+    private final BufferedReporter reporter;
+    private final FutureTask<Object> task;
+
+    private long startTime;
+    private long endTime;
+    private long startNanos;
+    private long endNanos;
+
+    private boolean reported;
+
+    public AsyncCall(String path, Object arg, ScriptContext context) {
+        this(path, null, arg, context);
+    }
+
+    public AsyncCall(ScriptObjectMirror fn, Object arg, ScriptContext context) {
+        this(FUNCTION_PATH, fn, arg, context);
+    }
+
+    private AsyncCall(String path, ScriptObjectMirror fn, Object arg, ScriptContext context) {
+        this.path = path;
+        this.parentContext = context;
+        reporter = new BufferedReporter();
+        Logger logger = new Logger();
+        reporter.setLogger(logger);
+        // vars and config are copied here on the caller thread, before anything else can change them
+        ScriptEnv asyncEnv = context.env.refresh(logger, reporter);
+        CallContext callContext = new CallContext(context, context.callDepth, null, -1, false, false, null, null, null, null);
+        ScriptContext asyncContext = new ScriptContext(asyncEnv, callContext);
+        Object asyncArg = arg == null ? null : new ScriptValue(arg).copy().getAfterConvertingFromJsonOrXmlIfNeeded();
+        // re-created from source so that the call sees the copied variables and never touches the caller's function
+        ScriptObjectMirror asyncFn = fn == null ? null : Script.evalJsExpression(fn.toString(), asyncContext).getValue(ScriptObjectMirror.class);
+        // pool threads are shared across runs, so classes (and classpath: files) have to resolve as for the caller
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        task = new FutureTask(() -> {
+            Thread thread = Thread.currentThread();
+            ClassLoader previous = thread.getContextClassLoader();
+            thread.setContextClassLoader(classLoader);
+            startTime = System.currentTimeMillis();
+            startNanos = System.nanoTime();
+            try {
+                if (asyncFn != null) {
+                    try {
+                        return Script.evalFunctionCall(asyncFn, asyncArg, asyncContext).getValue();
+                    } catch (KarateException ke) {
+                        if (ke.getMessage() != null && ke.getMessage().contains("ReferenceError")) {
+                            throw new KarateException(ke.getMessage() + "\n" + CAPTURE_HINT);
+                        }
+                        throw ke;
+                    }
+                }
+                return asyncContext.bindings.bridge.call(path, asyncArg);
+            } finally {
+                endNanos = System.nanoTime();
+                endTime = System.currentTimeMillis();
+                thread.setContextClassLoader(previous);
+            }
+        });
+        Pool.EXECUTOR.execute(task);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public boolean isDone() {
+        return task.isDone();
+    }
+
+    public Object await() {
+        task.run(); // no-op if already started, else run on this thread so that a full pool can never dead-lock
+        Throwable error = null;
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            error = e;
+            throw new KarateException("callAsync interrupted: " + path, e);
+        } catch (ExecutionException e) {
+            error = e.getCause();
+            String message = "callAsync failed: " + path + "\n" + error.getMessage();
+            parentContext.logger.error("{}", message);
+            throw new KarateException(message);
+        } finally {
+            report(error);
+        }
+    }
+
+    private void report(Throwable error) {
+        if (reported) {
+            return;
+        }
+        reported = true;
+        // a step that shows when this call ran, so that concurrent calls appear as overlapping spans
+        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss.SSS");
+        String span = "callAsync [" + sdf.format(new Date(startTime)) + " - " + sdf.format(new Date(endTime)) + "] " + path;
+        long duration = endNanos - startNanos;
+        Result result = error == null ? KarateReporterBase.passed(duration)
+                : new Result(Result.FAILED, duration, error, StepResult.DUMMY_OBJECT);
+        CucumberUtils.reportNestedStep(parentContext, span, reporter.collectLog(), result);
+        KarateReporter target = parentContext.env.reporter;
+        if (target != null) {
+            reporter.replay(target);
+        }
+    }
+
+}
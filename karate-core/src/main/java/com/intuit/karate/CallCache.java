@@ -23,24 +23,57 @@
  */
 package com.intuit.karate;
 
-import com.intuit.karate.http.HttpConfig;
-import java.util.HashMap;
-import java.util.Map;
+import com.intuit.karate.exception.KarateException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 
 /**
+ * results of 'callonce', normally one per feature, but there is also one for
+ * the whole run (see configure callonceScope) which is shared by all threads,
+ * only one thread does the call for a given key while others wait for it
  *
  * @author pthomas3
  */
 public class CallCache {
-    
-    protected final Map<String, CallResult> cache = new HashMap(1);
-    
-    public void put(String key, ScriptValue result, HttpConfig config) {
-        cache.put(key, new CallResult(result, config));
+
+    public static final String SCOPE_FEATURE = "feature";
+    public static final String SCOPE_RUN = "run";
+
+    private static final CallCache RUN = new CallCache(); // reset when a parallel run starts
+
+    protected final ConcurrentHashMap<String, CompletableFuture<CallResult>> cache = new ConcurrentHashMap(1);
+
+    public static CallCache getRunCache() {
+        return RUN;
     }
-    
-    public CallResult get(String key) {
-        return cache.get(key);
+
+    public static void resetRunCache() {
+        RUN.cache.clear();
+    }
+
+    public CallResult get(String key, Supplier<CallResult> supplier) {
+        CompletableFuture<CallResult> mine = new CompletableFuture();
+        CompletableFuture<CallResult> existing = cache.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return existing.get();
+            } catch (InterruptedException e) {
+                throw new KarateException("interrupted while waiting for callonce: " + key);
+            } catch (ExecutionException e) {
+                throw new KarateException("callonce failed on another thread: " + key + "\n" + e.getCause().getMessage());
+            }
+        }
+        try {
+            CallResult result = supplier.get();
+            mine.complete(result);
+            return result;
+        } catch (Throwable e) { // errors too, or threads waiting on the future would hang
+            cache.remove(key, mine); // so that the next caller can try again
+            mine.completeExceptionally(e);
+            throw e;
+        }
     }
-    
+
 }
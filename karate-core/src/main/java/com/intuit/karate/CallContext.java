@@ -25,6 +25,7 @@ package com.intuit.karate;
 
 import com.intuit.karate.cucumber.ScenarioInfo;
 import com.intuit.karate.cucumber.StepInterceptor;
+import com.intuit.karate.http.RateLimiter;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -49,6 +50,7 @@ public class CallContext {
     private List<String> tags;
     private Map<String, List<String>> tagValues;    
     private ScenarioInfo scenarioInfo;
+    private Map<String, RateLimiter> callHostLimiters;
 
     public List<String> getTags() {
         return tags;
@@ -74,6 +76,14 @@ public class CallContext {
         return scenarioInfo;
     }    
     
+    public void setCallHostLimiters(Map<String, RateLimiter> callHostLimiters) {
+        this.callHostLimiters = callHostLimiters;
+    }
+
+    public Map<String, RateLimiter> getCallHostLimiters() {
+        return callHostLimiters;
+    }
+
     public boolean isCalled() {
         return callDepth > 0;
     }
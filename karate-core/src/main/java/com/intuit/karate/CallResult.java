@@ -24,6 +24,8 @@
 package com.intuit.karate;
 
 import com.intuit.karate.http.HttpConfig;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  *
@@ -38,5 +40,19 @@ public class CallResult {
         this.value = value;
         this.config = config;
     }
+
+    public ScriptValue copyValue() {
+        if (value.getType() != ScriptValue.Type.MAP) {
+            return JsonUtils.isJson(value.getValue()) ? value.copy() : value;
+        }
+        // typically the variables of a called feature, where some may be functions
+        Map<String, Object> map = value.getValue(Map.class);
+        Map<String, Object> copy = new LinkedHashMap(map.size());
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            Object v = entry.getValue();
+            copy.put(entry.getKey(), JsonUtils.isJson(v) ? new ScriptValue(v).copy().getValue() : v);
+        }
+        return new ScriptValue(copy);
+    }
     
 }
@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import com.intuit.karate.exception.KarateException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * JVM-wide results of karate.callSingle(), there is one 'winner' thread per
+ * key that does the work while other threads asking for the same key wait,
+ * threads asking for other keys are not blocked at all
+ *
+ * @author pthomas3
+ */
+public class CallSingleCache {
+
+    private static final ConcurrentHashMap<String, Entry> CACHE = new ConcurrentHashMap();
+
+    private static class Entry {
+
+        final CompletableFuture<Object> future = new CompletableFuture();
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+
+    }
+
+    public static class Timed { // value and when it was computed, which can be earlier e.g. when read from disk
+
+        public final Object value;
+        public final long time;
+
+        public Timed(Object value, long time) {
+            this.value = value;
+            this.time = time;
+        }
+
+    }
+
+    private CallSingleCache() {
+        // only static methods
+    }
+
+    public static Object get(String key, long expiryMillis, Logger logger, Supplier<Object> supplier) {
+        return getTimed(key, expiryMillis, logger, () -> new Timed(supplier.get(), System.currentTimeMillis()));
+    }
+
+    public static Object getTimed(String key, long expiryMillis, Logger logger, Supplier<Timed> supplier) {
+        while (true) {
+            Entry entry = CACHE.get(key);
+            if (entry != null && entry.isExpired()) {
+                logger.info("callSingle cache expired: {}", key);
+                CACHE.remove(key, entry);
+                continue;
+            }
+            if (entry != null) {
+                return await(key, entry, logger);
+            }
+            Entry mine = new Entry();
+            if (CACHE.putIfAbsent(key, mine) != null) { // another thread won
+                continue;
+            }
+            logger.info(">> begin callSingle: {}", key);
+            Timed result;
+            try {
+                result = supplier.get();
+            } catch (Throwable e) { // errors too, or threads waiting on the future would hang
+                // so that the next thread to ask will try again
+                CACHE.remove(key, mine);
+                mine.future.completeExceptionally(e);
+                throw e;
+            }
+            if (expiryMillis > 0) {
+                mine.expiresAt = result.time + expiryMillis;
+            }
+            mine.future.complete(result.value);
+            logger.info("<< end callSingle: {}", key);
+            return result.value;
+        }
+    }
+
+    private static Object await(String key, Entry entry, Logger logger) {
+        if (entry.future.isDone()) {
+            logger.trace("callSingle cache hit: {}", key);
+        } else {
+            logger.debug("callSingle waiting for other thread: {}", key);
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            Object result = entry.future.get();
+            long elapsed = System.currentTimeMillis() - startTime;
+            if (elapsed > 0) {
+                logger.debug("this thread waited {} milliseconds for callSingle: {}", elapsed, key);
+            }
+            return result;
+        } catch (InterruptedException e) {
+            throw new KarateException("interrupted while waiting for callSingle: " + key);
+        } catch (ExecutionException e) {
+            // the thread that did the work has failed (and the key is free again)
+            throw new KarateException("callSingle failed on another thread: " + key + "\n" + e.getCause().getMessage());
+        }
+    }
+
+    public static void clear() {
+        CACHE.clear();
+    }
+
+}
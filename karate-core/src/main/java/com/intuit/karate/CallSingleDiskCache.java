@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * keeps karate.callSingle() results on disk so that they can be re-used by
+ * the next JVM, e.g. another CI shard or a re-run, one JSON file per key where
+ * the key is the called file, the argument and karate.env - and an entry is
+ * stale if the content of the called file has changed or the time-to-live is
+ * over, a file lock ensures that JVMs on the same machine compute only once
+ *
+ * @author pthomas3
+ */
+public class CallSingleDiskCache {
+
+    private CallSingleDiskCache() {
+        // only static methods
+    }
+
+    public static CallSingleCache.Timed get(File dir, String fileName, Object arg, long ttlMillis,
+            ScriptContext context, Supplier<Object> supplier) {
+        Logger logger = context.logger;
+        Object argJson = arg == null ? null : new ScriptValue(arg).copy().getAfterConvertingFromJsonOrXmlIfNeeded();
+        String key = fileName + "\n" + JsonUtils.toJson(argJson) + "\n" + context.env.env;
+        String keyHash = FileUtils.toSha256(key);
+        String contentHash = FileUtils.toSha256(FileUtils.toBytes(FileUtils.getFileStream(fileName, context)));
+        dir.mkdirs();
+        File cacheFile = new File(dir, keyHash + ".json");
+        File lockFile = new File(dir, keyHash + ".lock");
+        try (RandomAccessFile raf = new RandomAccessFile(lockFile, "rw");
+                FileChannel channel = raf.getChannel()) {
+            channel.lock(); // waits if another JVM is computing the same key, released when the channel is closed
+            if (cacheFile.exists()) {
+                Map<String, Object> cached = read(cacheFile, logger);
+                if (cached != null) {
+                    long time = ((Number) cached.get("time")).longValue();
+                    if (!contentHash.equals(cached.get("hash"))) {
+                        logger.info("callSingle disk cache stale, file changed: {}", fileName);
+                    } else if (ttlMillis > 0 && System.currentTimeMillis() > time + ttlMillis) {
+                        logger.info("callSingle disk cache expired: {}", fileName);
+                    } else {
+                        logger.info("callSingle disk cache hit: {} - {}", fileName, cacheFile);
+                        return new CallSingleCache.Timed(cached.get("value"), time);
+                    }
+                }
+            }
+            Object value = supplier.get();
+            long time = System.currentTimeMillis();
+            if (JsonUtils.isJson(value)) {
+                ScriptValue sv = new ScriptValue(value);
+                Object json = sv.isJsonLike() ? sv.copy().getAfterConvertingFromJsonOrXmlIfNeeded() : value;
+                Map<String, Object> map = new LinkedHashMap();
+                map.put("file", fileName);
+                map.put("env", context.env.env);
+                map.put("arg", argJson);
+                map.put("hash", contentHash);
+                map.put("time", time);
+                map.put("value", json);
+                write(cacheFile, JsonUtils.toJson(map));
+                logger.debug("callSingle disk cache updated: {} - {}", fileName, cacheFile);
+            } else {
+                logger.warn("callSingle result not saved to disk, only json is supported: {}", fileName);
+            }
+            return new CallSingleCache.Timed(value, time);
+        } catch (IOException e) {
+            throw new RuntimeException("callSingle disk cache failed: " + dir + " - " + e.getMessage(), e);
+        }
+    }
+
+    private static Map<String, Object> read(File file, Logger logger) {
+        try {
+            return JsonUtils.toJsonDoc(FileUtils.toString(file)).read("$");
+        } catch (Exception e) { // e.g. truncated by a crash, just compute again
+            logger.warn("ignoring unreadable callSingle disk cache: {} - {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void write(File file, String json) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        FileUtils.writeToFile(temp, json);
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+}
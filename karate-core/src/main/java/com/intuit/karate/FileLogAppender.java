@@ -25,16 +25,16 @@ package com.intuit.karate;
 
 import java.io.File;
 import java.io.RandomAccessFile;
-import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 
 /**
+ * not using a file channel, which would be closed for good if the thread is
+ * interrupted, see the watchdog for scenario timeouts
  *
  * @author pthomas3
  */
 public class FileLogAppender implements LogAppender {
         
-    private final FileChannel file;
+    private final RandomAccessFile file;
     private int prevPos;
 
     public FileLogAppender(String tempFilePath, Logger logger) {
@@ -43,9 +43,8 @@ public class FileLogAppender implements LogAppender {
                 File temp = File.createTempFile("karate", "tmp");
                 tempFilePath = temp.getPath();
             }
-            RandomAccessFile raf = new RandomAccessFile(tempFilePath, "rw");
-            file = raf.getChannel();
-            prevPos = (int) file.position();
+            file = new RandomAccessFile(tempFilePath, "rw");
+            prevPos = (int) file.getFilePointer();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -55,12 +54,12 @@ public class FileLogAppender implements LogAppender {
     @Override
     public String collect() {
         try {
-            int pos = (int) file.position();
-            ByteBuffer buf = ByteBuffer.allocate(pos - prevPos);
-            file.read(buf, prevPos);
+            int pos = (int) file.getFilePointer();
+            byte[] bytes = new byte[pos - prevPos];
+            file.seek(prevPos);
+            file.readFully(bytes);
             prevPos = pos;
-            buf.flip();
-            return FileUtils.toString(buf.array());
+            return FileUtils.toString(bytes);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -69,7 +68,7 @@ public class FileLogAppender implements LogAppender {
     @Override
     public void append(String text) {
         try {
-            file.write(ByteBuffer.wrap(text.getBytes(FileUtils.UTF8)));
+            file.write(text.getBytes(FileUtils.UTF8));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -22,6 +22,8 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.stream.Collectors;
 import static com.intuit.karate.Script.evalKarateExpression;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Properties;
 import org.slf4j.LoggerFactory;
 
@@ -138,6 +140,14 @@ public class FileUtils {
     private static InputStream getFileStream(String path, PathPrefix prefix, ScriptContext context) {
         switch (prefix) {
             case CLASSPATH:
+                URL url = context.env.fileClassLoader.getResource(path);
+                if (url != null && "file".equals(url.getProtocol())) {
+                    try {
+                        context.env.addDependency(new File(url.toURI()).getPath());
+                    } catch (Exception e) {
+                        // not a plain file, nothing to track
+                    }
+                }
                 return context.env.fileClassLoader.getResourceAsStream(path);
             case NONE: // relative to feature dir
                 path = context.env.featureDir + File.separator + path;
@@ -145,7 +155,9 @@ public class FileUtils {
             default: // as-is
         }
         try {
-            return new FileInputStream(path);
+            InputStream is = new FileInputStream(path);
+            context.env.addDependency(new File(path).getAbsolutePath());
+            return is;
         } catch (FileNotFoundException e) {
             throw new KarateFileNotFoundException(e.getMessage());
         }
@@ -320,6 +332,23 @@ public class FileUtils {
         return string.getBytes(UTF8);
     }
 
+    public static String toSha256(byte[] bytes) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            StringBuilder sb = new StringBuilder(64);
+            for (byte b : md.digest(bytes)) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static String toSha256(String text) {
+        return toSha256(toBytes(text));
+    }
+
     public static void copy(File src, File dest) {
         try {
             writeToFile(dest, toString(new FileInputStream(src)));
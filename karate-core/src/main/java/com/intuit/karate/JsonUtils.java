@@ -35,6 +35,7 @@ import com.jayway.jsonpath.spi.mapper.JsonSmartMappingProvider;
 import com.jayway.jsonpath.spi.mapper.MappingProvider;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.IdentityHashMap;
@@ -361,4 +362,39 @@ public class JsonUtils {
         return toJsonDoc(list);
     }
 
+    /**
+     * @param o any value
+     * @return true if it is made up only of what json can represent (so that
+     * it is safe to serialize, or to deep-copy as json)
+     */
+    public static boolean isJson(Object o) {
+        if (o == null || o instanceof String || o instanceof Number || o instanceof Boolean || o instanceof DocumentContext) {
+            return true;
+        }
+        if (o instanceof ScriptObjectMirror) {
+            ScriptObjectMirror som = (ScriptObjectMirror) o;
+            if (som.isFunction()) {
+                return false;
+            }
+            return isJson(som.isArray() ? som.values() : new LinkedHashMap(som));
+        }
+        if (o instanceof Map) {
+            for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) o).entrySet()) {
+                if (!(entry.getKey() instanceof String) || !isJson(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (o instanceof Collection) {
+            for (Object item : (Collection) o) {
+                if (!isJson(item)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
 }
@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import com.intuit.karate.exception.KarateException;
+import com.intuit.karate.http.RetryConfig;
+
+/**
+ * keeps track of attempts for one retry, the caller decides how to wait (or
+ * not wait, e.g. when the thread can be handed back to an async system)
+ *
+ * @author pthomas3
+ */
+public class Retry {
+
+    private final RetryConfig config;
+    private final long startTime;
+    private final long deadline;
+
+    private int attempts;
+    private long waited;
+
+    public Retry(RetryConfig config) {
+        this.config = config;
+        startTime = System.currentTimeMillis();
+        deadline = config.getTimeout() > 0 ? startTime + config.getTimeout() : Long.MAX_VALUE;
+    }
+
+    public void attempt() {
+        attempts++;
+    }
+
+    /**
+     * @return milliseconds to wait before the next attempt, or -1 if the
+     * retry count or the time allowed has been used up
+     */
+    public long nextDelay() {
+        if (attempts >= config.getCount()) {
+            return -1;
+        }
+        long delay = config.getDelay(attempts);
+        long now = System.currentTimeMillis();
+        if (now + delay >= deadline) {
+            return -1;
+        }
+        waited += delay;
+        return delay;
+    }
+
+    public static void sleep(long delay) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            throw new KarateException("retry interrupted");
+        }
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getWaited() {
+        return waited;
+    }
+
+    public long getElapsed() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    public String getSummary() {
+        return "attempts: " + attempts + ", waited: " + waited + " ms";
+    }
+
+    public String getFailureMessage() {
+        String message = "too many retry attempts: " + attempts + ", waited: " + waited + " ms";
+        if (config.getTimeout() > 0 && attempts < config.getCount()) {
+            message = message + " (timeout: " + config.getTimeout() + " ms)";
+        }
+        return message;
+    }
+
+}
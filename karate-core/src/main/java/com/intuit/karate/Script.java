@@ -25,8 +25,12 @@ package com.intuit.karate;
 
 import com.intuit.karate.exception.KarateException;
 import static com.intuit.karate.ScriptValue.Type.*;
+import com.intuit.karate.cucumber.BufferedReporter;
 import com.intuit.karate.cucumber.CucumberUtils;
 import com.intuit.karate.cucumber.FeatureWrapper;
+import com.intuit.karate.cucumber.KarateReporter;
+import com.intuit.karate.http.HttpConfig;
+import com.intuit.karate.http.RateLimiter;
 import com.intuit.karate.validator.ArrayValidator;
 import com.intuit.karate.validator.RegexValidator;
 import com.intuit.karate.validator.ValidationResult;
@@ -34,6 +38,7 @@ import com.intuit.karate.validator.Validator;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.PathNotFoundException;
+import java.io.File;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
@@ -45,6 +50,13 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -172,18 +184,33 @@ public class Script {
     }
 
     private static ScriptValue callWithCache(String text, String arg, ScriptContext context, boolean reuseParentConfig) {
-        CallResult result = context.env.callCache.get(text);
-        if (result != null) {
+        CallCache callCache;
+        String key;
+        if (CallCache.SCOPE_RUN.equals(context.config.getCallonceScope())) {
+            callCache = CallCache.getRunCache();
+            key = context.env.featureDir.getPath() + File.separator + text; // text is relative to the feature
+        } else {
+            callCache = context.env.callCache;
+            key = text;
+        }
+        boolean[] miss = new boolean[1];
+        CallResult result = callCache.get(key, () -> {
+            miss[0] = true;
+            ScriptValue resultValue = call(text, arg, context, reuseParentConfig);
+            context.logger.debug("cached callonce: {}", text);
+            // copy, else later steps in this scenario would change the config that other callers get
+            return new CallResult(resultValue, new HttpConfig(context.config));
+        });
+        if (!miss[0]) {
             context.logger.debug("callonce cache hit for: {}", text);
             if (reuseParentConfig) { // re-apply config that may have been lost when we switched scenarios within a feature
-                context.configure(result.config);
+                context.configure(new HttpConfig(result.config));
             }
+        }
+        if (callCache == context.env.callCache) {
             return result.value;
         }
-        ScriptValue resultValue = call(text, arg, context, reuseParentConfig);
-        context.env.callCache.put(text, resultValue, context.config);
-        context.logger.debug("cached callonce: {}", text);
-        return resultValue;
+        return result.copyValue(); // every feature (and thread) gets its own copy
     }
 
     public static ScriptValue getIfVariableReference(String text, ScriptContext context) {
@@ -1629,22 +1656,27 @@ public class Script {
             Object[] array = items.toArray();
             List result = new ArrayList(array.length);
             List<String> errors = new ArrayList(array.length);
-            for (int i = 0; i < array.length; i++) {
-                Object rowArg = array[i];
-                if (rowArg instanceof Map) {
-                    Map rowArgMap = (Map) rowArg;
-                    try {
-                        ScriptValue rowResult = evalFeatureCall(feature, context, rowArgMap, i, reuseParentConfig);
-                        result.add(rowResult.getValue());
-                    } catch (KarateException ke) {
-                        String message = "feature call (loop) failed at index: " + i + "\ncaller: "
-                                + feature.getEnv().featureName + "\narg: " + rowArg + "\n" + ke.getMessage();
-                        errors.add(message);
-                        // log but don't stop (yet)
-                        context.logger.error("{}", message);
+            int parallelism = context.config.getCallParallelism();
+            // not when variables are shared with the caller, and gatling already controls concurrency
+            if (parallelism > 1 && array.length > 1 && !reuseParentConfig && context.stepInterceptor == null) {
+                evalFeatureCallParallel(feature, array, context, parallelism, result, errors);
+            } else {
+                for (int i = 0; i < array.length; i++) {
+                    Object rowArg = array[i];
+                    if (rowArg instanceof Map) {
+                        Map rowArgMap = (Map) rowArg;
+                        try {
+                            ScriptValue rowResult = evalFeatureCall(feature, context, rowArgMap, i, reuseParentConfig);
+                            result.add(rowResult.getValue());
+                        } catch (KarateException ke) {
+                            String message = getLoopErrorMessage(feature, i, rowArg, ke);
+                            errors.add(message);
+                            // log but don't stop (yet)
+                            context.logger.error("{}", message);
+                        }
+                    } else {
+                        throw new RuntimeException("argument not json or map for feature call loop array position: " + i + ", " + rowArg);
                     }
-                } else {
-                    throw new RuntimeException("argument not json or map for feature call loop array position: " + i + ", " + rowArg);
                 }
             }
             if (!errors.isEmpty()) {
@@ -1671,15 +1703,102 @@ public class Script {
         }
     }
 
+    private static String getLoopErrorMessage(FeatureWrapper feature, int index, Object rowArg, KarateException ke) {
+        return "feature call (loop) failed at index: " + index + "\ncaller: "
+                + feature.getEnv().featureName + "\narg: " + rowArg + "\n" + ke.getMessage();
+    }
+
+    private static final AtomicInteger CALL_LOOP_THREAD_COUNT = new AtomicInteger();
+
+    private static void evalFeatureCallParallel(FeatureWrapper feature, Object[] array, ScriptContext context,
+            int parallelism, List result, List<String> errors) {
+        for (int i = 0; i < array.length; i++) { // validate before anything runs
+            if (!(array[i] instanceof Map)) {
+                throw new RuntimeException("argument not json or map for feature call loop array position: " + i + ", " + array[i]);
+            }
+        }
+        ScriptEnv env = feature.getEnv();
+        List<Callable<ScriptValue>> tasks = new ArrayList(array.length);
+        BufferedReporter[] reporters = new BufferedReporter[array.length];
+        // shared by the rows (and what they call) but not by the caller or other loops
+        Map<String, RateLimiter> hostLimiters = context.config.getMaxRequestsPerHost() > 0 ? new ConcurrentHashMap() : null;
+        for (int i = 0; i < array.length; i++) {
+            int index = i;
+            Map rowArgMap = (Map) array[i];
+            BufferedReporter reporter = new BufferedReporter();
+            reporters[i] = reporter;
+            tasks.add(() -> {
+                // each row gets its own logger and reporter, replayed in order when all rows are done
+                Logger logger = new Logger();
+                reporter.setLogger(logger);
+                FeatureWrapper rowFeature = feature.copy(env.refresh(logger, reporter));
+                return evalFeatureCall(rowFeature, context, reporter, hostLimiters, rowArgMap, index, false);
+            });
+        }
+        int threadCount = Math.min(parallelism, array.length);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, r -> {
+            Thread thread = new Thread(r, "karate-call-" + CALL_LOOP_THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        context.logger.debug("feature call (loop) on {} threads: {}", threadCount, feature.getPath());
+        List<Future<ScriptValue>> futures;
+        try {
+            futures = executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            throw new KarateException("feature call (loop) interrupted: " + feature.getPath(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+        RuntimeException firstUnexpected = null;
+        for (int i = 0; i < array.length; i++) {
+            if (context.env.reporter != null) {
+                reporters[i].replay(context.env.reporter);
+            }
+            try {
+                result.add(futures.get(i).get().getValue());
+            } catch (InterruptedException e) {
+                throw new KarateException("feature call (loop) interrupted: " + feature.getPath(), e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof KarateException) {
+                    String message = getLoopErrorMessage(feature, i, array[i], (KarateException) cause);
+                    errors.add(message);
+                    context.logger.error("{}", message);
+                } else if (firstUnexpected == null) { // would have stopped the (sequential) loop
+                    firstUnexpected = cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+                }
+            }
+        }
+        if (firstUnexpected != null) {
+            throw firstUnexpected;
+        }
+    }
+
     private static ScriptValue evalFeatureCall(FeatureWrapper feature, ScriptContext context,
             Map<String, Object> callArg, int loopIndex, boolean reuseParentConfig) {
+        return evalFeatureCall(feature, context, context.env.reporter, null, callArg, loopIndex, reuseParentConfig);
+    }
+
+    private static ScriptValue evalFeatureCall(FeatureWrapper feature, ScriptContext context, KarateReporter reporter,
+            Map<String, RateLimiter> hostLimiters, Map<String, Object> callArg, int loopIndex, boolean reuseParentConfig) {
         CallContext callContext = new CallContext(context, context.callDepth + 1, callArg, loopIndex,
                 reuseParentConfig, false, null, context.asyncSystem, null, context.stepInterceptor);
-        if (context.env.reporter != null) {
-            context.env.reporter.callBegin(feature, callContext);
+        callContext.setCallHostLimiters(hostLimiters);
+        if (reporter != null) {
+            reporter.callBegin(feature, callContext);
+        }
+        long startTime = System.currentTimeMillis();
+        boolean pass = false;
+        try {
+            ScriptValueMap svm = CucumberUtils.callSync(feature, callContext);
+            pass = true;
+            return new ScriptValue(svm.toPrimitiveMap());
+        } finally {
+            if (context.stepInterceptor != null) { // e.g. gatling, to time called features
+                context.stepInterceptor.afterCall(feature, callContext, startTime, System.currentTimeMillis(), pass);
+            }
         }
-        ScriptValueMap svm = CucumberUtils.callSync(feature, callContext);
-        return new ScriptValue(svm.toPrimitiveMap());
     }
 
     public static void callAndUpdateConfigAndAlsoVarsIfMapReturned(boolean callOnce, String name, String arg, ScriptContext context) {
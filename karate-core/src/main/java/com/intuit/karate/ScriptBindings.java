@@ -31,6 +31,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.script.Bindings;
 import javax.script.ScriptEngine;
@@ -38,7 +39,8 @@ import javax.script.ScriptEngineManager;
 
 /**
  * this class exists as a performance optimization - we init Nashorn only once
- * and set up the Bindings to Karate variables only once per scenario
+ * (lazily, or in the background via warmUp) and set up the Bindings to Karate
+ * variables only once per scenario
  *
  * we also avoid re-creating hash-maps as far as possible
  *
@@ -47,7 +49,9 @@ import javax.script.ScriptEngineManager;
 public class ScriptBindings implements Bindings {
 
     // all threads will share this ! thread isolation is via Bindings (this class)
-    private static final ScriptEngine NASHORN = new ScriptEngineManager(null).getEngineByName("nashorn");
+    // but Java.type() resolves classes via the context class loader at the time the engine
+    // was created, so a different context class loader (e.g. for each run in daemon mode) gets its own
+    private static final Map<ClassLoader, ScriptEngine> ENGINES = new ConcurrentHashMap();
 
     protected final ScriptBridge bridge;
 
@@ -112,6 +116,53 @@ public class ScriptBindings implements Bindings {
         }
     }
 
+    private static ClassLoader getClassLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader == null ? ScriptBindings.class.getClassLoader() : classLoader;
+    }
+
+    private static ScriptEngine getEngine() {
+        ClassLoader classLoader = getClassLoader();
+        ScriptEngine engine = ENGINES.get(classLoader);
+        if (engine == null) {
+            engine = ENGINES.computeIfAbsent(classLoader, k -> new ScriptEngineManager(null).getEngineByName("nashorn"));
+        }
+        return engine;
+    }
+
+    /**
+     * starts creating the engine (for the current context class loader) in the
+     * background, so that the second or so this takes overlaps with other
+     * start-up work such as scanning for and parsing features - the first
+     * eval will wait for it if it is not done yet
+     */
+    public static void warmUp() {
+        ClassLoader classLoader = getClassLoader();
+        if (ENGINES.containsKey(classLoader)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                getEngine().eval("1 + 1"); // the first eval is slow as well
+            } catch (Exception e) {
+                // will fail again, and be reported on first use
+            }
+        }, "karate-engine-warm-up");
+        thread.setContextClassLoader(classLoader);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * call when done with a class loader that was used as the context class
+     * loader, so that it (and the classes it loaded) can be garbage collected
+     *
+     * @param classLoader
+     */
+    public static void releaseEngine(ClassLoader classLoader) {
+        ENGINES.remove(classLoader);
+    }
+
     public static ScriptValue evalInNashorn(String exp, ScriptContext context, ScriptEvalContext evalContext) {
         if (context == null) {
             return eval(exp, null);
@@ -136,7 +187,8 @@ public class ScriptBindings implements Bindings {
 
     private static ScriptValue eval(String exp, Bindings bindings) {
         try {
-            Object o = bindings == null ? NASHORN.eval(exp) : NASHORN.eval(exp, bindings);
+            ScriptEngine engine = getEngine();
+            Object o = bindings == null ? engine.eval(exp) : engine.eval(exp, bindings);
             return new ScriptValue(o);
         } catch (KarateAbortException | KarateFileNotFoundException ke) {
             throw ke; // reduce log bloat for common file-not-found situation / handle karate.abort()
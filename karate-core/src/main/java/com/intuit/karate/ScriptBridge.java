@@ -23,8 +23,11 @@
  */
 package com.intuit.karate;
 
+import com.intuit.karate.cucumber.CucumberUtils;
 import com.intuit.karate.cucumber.FeatureWrapper;
+import com.intuit.karate.cucumber.KarateReporterBase;
 import com.intuit.karate.exception.KarateAbortException;
+import com.intuit.karate.exception.KarateException;
 import com.intuit.karate.http.HttpRequest;
 import com.intuit.karate.http.HttpRequestBuilder;
 import com.intuit.karate.http.HttpResponse;
@@ -32,11 +35,15 @@ import com.intuit.karate.http.HttpUtils;
 import com.intuit.karate.http.MultiValuedMap;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
+import gherkin.formatter.model.Result;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import jdk.nashorn.api.scripting.ScriptObjectMirror;
 import org.w3c.dom.Document;
@@ -48,11 +55,13 @@ import org.w3c.dom.Node;
  */
 public class ScriptBridge {
     
-    private static final Object GLOBALS_LOCK = new Object();
-    private static final Map<String, Object> GLOBALS = new HashMap();
+    // files read by each karate.callSingle(), so that they can be added to the features that hit the cache
+    private static final Map<String, Set<String>> CALL_SINGLE_DEPENDENCIES = new ConcurrentHashMap();
     
     public final ScriptContext context;
     
+    private final List<AsyncCall> asyncCalls = new ArrayList(); // not yet awaited
+    
     public ScriptBridge(ScriptContext context) {
         this.context = context;       
     }
@@ -247,30 +256,112 @@ public class ScriptBridge {
         }        
     }
     
+    public AsyncCall callAsync(Object fileNameOrFunction) {
+        return callAsync(fileNameOrFunction, null);
+    }
+
+    // one signature, nashorn can't choose between String and ScriptObjectMirror for a js function
+    public AsyncCall callAsync(Object fileNameOrFunction, Object arg) {
+        AsyncCall asyncCall;
+        if (fileNameOrFunction instanceof ScriptObjectMirror && ((ScriptObjectMirror) fileNameOrFunction).isFunction()) {
+            asyncCall = new AsyncCall((ScriptObjectMirror) fileNameOrFunction, arg, context);
+        } else if (fileNameOrFunction instanceof String) {
+            asyncCall = new AsyncCall((String) fileNameOrFunction, arg, context);
+        } else {
+            throw new RuntimeException("not a file name or js function: " + fileNameOrFunction);
+        }
+        asyncCalls.add(asyncCall);
+        return asyncCall;
+    }
+
+    public Object await(AsyncCall asyncCall) {
+        asyncCalls.remove(asyncCall);
+        return asyncCall.await();
+    }
+
+    public List awaitAll() {
+        List<AsyncCall> list = new ArrayList(asyncCalls);
+        asyncCalls.clear();
+        return awaitAll(list);
+    }
+
+    public List awaitAll(List<AsyncCall> list) {
+        List results = new ArrayList(list.size());
+        List<String> errors = new ArrayList();
+        for (AsyncCall asyncCall : list) { // wait for all, even if some fail
+            asyncCalls.remove(asyncCall);
+            try {
+                results.add(asyncCall.await());
+            } catch (KarateException ke) {
+                errors.add(ke.getMessage());
+                results.add(null);
+            }
+        }
+        if (!errors.isEmpty()) {
+            String message = "callAsync failed for " + errors.size() + " of " + list.size() + " calls";
+            for (String s : errors) {
+                message = message + "\n-------\n" + s;
+            }
+            throw new KarateException(message);
+        }
+        return results;
+    }
+
+    public Object retry(ScriptObjectMirror fn, ScriptObjectMirror condition) {
+        Retry retry = new Retry(context.config.getRetryConfig());
+        while (true) {
+            retry.attempt();
+            Object result = Script.evalFunctionCall(fn, null, context).getValue();
+            if (Script.evalFunctionCall(condition, result, context).isBooleanTrue()) {
+                reportRetry(retry, null);
+                return result;
+            }
+            long delay = retry.nextDelay();
+            if (delay == -1) {
+                KarateException ke = new KarateException(retry.getFailureMessage() + ", condition: " + condition);
+                reportRetry(retry, ke);
+                throw ke;
+            }
+            context.logger.debug("retry condition not satisfied, attempt: {}, next in {} ms", retry.getAttempts(), delay);
+            Retry.sleep(delay);
+        }
+    }
+
+    private void reportRetry(Retry retry, KarateException error) {
+        String text = "karate.retry() [" + retry.getSummary() + "]";
+        long duration = retry.getElapsed() * 1000000;
+        Result result = error == null ? KarateReporterBase.passed(duration) : KarateReporterBase.failed(duration, error);
+        CucumberUtils.reportNestedStep(context, text, null, result);
+    }
+
     public Object callSingle(String fileName) {
         return callSingle(fileName, null);
     }
     
     public Object callSingle(String fileName, Object arg) {
-        if (GLOBALS.containsKey(fileName)) {
-            context.logger.trace("callSingle cache hit: {}", fileName);
-            return GLOBALS.get(fileName);
-        }
-        long startTime = System.currentTimeMillis();
-        context.logger.trace("callSingle waiting for lock: {}", fileName);
-        synchronized (GLOBALS_LOCK) { // lock
-            if (GLOBALS.containsKey(fileName)) { // retry
-                long endTime = System.currentTimeMillis() - startTime;
-                context.logger.warn("this thread waited {} milliseconds for callSingle lock: {}", endTime, fileName);
-                return GLOBALS.get(fileName);
-            } 
-            // this thread is the 'winner'
-            context.logger.info(">> lock acquired, begin callSingle: {}", fileName);
-            Object result = call(fileName, arg);
-            GLOBALS.put(fileName, result);
-            context.logger.info("<< lock released, end callSingle: {}", fileName);
-            return result;
-        }        
+        long expiry = context.config.getCallSingleCacheMinutes() * 60000L;
+        String dir = context.config.getCallSingleCacheDir();
+        Object result;
+        if (dir == null) {
+            result = CallSingleCache.get(fileName, expiry, context.logger, () -> callAndTrack(fileName, arg));
+        } else {
+            File dirFile = new File(dir);
+            result = CallSingleCache.getTimed(fileName, expiry, context.logger,
+                    () -> CallSingleDiskCache.get(dirFile, fileName, arg, expiry, context, () -> callAndTrack(fileName, arg)));
+        }
+        // a cache hit reads no files, but this feature still depends on them
+        Set<String> files = CALL_SINGLE_DEPENDENCIES.get(fileName);
+        if (files != null) {
+            context.env.addDependencies(files);
+        }
+        return result;
+    }
+
+    private Object callAndTrack(String fileName, Object arg) {
+        Set<String> files = ConcurrentHashMap.newKeySet(); // not a diff, the caller may have read some already
+        Object result = ScriptEnv.recordDependencies(files, () -> call(fileName, arg));
+        CALL_SINGLE_DEPENDENCIES.put(fileName, files);
+        return result;
     }
     
     public HttpRequest getPrevRequest() {
@@ -30,6 +30,8 @@ import com.intuit.karate.http.Cookie;
 import com.intuit.karate.http.HttpClient;
 import com.intuit.karate.http.HttpConfig;
 import com.intuit.karate.http.HttpRequest;
+import com.intuit.karate.http.RateLimitConfig;
+import com.intuit.karate.http.RetryConfig;
 import com.intuit.karate.validator.Validator;
 import java.nio.charset.Charset;
 import java.util.List;
@@ -131,6 +133,9 @@ public class ScriptContext {
             vars = call.parentContext.vars.copy();
             validators = call.parentContext.validators;
             config = new HttpConfig(call.parentContext.config);
+            if (call.getCallHostLimiters() != null) { // row of a parallel call loop
+                config.setCallHostLimiters(call.getCallHostLimiters());
+            }
         } else {
             vars = new ScriptValueMap();
             validators = Validator.getDefaults();
@@ -192,6 +197,12 @@ public class ScriptContext {
         client = HttpClient.construct(config, this);
     }
 
+    public void restore(ScriptValueMap snapshotVars, HttpConfig snapshotConfig) {
+        vars.clear();
+        vars.putAll(snapshotVars.deepCopy());
+        configure(new HttpConfig(snapshotConfig));
+    }
+
     public void configure(String key, String exp) {
         configure(key, Script.evalKarateExpression(exp, this));
     }
@@ -256,6 +267,63 @@ public class ScriptContext {
             client = HttpClient.construct(config, this);
             return;
         }
+        if (key.equals("callParallelism")) {
+            if (value.isMapLike()) {
+                Map<String, Object> map = value.getAsMap();
+                Number threads = (Number) map.get("threads");
+                Number perHost = (Number) map.get("perHost");
+                config.setCallParallelism(threads == null ? 1 : threads.intValue());
+                config.setMaxRequestsPerHost(perHost == null ? 0 : perHost.intValue());
+            } else if (value.isNull()) {
+                config.setCallParallelism(1);
+                config.setMaxRequestsPerHost(0);
+            } else {
+                config.setCallParallelism(Integer.valueOf(value.getAsString()));
+            }
+            return;
+        }
+        if (key.equals("rateLimit")) {
+            if (value.isMapLike()) {
+                config.setRateLimitConfig(RateLimitConfig.fromMap(value.getAsMap()));
+            } else if (value.isNull()) {
+                config.setRateLimitConfig(null);
+            } else {
+                throw new RuntimeException("rateLimit config has to be json: " + value);
+            }
+            return;
+        }
+        if (key.equals("retry")) {
+            if (value.isMapLike()) {
+                config.setRetryConfig(RetryConfig.fromMap(value.getAsMap()));
+            } else if (value.isNull()) {
+                config.setRetryConfig(RetryConfig.DEFAULT);
+            } else {
+                throw new RuntimeException("retry config has to be json: " + value);
+            }
+            return;
+        }
+        if (key.equals("callSingleCache")) {
+            if (value.isMapLike()) {
+                Map<String, Object> map = value.getAsMap();
+                Number minutes = (Number) map.get("minutes");
+                config.setCallSingleCacheMinutes(minutes == null ? 0 : minutes.intValue());
+                config.setCallSingleCacheDir((String) map.get("dir"));
+            } else if (value.isNull()) {
+                config.setCallSingleCacheMinutes(0);
+                config.setCallSingleCacheDir(null);
+            } else {
+                throw new RuntimeException("callSingleCache config has to be json: " + value);
+            }
+            return;
+        }
+        if (key.equals("callonceScope")) {
+            String scope = value.isNull() ? CallCache.SCOPE_FEATURE : value.getAsString();
+            if (!CallCache.SCOPE_FEATURE.equals(scope) && !CallCache.SCOPE_RUN.equals(scope)) {
+                throw new RuntimeException("callonceScope has to be '" + CallCache.SCOPE_FEATURE + "' or '" + CallCache.SCOPE_RUN + "': " + scope);
+            }
+            config.setCallonceScope(scope);
+            return;
+        }
         if (key.equals("report")) {
             if (value.isMapLike()) {
                 Map<String, Object> map = value.getAsMap();
@@ -25,6 +25,12 @@ package com.intuit.karate;
 
 import com.intuit.karate.cucumber.KarateReporter;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  *
@@ -39,9 +45,18 @@ public class ScriptEnv {
     public final ClassLoader fileClassLoader;
     public final CallCache callCache;
     public final KarateReporter reporter;
+    public final Set<String> dependencies; // absolute paths of files read, shared with called features
+
+    // extra sets that files read on this thread also go to, e.g. while a karate.callSingle() is in progress
+    private static final ThreadLocal<List<Set<String>>> RECORDERS = ThreadLocal.withInitial(ArrayList::new);
     
     public ScriptEnv(String env, File featureDir, String featureName, ClassLoader fileClassLoader, 
             CallCache callCache, Logger logger, KarateReporter reporter) {
+        this(env, featureDir, featureName, fileClassLoader, callCache, logger, reporter, ConcurrentHashMap.newKeySet());
+    }
+    
+    private ScriptEnv(String env, File featureDir, String featureName, ClassLoader fileClassLoader, 
+            CallCache callCache, Logger logger, KarateReporter reporter, Set<String> dependencies) {
         this.env = env;
         this.featureDir = featureDir;
         this.featureName = featureName;
@@ -49,6 +64,7 @@ public class ScriptEnv {
         this.callCache = callCache;
         this.logger = logger;
         this.reporter = reporter;
+        this.dependencies = dependencies;
     }
     
     public ScriptEnv(String env, File featureDir, String featureName, ClassLoader fileClassLoader, KarateReporter reporter) {
@@ -77,9 +93,40 @@ public class ScriptEnv {
                 karateEnv = StringUtils.trimToNull(System.getProperty(ScriptBindings.KARATE_ENV));
             }
         }
-        return new ScriptEnv(karateEnv, featureDir, featureName, fileClassLoader, callCache, logger, reporter);
+        return new ScriptEnv(karateEnv, featureDir, featureName, fileClassLoader, callCache, logger, reporter, dependencies);
     }
     
+    public ScriptEnv refresh(Logger logger, KarateReporter reporter) { // immutable
+        return new ScriptEnv(env, featureDir, featureName, fileClassLoader, callCache, logger, reporter, dependencies);
+    }
+    
+    public void addDependency(String path) {
+        dependencies.add(path);
+        for (Set<String> recorder : RECORDERS.get()) {
+            recorder.add(path);
+        }
+    }
+
+    public void addDependencies(Collection<String> paths) {
+        paths.forEach(this::addDependency);
+    }
+
+    /**
+     * @param into gets the files read (on this thread) by the supplier, and
+     * only those, even if the caller has read the same files earlier
+     * @param supplier the work to do
+     * @return what the supplier returns
+     */
+    public static <T> T recordDependencies(Set<String> into, Supplier<T> supplier) {
+        List<Set<String>> recorders = RECORDERS.get();
+        recorders.add(into);
+        try {
+            return supplier.get();
+        } finally {
+            recorders.remove(recorders.size() - 1);
+        }
+    }
+
     @Override
     public String toString() {
         return featureName + ", env: " + env + ", dir: " + featureDir;
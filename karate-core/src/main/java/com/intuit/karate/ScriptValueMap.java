@@ -47,4 +47,11 @@ public class ScriptValueMap extends HashMap<String, ScriptValue> {
         return copy;
     }
 
+    public ScriptValueMap deepCopy() {
+        ScriptValueMap copy = new ScriptValueMap();
+        // only json and xml can be mutated in place (e.g. via 'set'), everything else can be shared
+        forEach((k, v) -> copy.put(k, v.isXml() || JsonUtils.isJson(v.getValue()) ? v.copy() : v));
+        return copy;
+    }
+
 }
@@ -23,8 +23,12 @@
  */
 package com.intuit.karate;
 
+import com.intuit.karate.cucumber.CucumberUtils;
+import com.intuit.karate.cucumber.KarateReporterBase;
 import com.intuit.karate.exception.KarateException;
+import com.intuit.karate.exception.KarateRetryException;
 import com.intuit.karate.http.Cookie;
+import com.intuit.karate.http.HttpConfig;
 import com.intuit.karate.http.HttpRequestBuilder;
 import com.intuit.karate.http.HttpResponse;
 import com.intuit.karate.http.HttpUtils;
@@ -33,6 +37,7 @@ import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import cucumber.api.DataTable;
 import cucumber.api.java.en.When;
+import gherkin.formatter.model.Result;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -82,6 +87,8 @@ public class StepDefs {
     private final ScriptContext context;
     private HttpRequestBuilder request;
     private HttpResponse response;
+    private String retryUntil;
+    private Retry retry;
 
     public ScriptContext getContext() {
         return context;
@@ -89,7 +96,12 @@ public class StepDefs {
 
     public HttpRequestBuilder getRequest() {
         return request;
-    }        
+    }
+
+    public void restore(ScriptValueMap snapshotVars, HttpConfig snapshotConfig, HttpRequestBuilder snapshotRequest) {
+        context.restore(snapshotVars, snapshotConfig);
+        request = snapshotRequest.copy();
+    }
 
     @When("^configure ([^\\s]+) =$")
     public void configureDocString(String key, String exp) {
@@ -354,12 +366,28 @@ public class StepDefs {
         }
     }
 
+    @When("^retry until (.+)")
+    public void retryUntil(String until) {
+        retryUntil = until;
+    }
+
     @When("^method (\\w+)")
     public void method(String method) {
         if (!HttpUtils.HTTP_METHODS.contains(method.toUpperCase())) { // support expressions also
             method = Script.evalKarateExpression(method, context).getAsString();
         }
         request.setMethod(method);
+        if (retryUntil == null) {
+            invoke();
+        } else {
+            invokeWithRetry();
+        }
+        String prevUrl = request.getUrl();
+        request = new HttpRequestBuilder();
+        request.setUrl(prevUrl);
+    }
+
+    private void invoke() {
         try {
             response = context.client.invoke(request, context);
         } catch (Exception e) {
@@ -369,9 +397,53 @@ public class StepDefs {
         }
         HttpUtils.updateRequestVars(request, context.vars, context);
         HttpUtils.updateResponseVars(response, context.vars, context);
-        String prevUrl = request.getUrl();
-        request = new HttpRequestBuilder();
-        request.setUrl(prevUrl);
+    }
+
+    private void invokeWithRetry() {
+        if (retry == null) { // else this step is being re-run after a delay
+            retry = new Retry(context.config.getRetryConfig());
+        }
+        while (true) {
+            retry.attempt();
+            KarateException error = null;
+            boolean done;
+            try {
+                invoke();
+                done = Script.evalJsExpression(retryUntil, context).isBooleanTrue();
+            } catch (KarateException ke) { // e.g. connection refused, worth trying again
+                error = ke;
+                done = false;
+            }
+            if (done) {
+                reportRetry(null);
+                return;
+            }
+            long delay = retry.nextDelay();
+            if (delay == -1) {
+                String message = retry.getFailureMessage() + ", condition: " + retryUntil;
+                if (error != null) {
+                    message = message + "\n" + error.getMessage();
+                }
+                KarateException ke = new KarateException(message);
+                reportRetry(ke);
+                throw ke;
+            }
+            context.logger.debug("retry condition not satisfied: {}, attempt: {}, next in {} ms",
+                    retryUntil, retry.getAttempts(), delay);
+            if (context.asyncSystem != null) { // hand the thread back, see AsyncStep
+                throw new KarateRetryException(delay);
+            }
+            Retry.sleep(delay);
+        }
+    }
+
+    private void reportRetry(KarateException error) {
+        String text = "retry until " + retryUntil + " [" + retry.getSummary() + "]";
+        long duration = retry.getElapsed() * 1000000;
+        Result result = error == null ? KarateReporterBase.passed(duration) : KarateReporterBase.failed(duration, error);
+        CucumberUtils.reportNestedStep(context, text, null, result);
+        retryUntil = null;
+        retry = null;
     }
 
     @When("^soap action( .+)?")
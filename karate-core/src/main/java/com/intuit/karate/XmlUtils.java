@@ -95,6 +95,59 @@ public class XmlUtils {
         }
     }
 
+    public static String escape(String text) {
+        return escape(text, false);
+    }
+
+    public static String escape(String text, boolean attribute) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = null;
+        int count = text.length();
+        for (int i = 0; i < count; i++) {
+            char c = text.charAt(i);
+            String replace;
+            switch (c) {
+                case '<':
+                    replace = "&lt;";
+                    break;
+                case '>':
+                    replace = "&gt;";
+                    break;
+                case '&':
+                    replace = "&amp;";
+                    break;
+                case '"':
+                    replace = "&quot;";
+                    break;
+                case '\n':
+                    replace = attribute ? "&#10;" : null;
+                    break;
+                case '\r':
+                    replace = attribute ? "&#13;" : null;
+                    break;
+                case '\t':
+                    replace = attribute ? "&#9;" : null;
+                    break;
+                default:
+                    replace = null;
+            }
+            if (replace == null) {
+                if (sb != null) {
+                    sb.append(c);
+                }
+            } else {
+                if (sb == null) {
+                    sb = new StringBuilder(count + 16);
+                    sb.append(text, 0, i);
+                }
+                sb.append(replace);
+            }
+        }
+        return sb == null ? text : sb.toString();
+    }
+
     public static void trimWhiteSpace(Node node) {
         NodeList children = node.getChildNodes();
         int count = children.getLength();
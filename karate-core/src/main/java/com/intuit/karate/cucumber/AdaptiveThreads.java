@@ -0,0 +1,285 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * instead of a fixed thread count, the parallel runner starts with a few
+ * threads and adds one at a time while there are features waiting, and cuts
+ * back by a quarter when the CPU is saturated or http calls are taking much
+ * longer than they did at lower concurrency (additive increase, multiplicative
+ * decrease), always within the bounds given
+ *
+ * <pre>
+ * AdaptiveThreads threads = new AdaptiveThreads(2, 20).maxCpu(0.8);
+ * CucumberRunner.parallel(getClass(), threads, "target/surefire-reports");
+ * </pre>
+ *
+ * @author pthomas3
+ */
+public class AdaptiveThreads {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveThreads.class);
+
+    private static final long DEFAULT_INTERVAL = 2000;
+
+    private final int minThreads;
+    private final int maxThreads;
+    private long interval = DEFAULT_INTERVAL;
+    private double maxCpu = 0.9;
+    private double maxLatencyRatio = 2;
+
+    private volatile int threads;
+    private int abandoned; // stuck threads that no longer count, see Watchdog
+    private long startTime;
+    private final Map<Long, Integer> history = new LinkedHashMap();
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService scheduler;
+
+    // previous sample
+    private long lastScenarios;
+    private long lastHttpCount;
+    private long lastHttpSum;
+    private double lastThroughput;
+    private boolean lastIncreased;
+    private double baselineLatency; // lowest seen, the best the target can do
+    private long threadMillis; // for the mean
+    private long lastChangeTime;
+
+    public AdaptiveThreads(int minThreads, int maxThreads) {
+        if (minThreads < 1 || maxThreads < minThreads) {
+            throw new IllegalArgumentException("invalid thread bounds, min: " + minThreads + ", max: " + maxThreads);
+        }
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.threads = minThreads;
+    }
+
+    /**
+     * @param millis how often to re-evaluate the thread count, default 2000
+     * @return this
+     */
+    public AdaptiveThreads interval(long millis) {
+        interval = millis;
+        return this;
+    }
+
+    /**
+     * @param fraction back off when system CPU load is above this, default 0.9
+     * @return this
+     */
+    public AdaptiveThreads maxCpu(double fraction) {
+        maxCpu = fraction;
+        return this;
+    }
+
+    /**
+     * @param ratio back off when the mean http response time is this many times
+     * the lowest seen so far, default 2
+     * @return this
+     */
+    public AdaptiveThreads maxLatencyRatio(double ratio) {
+        maxLatencyRatio = ratio;
+        return this;
+    }
+
+    public int getMinThreads() {
+        return minThreads;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    ThreadPoolExecutor createExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(minThreads, minThreads, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "karate-adaptive-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return executor;
+    }
+
+    void start(RunMetrics metrics) {
+        startTime = System.currentTimeMillis();
+        lastChangeTime = startTime;
+        history.put(0L, threads);
+        logger.info("adaptive threads: starting with {}, max: {}", threads, maxThreads);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "karate-adaptive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                sample(metrics);
+            } catch (Exception e) {
+                logger.warn("adaptive threads sample failed: {}", e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        long now = System.currentTimeMillis();
+        synchronized (history) {
+            threadMillis += (now - lastChangeTime) * threads;
+            lastChangeTime = now;
+        }
+    }
+
+    private static double getCpuLoad() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getSystemCpuLoad();
+        }
+        return -1; // unknown
+    }
+
+    private void sample(RunMetrics metrics) {
+        long scenarios = metrics.getScenarioCount();
+        RunMetrics.Histogram http = metrics.getHttpTimes();
+        long httpCount = http.getCount();
+        long httpSum = http.getSum();
+        double throughput = (scenarios - lastScenarios) * 1000.0 / interval;
+        double latency = httpCount > lastHttpCount ? (double) (httpSum - lastHttpSum) / (httpCount - lastHttpCount) : -1;
+        lastScenarios = scenarios;
+        lastHttpCount = httpCount;
+        lastHttpSum = httpSum;
+        boolean queued = !executor.getQueue().isEmpty();
+        adjust(getCpuLoad(), throughput, latency, queued);
+    }
+
+    /**
+     * @param cpu system load between 0 and 1, negative if unknown
+     * @param throughput scenarios per second in the last interval
+     * @param latency mean http response time in the last interval, negative if
+     * there were no calls
+     * @param queued if there are features waiting for a thread
+     * @return the new thread count, which is applied to the executor
+     */
+    int adjust(double cpu, double throughput, double latency, boolean queued) {
+        if (latency > 0 && (baselineLatency == 0 || latency < baselineLatency)) {
+            baselineLatency = Math.max(1, latency);
+        }
+        String reason = null;
+        if (cpu > maxCpu) {
+            reason = String.format("cpu: %.2f", cpu);
+        } else if (latency > 0 && latency > baselineLatency * maxLatencyRatio) {
+            reason = String.format("http mean: %.0fms, lowest: %.0fms", latency, baselineLatency);
+        }
+        int next = threads;
+        if (reason != null) {
+            next = Math.max(minThreads, (int) (threads * 0.75));
+        } else if (lastIncreased && lastThroughput > 0 && throughput < lastThroughput * 0.9) {
+            // the last thread added made things worse, give it back
+            next = Math.max(minThreads, threads - 1);
+            reason = String.format("scenarios/s: %.2f, was: %.2f", throughput, lastThroughput);
+        } else if (queued) {
+            next = Math.min(maxThreads, threads + 1);
+            reason = "features waiting";
+        }
+        lastIncreased = next > threads;
+        lastThroughput = throughput;
+        if (next != threads) {
+            logger.info("adaptive threads: {} -> {} ({})", threads, next, reason);
+            setThreads(next);
+        }
+        return next;
+    }
+
+    private void setThreads(int next) {
+        long now = System.currentTimeMillis();
+        synchronized (history) {
+            threadMillis += (now - lastChangeTime) * threads;
+            lastChangeTime = now;
+            history.put(now - startTime, next);
+        }
+        threads = next;
+        resize();
+    }
+
+    void abandoned() {
+        synchronized (history) {
+            abandoned++;
+        }
+        resize();
+    }
+
+    private void resize() {
+        if (executor == null) {
+            return;
+        }
+        synchronized (history) {
+            int size = threads + abandoned;
+            // core and max are kept equal, threads above the new max exit after their current feature
+            if (size > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(size);
+                executor.setCorePoolSize(size);
+            } else {
+                executor.setCorePoolSize(size);
+                executor.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    /**
+     * @return thread count over the run, keyed by milliseconds since the start
+     */
+    public Map<Long, Integer> getHistory() {
+        synchronized (history) {
+            return new LinkedHashMap(history);
+        }
+    }
+
+    /**
+     * @return thread count averaged over the time the run took
+     */
+    public double getMeanThreads() {
+        synchronized (history) {
+            long elapsed = lastChangeTime - startTime;
+            return elapsed == 0 ? threads : (double) threadMillis / elapsed;
+        }
+    }
+
+}
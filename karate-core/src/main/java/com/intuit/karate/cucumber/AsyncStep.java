@@ -23,8 +23,13 @@
  */
 package com.intuit.karate.cucumber;
 
+import com.intuit.karate.Retry;
 import com.intuit.karate.StringUtils;
 import com.intuit.karate.exception.KarateException;
+import com.intuit.karate.exception.KarateRetryException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -34,6 +39,13 @@ import java.util.function.Consumer;
  */
 public class AsyncStep implements AsyncAction<StepResult> {
 
+    // only hands the step back to the async system when the delay is over, no step runs on this thread
+    private static final ScheduledExecutorService RETRY_SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "karate-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final StepWrapper step;
     private final KarateBackend backend;
 
@@ -47,7 +59,15 @@ public class AsyncStep implements AsyncAction<StepResult> {
         system.accept(() -> {
             StepResult result = CucumberUtils.runCalledStep(step, backend);
             ScenarioWrapper scenario = step.getScenario();
-            if (result.isAbort()) {
+            if (result.isRetry()) {
+                long delay = ((KarateRetryException) result.getError()).getDelay();
+                if (system == CucumberUtils.DEFAULT_SYNC) { // caller is waiting on this thread anyway
+                    Retry.sleep(delay);
+                    submit(system, next);
+                } else {
+                    RETRY_SCHEDULER.schedule(() -> submit(system, next), delay, TimeUnit.MILLISECONDS);
+                }
+            } else if (result.isAbort()) {
                 backend.getEnv().logger.debug("abort at {}:{}", scenario.getFeature().getPath(), step.getStep().getLine());
                 next.accept(result, null);
             } else if (!result.isPass()) {
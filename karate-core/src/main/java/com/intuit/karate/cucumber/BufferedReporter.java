@@ -0,0 +1,182 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.CallContext;
+import com.intuit.karate.LogAppender;
+import com.intuit.karate.Logger;
+import gherkin.formatter.model.Background;
+import gherkin.formatter.model.Examples;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.ScenarioOutline;
+import gherkin.formatter.model.Step;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * holds on to the steps (and logs) of a 'called' feature that runs on another
+ * thread, e.g. a row of a parallel call loop, so that they can be replayed
+ * into the 'real' reporter in a deterministic order
+ *
+ * @author pthomas3
+ */
+public class BufferedReporter extends KarateReporterBase {
+
+    private final List<ReportStep> steps = new ArrayList();
+
+    private static class StringLogAppender implements LogAppender {
+
+        private final StringBuilder sb = new StringBuilder();
+
+        @Override
+        public String collect() {
+            String temp = sb.toString();
+            sb.setLength(0);
+            return temp;
+        }
+
+        @Override
+        public void append(String text) {
+            sb.append(text);
+        }
+
+    }
+
+    @Override
+    public void setLogger(Logger logger) {
+        appender = new StringLogAppender();
+        logger.setLogAppender(appender);
+    }
+
+    @Override
+    public void karateStepProceed(Step step, Match match, Result result, CallContext callContext) {
+        steps.add(new ReportStep(step, match, result, null, callContext));
+    }
+
+    public String collectLog() {
+        return appender.collect();
+    }
+
+    public void replay(KarateReporter reporter) {
+        for (ReportStep rs : steps) {
+            reporter.karateStep(rs.getStep(), rs.getMatch(), rs.getResult(), rs.getCallContext(), null);
+        }
+        steps.clear();
+    }
+
+    // ignored =================================================================
+    @Override
+    public void syntaxError(String state, String event, List<String> legalEvents, String uri, Integer line) {
+
+    }
+
+    @Override
+    public void uri(String uri) {
+
+    }
+
+    @Override
+    public void feature(Feature feature) {
+
+    }
+
+    @Override
+    public void scenarioOutline(ScenarioOutline scenarioOutline) {
+
+    }
+
+    @Override
+    public void examples(Examples examples) {
+
+    }
+
+    @Override
+    public void startOfScenarioLifeCycle(Scenario scenario) {
+
+    }
+
+    @Override
+    public void background(Background background) {
+
+    }
+
+    @Override
+    public void scenario(Scenario scenario) {
+
+    }
+
+    @Override
+    public void endOfScenarioLifeCycle(Scenario scenario) {
+
+    }
+
+    @Override
+    public void done() {
+
+    }
+
+    @Override
+    public void close() {
+
+    }
+
+    @Override
+    public void eof() {
+
+    }
+
+    @Override
+    public void before(Match match, Result result) {
+
+    }
+
+    @Override
+    public void result(Result result) {
+
+    }
+
+    @Override
+    public void after(Match match, Result result) {
+
+    }
+
+    @Override
+    public void match(Match match) {
+
+    }
+
+    @Override
+    public void embedding(String mimeType, byte[] data) {
+
+    }
+
+    @Override
+    public void write(String text) {
+
+    }
+
+}
@@ -23,23 +23,33 @@
  */
 package com.intuit.karate.cucumber;
 
+import com.intuit.karate.CallCache;
 import com.intuit.karate.CallContext;
 import com.intuit.karate.FileUtils;
 import com.intuit.karate.ScriptValueMap;
 import com.intuit.karate.filter.TagFilter;
 import com.intuit.karate.filter.TagFilterException;
+import com.intuit.karate.http.HttpClient;
+import com.intuit.karate.http.RateLimiter;
 import cucumber.runtime.model.CucumberFeature;
 import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import cucumber.runtime.model.CucumberTagStatement;
 import org.slf4j.Logger;
@@ -77,36 +87,204 @@ public class CucumberRunner {
         return parallel(karateFeatures, threadCount, reportDir);
     }
 
+    /**
+     * like {@link #parallel(Class, int, String)} but runs each feature in one of
+     * a pool of forked JVMs instead of a thread
+     *
+     * @param clazz - marks the root package, and any @CucumberOptions are processed
+     * @param forkCount - number of JVMs to fork
+     * @param reportDir - can be null, and defaults to "target/surefire-reports"
+     * @return stats object
+     */
+    public static KarateStats parallelForked(Class clazz, int forkCount, String reportDir) {
+        KarateRuntimeOptions kro = new KarateRuntimeOptions(clazz);
+        return ForkedRunner.parallel(KarateFeature.loadFeatures(kro), forkCount, reportDir);
+    }
+
+    public static KarateStats parallelForked(List<String> tags, List<String> paths, int forkCount, String reportDir) {
+        KarateRuntimeOptions kro = new KarateRuntimeOptions(tags, paths);
+        return ForkedRunner.parallel(KarateFeature.loadFeatures(kro), forkCount, reportDir);
+    }
+
+    /**
+     * like {@link #parallel(Class, int, String)} but only runs the features
+     * that failed last time or that read a file (feature, json, js, etc) that
+     * has changed since, and re-uses the previous results (and reports) for
+     * the rest. this needs the report dir of the previous run to be kept
+     *
+     * @param clazz - marks the root package, and any @CucumberOptions are processed
+     * @param threadCount - number of threads for parallel runner
+     * @param reportDir - can be null, and defaults to "target/surefire-reports"
+     * @return stats object
+     */
+    public static KarateStats parallelImpacted(Class clazz, int threadCount, String reportDir) {
+        KarateRuntimeOptions kro = new KarateRuntimeOptions(clazz);
+        return parallel(KarateFeature.loadFeatures(kro), threadCount, reportDir, true, null);
+    }
+
+    public static KarateStats parallelImpacted(List<String> tags, List<String> paths, int threadCount, String reportDir) {
+        KarateRuntimeOptions kro = new KarateRuntimeOptions(tags, paths);
+        return parallel(KarateFeature.loadFeatures(kro), threadCount, reportDir, true, null);
+    }
+
+    /**
+     * like {@link #parallel(Class, int, String)} but stops early when the
+     * failure budget is exceeded, the remaining scenarios are reported as
+     * skipped
+     *
+     * @param clazz - marks the root package, and any @CucumberOptions are processed
+     * @param threadCount - number of threads for parallel runner
+     * @param reportDir - can be null, and defaults to "target/surefire-reports"
+     * @param failureBudget - when to stop
+     * @return stats object
+     */
+    public static KarateStats parallel(Class clazz, int threadCount, String reportDir, FailureBudget failureBudget) {
+        KarateRuntimeOptions kro = new KarateRuntimeOptions(clazz);
+        return parallel(KarateFeature.loadFeatures(kro), threadCount, reportDir, false, failureBudget);
+    }
+
+    public static KarateStats parallel(List<String> tags, List<String> paths, int threadCount, String reportDir, FailureBudget failureBudget) {
+        KarateRuntimeOptions kro = new KarateRuntimeOptions(tags, paths);
+        return parallel(KarateFeature.loadFeatures(kro), threadCount, reportDir, false, failureBudget);
+    }
+
+    /**
+     * like {@link #parallel(Class, int, String)} but the number of threads is
+     * adjusted as the run progresses, based on CPU load, throughput and http
+     * response times
+     *
+     * @param clazz - marks the root package, and any @CucumberOptions are processed
+     * @param threads - bounds (and tuning) for the thread count
+     * @param reportDir - can be null, and defaults to "target/surefire-reports"
+     * @return stats object
+     */
+    public static KarateStats parallel(Class clazz, AdaptiveThreads threads, String reportDir) {
+        KarateRuntimeOptions kro = new KarateRuntimeOptions(clazz);
+        return parallel(KarateFeature.loadFeatures(kro), 0, reportDir, false, null, threads);
+    }
+
+    public static KarateStats parallel(List<String> tags, List<String> paths, AdaptiveThreads threads, String reportDir) {
+        KarateRuntimeOptions kro = new KarateRuntimeOptions(tags, paths);
+        return parallel(KarateFeature.loadFeatures(kro), 0, reportDir, false, null, threads);
+    }
+
     public static KarateStats parallel(List<KarateFeature> karateFeatures, int threadCount, String userReportDir) {
+        return parallel(karateFeatures, threadCount, userReportDir, false, null);
+    }
+
+    public static KarateStats parallel(List<KarateFeature> karateFeatures, int threadCount, String userReportDir,
+            boolean impactedOnly, FailureBudget failureBudget) {
+        return parallel(karateFeatures, threadCount, userReportDir, impactedOnly, failureBudget, null);
+    }
+
+    /**
+     * @param karateFeatures - features to run
+     * @param threadCount - ignored if adaptive is not null
+     * @param userReportDir - can be null, and defaults to "target/surefire-reports"
+     * @param impactedOnly - see {@link #parallelImpacted(Class, int, String)}
+     * @param failureBudget - can be null
+     * @param adaptive - can be null, for a fixed thread count
+     * @return stats object
+     */
+    public static KarateStats parallel(List<KarateFeature> karateFeatures, int threadCount, String userReportDir,
+            boolean impactedOnly, FailureBudget failureBudget, AdaptiveThreads adaptive) {
+        if (adaptive != null) {
+            threadCount = adaptive.getMinThreads();
+        }
         String reportDir = userReportDir == null ? "target/surefire-reports" : userReportDir;
         logger.info("Karate version: {}", FileUtils.getKarateVersion());
         KarateStats stats = KarateStats.startTimer();
-        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CallCache.resetRunCache();
+        FeatureTimings timings = new FeatureTimings(reportDir);
+        FeatureDependencies dependencies = new FeatureDependencies(reportDir);
+        List<FeatureResult> previousResults = new ArrayList();
+        Set<Thread> running = ConcurrentHashMap.newKeySet();
+        // so that classes (and classpath: files) are resolved the same way as for the caller
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (failureBudget != null) {
+            failureBudget.onExceeded(() -> {
+                for (Thread thread : running) { // abort in-flight http calls, the rest is skipped
+                    HttpClient.abort(thread);
+                }
+            });
+        }
+        // features are queued longest first, so a free thread picks up the next longest one
+        ThreadPoolExecutor executor = adaptive == null ? createExecutor(threadCount) : adaptive.createExecutor();
+        RunMetrics metrics = null;
         try {
             int count = karateFeatures.size();
             int filteredCount = 0;
+            boolean history = false;
             List<Callable<KarateJunitAndJsonReporter>> callables = new ArrayList<>(count);
+            // completed early (as failed) if the thread is stuck and abandoned, see Watchdog
+            List<CompletableFuture<FeatureResult>> results = new ArrayList<>(count);
+            List<Long> predictions = new ArrayList<>(count);
             for (int i = 0; i < count; i++) {
                 KarateFeature karateFeature = karateFeatures.get(i);
                 int index = i + 1;
                 CucumberFeature feature = karateFeature.getFeature();
                 filterOnTags(feature);
-                if (!feature.getFeatureElements().isEmpty()) {
+                FeatureResult previous = impactedOnly && !feature.getFeatureElements().isEmpty()
+                        ? dependencies.getPreviousResult(karateFeature) : null;
+                if (previous != null) {
+                    logger.info("not impacted, re-using previous result: {}", feature.getPath());
+                    previousResults.add(previous);
+                } else if (!feature.getFeatureElements().isEmpty()) {
+                    if (failureBudget != null) {
+                        failureBudget.addScenarios(feature);
+                    }
+                    history = history || timings.isKnown(feature);
+                    predictions.add(timings.predict(feature));
+                    CompletableFuture<FeatureResult> result = new CompletableFuture();
+                    results.add(result);
                     callables.add(() -> {
                         // we are now within a separate thread. the reporter filters logs by self thread
-                        String threadName = Thread.currentThread().getName();
-                        KarateJunitAndJsonReporter reporter = karateFeature.getReporter(reportDir);
-                        KarateRuntime runtime = karateFeature.getRuntime(reporter);
+                        Thread thread = Thread.currentThread();
+                        thread.setContextClassLoader(classLoader);
+                        long startTime = System.currentTimeMillis();
+                        Set<String> files = new HashSet();
+                        KarateJunitAndJsonReporter reporter;
+                        RunMetrics current = RunMetrics.current();
+                        if (current != null) {
+                            current.featureStarted();
+                        }
+                        running.add(thread);
+                        Watchdog.onAbandoned(thread, error -> {
+                            logger.error("abandoned feature {} of {} on thread {}: {}", index, count, thread.getName(), feature.getPath());
+                            result.complete(FeatureResult.failed(feature.getPath(), error.getMessage()));
+                            if (adaptive != null) {
+                                adaptive.abandoned();
+                            } else { // replace the stuck thread, so that the rest of the run is not held up
+                                executor.setMaximumPoolSize(executor.getMaximumPoolSize() + 1);
+                                executor.setCorePoolSize(executor.getCorePoolSize() + 1);
+                            }
+                        });
                         try {
-                            feature.run(reporter, reporter, runtime);
-                            runtime.afterFeature();
-                            logger.info("<<<< feature {} of {} on thread {}: {}", index, count, threadName, feature.getPath());
-                        } catch (Exception e) {
-                            logger.error("karate xml/json generation failed for: {}", feature.getPath());
-                            reporter.setFailureReason(e);
-                        } finally { // try our best to close the report file gracefully so that report generation is not broken
-                            reporter.done();
+                            reporter = execute(karateFeature, karateFeature.getReporter(reportDir), files, failureBudget);
+                        } catch (Throwable t) {
+                            result.completeExceptionally(t);
+                            throw t;
+                        } finally {
+                            Watchdog.clearAbandoned(thread);
+                            running.remove(thread);
+                            if (current != null) {
+                                current.featureDone();
+                            }
+                        }
+                        logger.info("<<<< feature {} of {} on thread {}: {}", index, count, thread.getName(), feature.getPath());
+                        if (result.isDone()) { // abandoned, and already reported as failed
+                            return reporter;
+                        }
+                        long elapsedTime = System.currentTimeMillis() - startTime;
+                        if (failureBudget == null || !failureBudget.isExceeded()) { // else not representative
+                            timings.record(feature, elapsedTime);
+                            dependencies.record(karateFeature, files, FeatureResult.fromReporter(reporter, elapsedTime));
                         }
+                        if (reporter.getFailureReason() != null) {
+                            logger.error("karate xml/json generation failed: {}", reporter.getJunitFormatter().getFeaturePath());
+                            logger.error("karate xml/json error stack trace", reporter.getFailureReason());
+                        }
+                        result.complete(FeatureResult.fromReporter(reporter, 0));
                         return reporter;
                     });
                 } else {
@@ -114,41 +292,174 @@ public class CucumberRunner {
                 }
             }
             stats.setFeatureCount(count - filteredCount);
-
-            List<Future<KarateJunitAndJsonReporter>> futures = executor.invokeAll(callables);
+            metrics = RunMetrics.start(callables.size());
+            RateLimiter.resetAllStats();
+            if (adaptive != null) {
+                adaptive.start(metrics);
+            }
+            // longest first, the sort is stable so discovery order is kept for ties
+            List<Integer> order = new ArrayList<>(callables.size());
+            for (int i = 0; i < callables.size(); i++) {
+                order.add(i);
+            }
+            order.sort((a, b) -> Long.compare(predictions.get(b), predictions.get(a)));
+            List<Long> scheduled = new ArrayList<>(order.size());
+            for (int i : order) {
+                scheduled.add(predictions.get(i));
+                executor.submit(callables.get(i));
+            }
+            if (history && adaptive == null) { // not meaningful when the thread count changes
+                stats.setPredictedTime(FeatureTimings.getMakespan(scheduled, threadCount));
+            }
+            for (CompletableFuture<FeatureResult> result : results) {
+                result.get(); // wait for all
+            }
             stats.stopTimer();
-            for (Future<KarateJunitAndJsonReporter> future : futures) {
-                KarateJunitAndJsonReporter reporter = future.get(); // guaranteed to be not-null
-                KarateJunitFormatter formatter = reporter.getJunitFormatter();
-                if (reporter.getFailureReason() != null) {
-                    logger.error("karate xml/json generation failed: {}", formatter.getFeaturePath());
-                    logger.error("karate xml/json error stack trace", reporter.getFailureReason());
-                }
-                stats.addToTestCount(formatter.getTestCount());
-                stats.addToFailCount(formatter.getFailCount());
-                stats.addToSkipCount(formatter.getSkipCount());
-                stats.addToTimeTaken(formatter.getTimeTaken());
-                if (formatter.isFail()) {
-                    stats.addToFailedList(formatter.getFeaturePath(), formatter.getFailMessages() + "");
-                }
+            if (adaptive != null) {
+                adaptive.stop();
+                stats.setThreadHistory(adaptive.getHistory());
+                threadCount = Math.max(1, (int) Math.round(adaptive.getMeanThreads()));
+            }
+            logger.info(metrics.toString());
+            Map<String, Map<String, Object>> rateLimitStats = RateLimiter.getStats();
+            if (!rateLimitStats.isEmpty()) {
+                stats.setRateLimitStats(rateLimitStats);
+            }
+            timings.save();
+            dependencies.save();
+            if (failureBudget != null && failureBudget.isExceeded()) {
+                logger.error("run stopped early, failure budget exceeded: {}", failureBudget.getExceeded());
+            }
+            if (impactedOnly) {
+                logger.info("features run: {}, not impacted: {}", callables.size(), previousResults.size());
+            }
+            for (FeatureResult previous : previousResults) {
+                previous.addTo(stats);
+            }
+            for (CompletableFuture<FeatureResult> result : results) {
+                result.get().addTo(stats);
             }
         } catch (Exception e) {
             logger.error("karate parallel runner failed: ", e.getMessage());
             stats.setFailureReason(e);
         } finally {
             executor.shutdownNow();
+            if (adaptive != null) {
+                adaptive.stop();
+            }
+            if (metrics != null) {
+                metrics.stop();
+            }
         }
         stats.printStats(threadCount);
         return stats;
     }
 
-    private static void filterOnTags(CucumberFeature feature) throws TagFilterException {
+    private static ThreadPoolExecutor createExecutor(int threadCount) {
+        ThreadFactory threadFactory = Executors.defaultThreadFactory();
+        return new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = threadFactory.newThread(r);
+            thread.setDaemon(true); // an abandoned thread should not keep the JVM alive
+            return thread;
+        });
+    }
+
+    static KarateJunitAndJsonReporter execute(KarateFeature karateFeature, KarateJunitAndJsonReporter reporter) {
+        return execute(karateFeature, reporter, null, null);
+    }
+
+    static KarateJunitAndJsonReporter execute(KarateFeature karateFeature, KarateJunitAndJsonReporter reporter,
+            Set<String> dependencies, FailureBudget failureBudget) {
+        CucumberFeature feature = karateFeature.getFeature();
+        KarateRuntime runtime = karateFeature.getRuntime(reporter);
+        runtime.setFailureBudget(failureBudget);
+        try {
+            feature.run(reporter, reporter, runtime);
+            runtime.afterFeature();
+        } catch (Exception e) {
+            logger.error("karate xml/json generation failed for: {}", feature.getPath());
+            reporter.setFailureReason(e);
+        } finally { // try our best to close the report file gracefully so that report generation is not broken
+            reporter.done();
+            if (dependencies != null) {
+                dependencies.addAll(runtime.getDependencies());
+            }
+        }
+        return reporter;
+    }
+
+    /**
+     * runs a single feature, typically on behalf of another JVM
+     *
+     * @param path file path, or 'classpath:' prefixed
+     * @param name feature path as seen by the caller, used to name the reports, can be null
+     * @param tags can be null
+     * @param reportDir where the junit xml and json reports are written
+     * @return result that can be merged into the caller's stats
+     */
+    public static FeatureResult runUnit(String path, String name, List<String> tags, String reportDir) {
+        long startTime = System.currentTimeMillis();
+        try {
+            KarateRuntimeOptions kro = new KarateRuntimeOptions(tags, Collections.singletonList(path));
+            for (KarateFeature karateFeature : KarateFeature.loadFeatures(kro)) {
+                filterOnTags(karateFeature.getFeature());
+                if (!karateFeature.getFeature().getFeatureElements().isEmpty()) {
+                    String featurePath = name == null ? karateFeature.getFeature().getPath() : name;
+                    KarateJunitAndJsonReporter reporter = execute(karateFeature, karateFeature.getReporter(reportDir, featurePath));
+                    return FeatureResult.fromReporter(reporter, System.currentTimeMillis() - startTime);
+                }
+            }
+            return new FeatureResult(path); // all scenarios filtered out
+        } catch (Exception e) {
+            logger.error("feature failed: {}, {}", path, e.getMessage());
+            return FeatureResult.failed(path, e.getMessage());
+        }
+    }
+
+    // looked up once per class loader (not for every feature), since a daemon run can bring its own
+    private static final Map<ClassLoader, List<TagFilter>> TAG_FILTERS = new ConcurrentHashMap();
+
+    static List<TagFilter> getTagFilters() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = CucumberRunner.class.getClassLoader();
+        }
+        return TAG_FILTERS.computeIfAbsent(classLoader, cl -> {
+            List<TagFilter> list = new ArrayList();
+            for (TagFilter tagFilter : ServiceLoader.load(TagFilter.class, cl)) {
+                logger.info("Tag filter found: {}", tagFilter.getClass().getSimpleName());
+                list.add(tagFilter);
+            }
+            return list;
+        });
+    }
+
+    /**
+     * call when done with a class loader that was used as the context class
+     * loader, so that it (and the classes it loaded) can be garbage collected
+     *
+     * @param classLoader
+     */
+    public static void releaseTagFilters(ClassLoader classLoader) {
+        TAG_FILTERS.remove(classLoader);
+    }
+
+    /**
+     * removes the scenarios that a {@link TagFilter} (loaded for the context
+     * class loader) rejects, call before counting or scheduling features
+     *
+     * @param feature
+     * @throws TagFilterException
+     */
+    public static void filterOnTags(CucumberFeature feature) throws TagFilterException {
+        List<TagFilter> filters = getTagFilters();
+        if (filters.isEmpty()) {
+            return;
+        }
         final List<CucumberTagStatement> featureElements = feature.getFeatureElements();
-        ServiceLoader<TagFilter> loader = ServiceLoader.load(TagFilter.class);
         for (Iterator<CucumberTagStatement> iterator = featureElements.iterator(); iterator.hasNext();) {
             CucumberTagStatement cucumberTagStatement = iterator.next();
-            for (TagFilter implClass : loader) {
-                logger.info("Tag filter found: {}", implClass.getClass().getSimpleName());
+            for (TagFilter implClass : filters) {
                 final boolean isFiltered = implClass.filter(feature, cucumberTagStatement);
                 if (isFiltered) {
                     logger.info("skipping feature element {} of feature {} due to feature-tag-filter {} ",
@@ -30,6 +30,7 @@ import com.intuit.karate.exception.KarateException;
 import com.intuit.karate.ScriptEnv;
 import com.intuit.karate.ScriptValueMap;
 import com.intuit.karate.exception.KarateAbortException;
+import com.intuit.karate.exception.KarateRetryException;
 import cucumber.runtime.AmbiguousStepDefinitionsException;
 import cucumber.runtime.FeatureBuilder;
 import cucumber.runtime.RuntimeGlue;
@@ -39,6 +40,7 @@ import cucumber.runtime.model.CucumberFeature;
 import cucumber.runtime.xstream.LocalizedXStreams;
 import gherkin.I18n;
 import gherkin.formatter.Reporter;
+import gherkin.formatter.model.DocString;
 import gherkin.formatter.model.Match;
 import gherkin.formatter.model.Result;
 import gherkin.formatter.model.Scenario;
@@ -135,7 +137,7 @@ public class CucumberUtils {
         return cucumberFeature;
     }    
     
-    private static final Consumer<Runnable> DEFAULT_SYNC = r -> r.run();
+    static final Consumer<Runnable> DEFAULT_SYNC = r -> r.run();
     
     public static ScriptValueMap callSync(FeatureWrapper feature, CallContext callContext) {
         KarateBackend backend = getBackendWithGlue(feature, callContext);       
@@ -160,6 +162,18 @@ public class CucumberUtils {
         af.submit(callContext.asyncSystem, (r, e) -> callContext.asyncNext.run());
     }
 
+    // adds a step to the report 'under' the step that is running, like the steps of a called feature
+    public static void reportNestedStep(ScriptContext context, String text, String log, Result result) {
+        KarateReporter reporter = context.getEnv().reporter;
+        if (reporter == null) {
+            return;
+        }
+        DocString docString = log == null || log.isEmpty() ? null : new DocString("", log, 0);
+        Step step = new Step(null, "* ", text, 0, null, docString);
+        CallContext callContext = new CallContext(context, context.getCallDepth() + 1, null, -1, false, false, null, null, null, null);
+        reporter.karateStep(step, Match.UNDEFINED, result, callContext, null);
+    }
+
     public static StepResult runCalledStep(StepWrapper step, KarateBackend backend) {
         CucumberFeature feature = step.getScenario().getFeature().getFeature();
         StepInterceptor interceptor = backend.getCallContext().stepInterceptor;
@@ -167,7 +181,7 @@ public class CucumberUtils {
             interceptor.beforeStep(step, backend);
         }        
         StepResult result = runStep(step.getStep(), backend.getEnv().reporter, feature.getI18n(), backend);
-        if (interceptor != null) {
+        if (interceptor != null && !result.isRetry()) { // a retry is not complete, the step will run again
             interceptor.afterStep(result, backend);
         }         
         return result;
@@ -194,6 +208,11 @@ public class CucumberUtils {
             Result result = new Result(Result.FAILED, 0L, new KarateException(message), StepResult.DUMMY_OBJECT);
             return afterStep(reporter, step, Match.UNDEFINED, result, backend);
         }
+        KarateException timedOut = Watchdog.getTimedOut();
+        if (timedOut != null) { // fail fast, also for steps in called features
+            Result result = new Result(Result.FAILED, 0L, timedOut, StepResult.DUMMY_OBJECT);
+            return afterStep(reporter, step, match, result, backend);
+        }
         String status = Result.PASSED;
         Throwable error = null;
         long startTime = System.nanoTime();
@@ -201,10 +220,16 @@ public class CucumberUtils {
             match.runStep(i18n);
         } catch (KarateAbortException ke) {
             status = StepResult.ABORTED;
+        } catch (KarateRetryException ke) { // not reported, the step will be re-run, see AsyncStep
+            return new StepResult(step, new Result(StepResult.RETRY, 0L, ke, StepResult.DUMMY_OBJECT));
         } catch (Throwable t) {
-            error = t;
+            timedOut = Watchdog.getTimedOut(); // the real reason, more useful than the interrupt
+            error = timedOut == null ? t : timedOut;
             status = Result.FAILED;
         }
+        if (timedOut != null) {
+            Thread.interrupted(); // only meant for the step
+        }
         long duration = backend.isCalled() ? 0 : System.nanoTime() - startTime;
         Result result = new Result(status, duration, error, StepResult.DUMMY_OBJECT);
         return afterStep(reporter, step, match, result, backend);
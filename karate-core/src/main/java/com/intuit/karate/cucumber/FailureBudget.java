@@ -0,0 +1,167 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import cucumber.runtime.model.CucumberExamples;
+import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.model.CucumberScenarioOutline;
+import cucumber.runtime.model.CucumberTagStatement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * stops a parallel run early once too many scenarios have failed, for example
+ * when the system under test is down. scenarios that have not started by then
+ * are skipped (and reported as such) and in-flight http calls are aborted
+ * (by the apache and jersey clients)
+ *
+ * <pre>
+ * FailureBudget budget = new FailureBudget().maxFailures(10).failOnTag("@smoke");
+ * CucumberRunner.parallel(getClass(), 5, "target/surefire-reports", budget);
+ * </pre>
+ *
+ * @author pthomas3
+ */
+public class FailureBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(FailureBudget.class);
+
+    private int maxFailures; // zero means no limit
+    private double maxFailPercent;
+    private final Set<String> failOnTags = new HashSet();
+
+    private final AtomicInteger failCount = new AtomicInteger();
+    private volatile int scenarioCount;
+    private volatile String exceeded;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList();
+
+    /**
+     * @param count stop after this many scenarios have failed, 1 means fail-fast
+     * @return this
+     */
+    public FailureBudget maxFailures(int count) {
+        maxFailures = count;
+        return this;
+    }
+
+    /**
+     * @param percent stop once this percentage of all the scenarios in the run
+     * have failed
+     * @return this
+     */
+    public FailureBudget maxFailPercent(double percent) {
+        maxFailPercent = percent;
+        return this;
+    }
+
+    /**
+     * @param tag e.g. '@smoke', stop when a scenario with this tag fails
+     * @return this
+     */
+    public FailureBudget failOnTag(String tag) {
+        failOnTags.add(tag.startsWith("@") ? tag.substring(1) : tag); // same as karate.tags
+        return this;
+    }
+
+    public boolean isExceeded() {
+        return exceeded != null;
+    }
+
+    /**
+     * @return why the run was stopped, or null if the budget was not exceeded
+     */
+    public String getExceeded() {
+        return exceeded;
+    }
+
+    public int getFailCount() {
+        return failCount.get();
+    }
+
+    void onExceeded(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    void addScenarios(CucumberFeature feature) {
+        scenarioCount += getScenarioCount(feature);
+    }
+
+    static int getScenarioCount(CucumberFeature feature) {
+        int count = 0;
+        for (CucumberTagStatement element : feature.getFeatureElements()) {
+            if (element instanceof CucumberScenarioOutline) {
+                for (CucumberExamples examples : ((CucumberScenarioOutline) element).getCucumberExamplesList()) {
+                    count += Math.max(0, examples.getExamples().getRows().size() - 1); // header
+                }
+            } else {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    void scenarioFailed(String scenario, Collection<String> tags) {
+        int count = failCount.incrementAndGet();
+        String reason = null;
+        for (String tag : tags) {
+            if (failOnTags.contains(tag)) {
+                reason = "failed scenario with tag @" + tag + ": " + scenario;
+                break;
+            }
+        }
+        if (reason == null && maxFailures > 0 && count >= maxFailures) {
+            reason = "failed scenarios: " + count + ", max: " + maxFailures;
+        }
+        if (reason == null && maxFailPercent > 0 && scenarioCount > 0 && count * 100.0 / scenarioCount >= maxFailPercent) {
+            reason = String.format("failed scenarios: %d of %d, max: %s%%", count, scenarioCount, maxFailPercent);
+        }
+        if (reason != null) {
+            exceed(reason);
+        }
+    }
+
+    private void exceed(String reason) {
+        synchronized (this) {
+            if (exceeded != null) {
+                return;
+            }
+            exceeded = reason;
+        }
+        logger.error("failure budget exceeded, skipping the remaining scenarios - {}", reason);
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                logger.warn("failure budget listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.JsonUtils;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * the files each feature read when it last ran (including called features and
+ * karate-config*.js) with a hash of their contents, persisted in the report
+ * dir so that a later run can skip the features that are not affected by what
+ * has changed since
+ *
+ * @author pthomas3
+ */
+public class FeatureDependencies {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeatureDependencies.class);
+
+    // not .json, so that it is not mistaken for a cucumber report by tools that scan the report dir
+    public static final String FILE_NAME = ".karate-dependencies";
+
+    private static final String FILE = "file";
+    private static final String FILES = "files";
+    private static final String TAGS = "tags";
+    private static final String RESULT = "result";
+
+    private final File file;
+    private final Map<String, Map<String, Object>> features;
+    private final Map<String, String> hashes = new ConcurrentHashMap(); // computed once per run
+
+    public FeatureDependencies(String reportDir) {
+        file = new File(reportDir, FILE_NAME);
+        features = Collections.synchronizedMap(load(file));
+    }
+
+    private static Map<String, Map<String, Object>> load(File file) {
+        if (!file.exists()) {
+            return new LinkedHashMap();
+        }
+        try {
+            Map<String, Map<String, Object>> map = JsonUtils.toJsonDoc(FileUtils.toString(file)).read("$");
+            return new LinkedHashMap(map);
+        } catch (Exception e) {
+            logger.warn("ignoring feature dependencies file: {}, {}", file, e.getMessage());
+            return new LinkedHashMap();
+        }
+    }
+
+    private static String toRelativePath(String path) { // so that the file can be moved to another machine
+        Path cwd = new File("").getAbsoluteFile().toPath();
+        Path temp = new File(path).getAbsoluteFile().toPath().normalize();
+        return temp.startsWith(cwd) ? cwd.relativize(temp).toString() : temp.toString();
+    }
+
+    private String hash(String path) {
+        return hashes.computeIfAbsent(path, p -> {
+            File f = new File(p);
+            if (!f.isFile()) {
+                return "";
+            }
+            try {
+                return FileUtils.toSha256(Files.readAllBytes(f.toPath()));
+            } catch (Exception e) {
+                return "";
+            }
+        });
+    }
+
+    /**
+     * @param karateFeature feature about to be run
+     * @return the result of the last run if it passed and nothing that it
+     * depends on has changed since, or null if it has to be run
+     */
+    public FeatureResult getPreviousResult(KarateFeature karateFeature) {
+        Map<String, Object> entry = features.get(karateFeature.getFeature().getPath());
+        if (entry == null) {
+            return null;
+        }
+        try {
+            if (!karateFeature.getTags().equals(entry.get(TAGS))) {
+                return null;
+            }
+            FeatureResult result = FeatureResult.fromMap((Map) entry.get(RESULT));
+            if (result.getFailCount() > 0 || result.getFailureReason() != null) {
+                return null;
+            }
+            Map<String, String> files = (Map) entry.get(FILES);
+            for (Map.Entry<String, String> fileEntry : files.entrySet()) {
+                if (!hash(fileEntry.getKey()).equals(fileEntry.getValue())) {
+                    logger.debug("changed: {}, affects: {}", fileEntry.getKey(), karateFeature.getFeature().getPath());
+                    return null;
+                }
+            }
+            return result;
+        } catch (Exception e) { // e.g. an older format, just run it
+            return null;
+        }
+    }
+
+    public void record(KarateFeature karateFeature, Set<String> dependencies, FeatureResult result) {
+        Map<String, String> files = new TreeMap();
+        String featurePath = toRelativePath(karateFeature.getFilePath());
+        files.put(featurePath, hash(featurePath));
+        for (String dependency : dependencies) {
+            String path = toRelativePath(dependency);
+            files.put(path, hash(path));
+        }
+        List<String> tags = karateFeature.getTags();
+        Map<String, Object> entry = new LinkedHashMap(4);
+        entry.put(FILE, featurePath);
+        entry.put(TAGS, tags);
+        entry.put(FILES, files);
+        entry.put(RESULT, result.toMap());
+        features.put(karateFeature.getFeature().getPath(), entry);
+    }
+
+    /**
+     * @param changed files that were changed (or deleted)
+     * @return the features that read any of them the last time they ran
+     * (including the feature files themselves), relative to the working
+     * directory if possible
+     */
+    public Set<String> getAffected(Collection<File> changed) {
+        Set<String> paths = new HashSet(changed.size());
+        for (File f : changed) {
+            paths.add(toRelativePath(f.getPath()));
+        }
+        Set<String> affected = new LinkedHashSet();
+        synchronized (features) {
+            for (Map<String, Object> entry : features.values()) {
+                String featurePath = (String) entry.get(FILE);
+                Map<String, String> files = (Map) entry.get(FILES);
+                if (featurePath == null || files == null) { // older format
+                    continue;
+                }
+                for (String path : files.keySet()) {
+                    if (paths.contains(toRelativePath(path))) {
+                        affected.add(featurePath);
+                        break;
+                    }
+                }
+            }
+        }
+        return affected;
+    }
+
+    public void save() {
+        try {
+            synchronized (features) {
+                FileUtils.writeToFile(file, JsonUtils.toJson(features));
+            }
+        } catch (Exception e) {
+            logger.warn("failed to write feature dependencies: {}, {}", file, e.getMessage());
+        }
+    }
+
+}
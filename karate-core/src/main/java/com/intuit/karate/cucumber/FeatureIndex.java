@@ -0,0 +1,284 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.JsonUtils;
+import cucumber.runtime.FeatureBuilder;
+import cucumber.runtime.RuntimeOptions;
+import cucumber.runtime.io.Resource;
+import cucumber.runtime.io.ResourceLoader;
+import cucumber.runtime.model.CucumberExamples;
+import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.model.CucumberScenarioOutline;
+import cucumber.runtime.model.CucumberTagStatement;
+import cucumber.runtime.model.PathWithLines;
+import gherkin.TagExpression;
+import gherkin.formatter.model.Tag;
+import gherkin.formatter.model.TagStatement;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * the tags and scenario names of every feature file seen so far, keyed by
+ * absolute path and only trusted if the size and last-modified time of the
+ * file are unchanged, so that a run filtered by tags (or names) only has to
+ * parse the features it will actually execute, the rest are skipped based on
+ * the index alone. features are found and parsed in parallel
+ *
+ * @author pthomas3
+ */
+public class FeatureIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeatureIndex.class);
+
+    public static final String FILE_PROPERTY = "karate.feature.index"; // set to empty to disable
+    // not .json, so that it is not mistaken for a cucumber report by tools that scan the output dir
+    public static final String DEFAULT_FILE = "target/.karate-features";
+
+    private static final String MTIME = "mtime";
+    private static final String SIZE = "size";
+    private static final String SCENARIOS = "scenarios";
+    private static final String NAMES = "names";
+    private static final String TAGS = "tags";
+
+    private final File file;
+    private final Map<String, Map<String, Object>> entries;
+    private volatile boolean dirty;
+
+    public FeatureIndex(File file) {
+        this.file = file;
+        entries = new ConcurrentHashMap(read(file));
+    }
+
+    private static Map<String, Map<String, Object>> read(File file) {
+        if (!file.exists()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return JsonUtils.toJsonDoc(FileUtils.toString(file)).read("$");
+        } catch (Exception e) {
+            logger.warn("ignoring feature index: {}, {}", file, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    private static FeatureIndex getDefault() {
+        String path = System.getProperty(FILE_PROPERTY, DEFAULT_FILE);
+        return path.trim().isEmpty() ? null : new FeatureIndex(new File(path));
+    }
+
+    /**
+     * does the same as {@link RuntimeOptions#cucumberFeatures(ResourceLoader)}
+     * but in parallel, and using the index if the run is filtered
+     *
+     * @param runtimeOptions feature paths and filters
+     * @param resourceLoader to find the features
+     * @return the features that have at least one scenario to run
+     */
+    public static List<CucumberFeature> loadFeatures(RuntimeOptions runtimeOptions, ResourceLoader resourceLoader) {
+        List<String> paths = runtimeOptions.getFeaturePaths();
+        List<Object> filters = runtimeOptions.getFilters();
+        for (String path : paths) {
+            if (path.startsWith("@") || PathWithLines.hasLineFilters(path)) { // re-run files and line numbers
+                return runtimeOptions.cucumberFeatures(resourceLoader);
+            }
+        }
+        List<Resource> resources = findResources(resourceLoader, paths);
+        FeatureIndex index = filters.isEmpty() ? null : getDefault();
+        List<CucumberFeature> features = resources.parallelStream()
+                .map(r -> index == null ? parse(r, filters) : index.load(r, filters))
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(CucumberFeature::getPath))
+                .collect(Collectors.toList());
+        if (index != null) {
+            logger.debug("indexed features: {}, to run: {}", resources.size(), features.size());
+            index.save();
+        }
+        if (features.isEmpty()) { // same as cucumber
+            if (paths.isEmpty()) {
+                System.out.println("Got no path to feature directory or feature file");
+            } else if (filters.isEmpty()) {
+                System.out.println("No features found at " + paths);
+            } else {
+                System.out.println("None of the features at " + paths + " matched the filters: " + filters);
+            }
+        }
+        return features;
+    }
+
+    private static List<Resource> findResources(ResourceLoader resourceLoader, List<String> paths) {
+        List<List<Resource>> found = paths.parallelStream().map(path -> {
+            List<Resource> list = new ArrayList();
+            for (Resource resource : resourceLoader.resources(path, ".feature")) {
+                list.add(resource);
+            }
+            return list;
+        }).collect(Collectors.toList());
+        Map<String, Resource> resources = new LinkedHashMap(); // a file can be under more than one path
+        for (List<Resource> list : found) {
+            for (Resource resource : list) {
+                resources.putIfAbsent(resource.getAbsolutePath(), resource);
+            }
+        }
+        return new ArrayList(resources.values());
+    }
+
+    private static CucumberFeature parse(Resource resource, List<Object> filters) {
+        List<CucumberFeature> list = new ArrayList(1);
+        new FeatureBuilder(list).parse(resource, filters);
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    private CucumberFeature load(Resource resource, List<Object> filters) {
+        File featureFile = new File(resource.getAbsolutePath());
+        if (!featureFile.isFile()) { // e.g. within a jar
+            return parse(resource, filters);
+        }
+        String key = featureFile.getAbsolutePath();
+        long mtime = featureFile.lastModified();
+        long size = featureFile.length();
+        Map<String, Object> entry = entries.get(key);
+        CucumberFeature unfiltered = null;
+        if (entry == null || ((Number) entry.get(MTIME)).longValue() != mtime || ((Number) entry.get(SIZE)).longValue() != size) {
+            unfiltered = parse(resource, Collections.EMPTY_LIST);
+            if (unfiltered == null) {
+                return null;
+            }
+            entry = toEntry(unfiltered, mtime, size);
+            entries.put(key, entry);
+            dirty = true;
+        }
+        List<Map<String, Object>> scenarios = (List) entry.get(SCENARIOS);
+        long count = scenarios.stream().filter(matcher(filters)).count();
+        if (count == 0) {
+            return null;
+        }
+        if (unfiltered != null && count == scenarios.size()) { // no need to parse again
+            return unfiltered;
+        }
+        return parse(resource, filters);
+    }
+
+    private static Predicate<Map<String, Object>> matcher(List<Object> filters) {
+        List<String> tags = new ArrayList();
+        List<Pattern> patterns = new ArrayList();
+        for (Object filter : filters) {
+            if (filter instanceof Pattern) {
+                patterns.add((Pattern) filter);
+            } else {
+                tags.add(filter.toString());
+            }
+        }
+        TagExpression tagExpression = new TagExpression(tags);
+        return scenario -> {
+            if (!tags.isEmpty()) {
+                List<String> names = (List) scenario.get(TAGS);
+                List<Tag> list = new ArrayList(names.size());
+                names.forEach(name -> list.add(new Tag(name, 0)));
+                if (!tagExpression.evaluate(list)) {
+                    return false;
+                }
+            }
+            if (patterns.isEmpty()) {
+                return true;
+            }
+            List<String> names = (List) scenario.get(NAMES);
+            return patterns.stream().anyMatch(p -> names.stream().anyMatch(n -> p.matcher(n).find()));
+        };
+    }
+
+    private static List<String> tagNames(TagStatement... statements) {
+        Set<String> names = new LinkedHashSet();
+        for (TagStatement statement : statements) {
+            statement.getTags().forEach(tag -> names.add(tag.getName()));
+        }
+        return new ArrayList(names);
+    }
+
+    // one for each scenario, and for each examples block of an outline
+    private static Map<String, Object> toEntry(CucumberFeature feature, long mtime, long size) {
+        List<Map<String, Object>> scenarios = new ArrayList();
+        for (CucumberTagStatement element : feature.getFeatureElements()) {
+            TagStatement model = element.getGherkinModel();
+            List<CucumberExamples> examplesList = element instanceof CucumberScenarioOutline
+                    ? ((CucumberScenarioOutline) element).getCucumberExamplesList() : Collections.EMPTY_LIST;
+            if (examplesList.isEmpty()) {
+                Map<String, Object> scenario = new LinkedHashMap(2);
+                scenario.put(NAMES, Collections.singletonList(model.getName()));
+                scenario.put(TAGS, tagNames(feature.getGherkinFeature(), model));
+                scenarios.add(scenario);
+            } else {
+                for (CucumberExamples examples : examplesList) {
+                    Map<String, Object> scenario = new LinkedHashMap(2);
+                    List<String> names = new ArrayList(2);
+                    names.add(model.getName());
+                    names.add(examples.getExamples().getName());
+                    scenario.put(NAMES, names);
+                    scenario.put(TAGS, tagNames(feature.getGherkinFeature(), model, examples.getExamples()));
+                    scenarios.add(scenario);
+                }
+            }
+        }
+        Map<String, Object> entry = new LinkedHashMap(3);
+        entry.put(MTIME, mtime);
+        entry.put(SIZE, size);
+        entry.put(SCENARIOS, scenarios);
+        return entry;
+    }
+
+    public void save() {
+        if (!dirty) {
+            return;
+        }
+        entries.keySet().removeIf(path -> !new File(path).isFile()); // deleted or moved
+        try { // other JVMs (e.g. forked runs) may be reading the same file
+            File dir = file.getAbsoluteFile().getParentFile();
+            dir.mkdirs();
+            File temp = File.createTempFile(file.getName(), ".tmp", dir);
+            FileUtils.writeToFile(temp, JsonUtils.toJson(new LinkedHashMap(entries)));
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (Exception e) {
+            logger.warn("failed to write feature index: {}, {}", file, e.getMessage());
+        }
+    }
+
+}
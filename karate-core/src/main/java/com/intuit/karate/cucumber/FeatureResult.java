@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * the outcome of running one feature, in a form that can be sent across JVM
+ * boundaries (as json) and merged into {@link KarateStats}
+ *
+ * @author pthomas3
+ */
+public class FeatureResult {
+
+    private final String path;
+    private int testCount;
+    private int failCount;
+    private int skipCount;
+    private double timeTaken;
+    private long elapsedTime;
+    private List<String> failMessages;
+    private String failureReason;
+
+    public FeatureResult(String path) {
+        this.path = path;
+    }
+
+    public static FeatureResult fromReporter(KarateJunitAndJsonReporter reporter, long elapsedTime) {
+        KarateJunitFormatter formatter = reporter.getJunitFormatter();
+        FeatureResult result = new FeatureResult(formatter.getFeaturePath());
+        result.testCount = formatter.getTestCount();
+        result.failCount = formatter.getFailCount();
+        result.skipCount = formatter.getSkipCount();
+        result.timeTaken = formatter.getTimeTaken();
+        result.elapsedTime = elapsedTime;
+        Collection<String> messages = formatter.getFailMessages();
+        if (messages != null) {
+            result.failMessages = new ArrayList(messages);
+        }
+        if (reporter.getFailureReason() != null) {
+            result.failureReason = reporter.getFailureReason().getMessage();
+        }
+        return result;
+    }
+
+    public static FeatureResult failed(String path, String message) {
+        FeatureResult result = new FeatureResult(path);
+        result.testCount = 1;
+        result.failCount = 1;
+        result.failMessages = new ArrayList(1);
+        result.failMessages.add(message);
+        result.failureReason = message;
+        return result;
+    }
+
+    public static FeatureResult fromMap(Map<String, Object> map) {
+        FeatureResult result = new FeatureResult((String) map.get("path"));
+        result.testCount = ((Number) map.get("testCount")).intValue();
+        result.failCount = ((Number) map.get("failCount")).intValue();
+        result.skipCount = ((Number) map.get("skipCount")).intValue();
+        result.timeTaken = ((Number) map.get("timeTaken")).doubleValue();
+        result.elapsedTime = ((Number) map.get("elapsedTime")).longValue();
+        result.failMessages = (List) map.get("failMessages");
+        result.failureReason = (String) map.get("failureReason");
+        return result;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap();
+        map.put("path", path);
+        map.put("testCount", testCount);
+        map.put("failCount", failCount);
+        map.put("skipCount", skipCount);
+        map.put("timeTaken", timeTaken);
+        map.put("elapsedTime", elapsedTime);
+        map.put("failMessages", failMessages);
+        map.put("failureReason", failureReason);
+        return map;
+    }
+
+    public void addTo(KarateStats stats) {
+        stats.addToTestCount(testCount);
+        stats.addToFailCount(failCount);
+        stats.addToSkipCount(skipCount);
+        stats.addToTimeTaken(timeTaken);
+        if (failCount > 0) {
+            stats.addToFailedList(path, failMessages + "");
+        }
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getTestCount() {
+        return testCount;
+    }
+
+    public int getFailCount() {
+        return failCount;
+    }
+
+    public int getSkipCount() {
+        return skipCount;
+    }
+
+    public double getTimeTaken() {
+        return timeTaken;
+    }
+
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    public List<String> getFailMessages() {
+        return failMessages;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.JsonUtils;
+import cucumber.runtime.model.CucumberBackground;
+import cucumber.runtime.model.CucumberExamples;
+import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.model.CucumberScenario;
+import cucumber.runtime.model.CucumberScenarioOutline;
+import cucumber.runtime.model.CucumberTagStatement;
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * per-feature durations from previous runs, persisted in the report dir so
+ * that the parallel runner can schedule the longest features first
+ *
+ * @author pthomas3
+ */
+public class FeatureTimings {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeatureTimings.class);
+
+    // not .json, so that it is not mistaken for a cucumber report by tools that scan the report dir
+    public static final String FILE_NAME = ".karate-timings";
+
+    // used only when there is no history at all
+    private static final long DEFAULT_MILLIS_PER_STEP = 100;
+
+    private static final String TIME = "time";
+    private static final String STEPS = "steps";
+
+    private final File file;
+    private final Map<String, Map<String, Object>> timings;
+    private final long millisPerStep;
+
+    public FeatureTimings(String reportDir) {
+        file = new File(reportDir, FILE_NAME);
+        timings = Collections.synchronizedMap(load(file));
+        long totalTime = 0;
+        long totalSteps = 0;
+        for (Map<String, Object> timing : timings.values()) {
+            totalTime += getLong(timing, TIME);
+            totalSteps += getLong(timing, STEPS);
+        }
+        millisPerStep = totalSteps == 0 ? DEFAULT_MILLIS_PER_STEP : Math.max(1, totalTime / totalSteps);
+    }
+
+    private static Map<String, Map<String, Object>> load(File file) {
+        if (!file.exists()) {
+            return new LinkedHashMap();
+        }
+        try {
+            Map<String, Map<String, Object>> map = JsonUtils.toJsonDoc(FileUtils.toString(file)).read("$");
+            return new LinkedHashMap(map);
+        } catch (Exception e) {
+            logger.warn("ignoring feature timings file: {}, {}", file, e.getMessage());
+            return new LinkedHashMap();
+        }
+    }
+
+    private static long getLong(Map<String, Object> timing, String key) {
+        Object o = timing.get(key);
+        return o instanceof Number ? ((Number) o).longValue() : 0;
+    }
+
+    public static int getStepCount(CucumberFeature feature) {
+        int count = 0;
+        for (CucumberTagStatement element : feature.getFeatureElements()) {
+            if (element instanceof CucumberScenarioOutline) {
+                CucumberScenarioOutline outline = (CucumberScenarioOutline) element;
+                for (CucumberExamples examples : outline.getCucumberExamplesList()) {
+                    int rows = examples.getExamples().getRows().size() - 1; // header
+                    count += outline.getSteps().size() * Math.max(0, rows);
+                }
+            } else {
+                count += element.getSteps().size();
+                if (element instanceof CucumberScenario) {
+                    CucumberBackground background = ((CucumberScenario) element).getCucumberBackground();
+                    if (background != null) {
+                        count += background.getSteps().size();
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    public boolean isKnown(CucumberFeature feature) {
+        return timings.containsKey(feature.getPath());
+    }
+
+    public long predict(CucumberFeature feature) {
+        Map<String, Object> timing = timings.get(feature.getPath());
+        if (timing != null) {
+            return getLong(timing, TIME);
+        }
+        return getStepCount(feature) * millisPerStep; // no history, size is the best guess
+    }
+
+    public void record(CucumberFeature feature, long millis) {
+        Map<String, Object> timing = new LinkedHashMap(2);
+        timing.put(TIME, millis);
+        timing.put(STEPS, getStepCount(feature));
+        timings.put(feature.getPath(), timing);
+    }
+
+    public void save() {
+        try {
+            synchronized (timings) {
+                FileUtils.writeToFile(file, JsonUtils.toJson(timings));
+            }
+        } catch (Exception e) {
+            logger.warn("failed to write feature timings: {}, {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * @param durations in the order they will be picked up by free threads
+     * @param threadCount number of threads
+     * @return the time at which the last thread becomes idle
+     */
+    public static long getMakespan(List<Long> durations, int threadCount) {
+        PriorityQueue<Long> threads = new PriorityQueue(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(0L);
+        }
+        long makespan = 0;
+        for (Long duration : durations) {
+            long end = threads.poll() + duration;
+            threads.add(end);
+            makespan = Math.max(makespan, end);
+        }
+        return makespan;
+    }
+
+}
@@ -133,6 +133,10 @@ public class FeatureWrapper {
         return text;
     }
 
+    public FeatureWrapper copy(ScriptEnv scriptEnv) { // re-parsed, so that it can run on another thread
+        return new FeatureWrapper(text, scriptEnv, path);
+    }
+
     public FeatureWrapper addLine(int index, String line) {
         lines.add(index, line);
         return new FeatureWrapper(joinLines(), scriptEnv, path);
@@ -0,0 +1,235 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.JsonUtils;
+import cucumber.runtime.model.CucumberFeature;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * like the parallel runner, but each 'thread' is a separate JVM on the same
+ * machine, so that threads no longer contend for the heap or the js engine.
+ * features are handed out one at a time over stdin / stdout, and if a JVM
+ * dies, the feature it was running is given to a new one
+ *
+ * @author pthomas3
+ */
+public class ForkedRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ForkedRunner.class);
+
+    public static final String RESULT_PREFIX = "karate-fork-result:";
+    public static final String JVM_ARGS = "karate.fork.jvmArgs";
+
+    private static final int MAX_ATTEMPTS = 2;
+
+    private static class Unit {
+
+        final int index;
+        final CucumberFeature feature;
+        final String path;
+        final List<String> tags;
+        int attempts;
+
+        Unit(int index, KarateFeature karateFeature) {
+            this.index = index;
+            this.feature = karateFeature.getFeature();
+            this.path = karateFeature.getFilePath();
+            this.tags = karateFeature.getTags();
+        }
+
+        String toJson() {
+            Map<String, Object> map = new LinkedHashMap(3);
+            map.put("path", path);
+            map.put("name", feature.getPath());
+            map.put("tags", tags);
+            return JsonUtils.toJson(map);
+        }
+
+    }
+
+    public static KarateStats parallel(List<KarateFeature> karateFeatures, int forkCount, String userReportDir) {
+        String reportDir = userReportDir == null ? "target/surefire-reports" : userReportDir;
+        logger.info("Karate version: {}", FileUtils.getKarateVersion());
+        KarateStats stats = KarateStats.startTimer();
+        FeatureTimings timings = new FeatureTimings(reportDir);
+        ExecutorService executor = Executors.newFixedThreadPool(forkCount);
+        try {
+            List<Unit> units = new ArrayList(karateFeatures.size());
+            boolean history = false;
+            for (KarateFeature karateFeature : karateFeatures) {
+                CucumberFeature feature = karateFeature.getFeature();
+                CucumberRunner.filterOnTags(feature);
+                if (!feature.getFeatureElements().isEmpty()) {
+                    history = history || timings.isKnown(feature);
+                    units.add(new Unit(units.size(), karateFeature));
+                }
+            }
+            stats.setFeatureCount(units.size());
+            List<Unit> sorted = new ArrayList(units);
+            sorted.sort((a, b) -> Long.compare(timings.predict(b.feature), timings.predict(a.feature)));
+            if (history) {
+                List<Long> scheduled = new ArrayList(sorted.size());
+                sorted.forEach(u -> scheduled.add(timings.predict(u.feature)));
+                stats.setPredictedTime(FeatureTimings.getMakespan(scheduled, forkCount));
+            }
+            Deque<Unit> queue = new ConcurrentLinkedDeque(sorted);
+            FeatureResult[] results = new FeatureResult[units.size()];
+            List<Future> futures = new ArrayList(forkCount);
+            for (int i = 0; i < forkCount; i++) {
+                int fork = i + 1;
+                futures.add(executor.submit(() -> {
+                    runWorker(fork, queue, results, reportDir, timings);
+                    return null;
+                }));
+            }
+            Exception error = null;
+            for (Future future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    logger.error("fork failed: {}", e.getMessage());
+                    error = e;
+                }
+            }
+            stats.stopTimer();
+            timings.save();
+            for (Unit unit : units) {
+                FeatureResult result = results[unit.index];
+                if (result == null) { // every fork failed to start
+                    result = FeatureResult.failed(unit.path, "not run");
+                }
+                result.addTo(stats);
+            }
+            if (error != null) {
+                stats.setFailureReason(error);
+            }
+        } catch (Exception e) {
+            logger.error("karate forked runner failed: {}", e.getMessage());
+            stats.setFailureReason(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        stats.printStats(forkCount);
+        return stats;
+    }
+
+    private static Process start(String reportDir) throws IOException {
+        List<String> command = new ArrayList();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        String jvmArgs = System.getProperty(JVM_ARGS);
+        if (jvmArgs != null && !jvmArgs.trim().isEmpty()) {
+            command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("karate.") || name.startsWith("logback.")) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ForkedWorker.class.getName());
+        command.add(reportDir);
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return pb.start();
+    }
+
+    private static FeatureResult readResult(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.startsWith(RESULT_PREFIX)) {
+                Map<String, Object> map = JsonUtils.toJsonDoc(line.substring(RESULT_PREFIX.length())).read("$");
+                return FeatureResult.fromMap(map);
+            }
+            System.out.println(line); // worker logs
+        }
+        return null; // the worker JVM exited
+    }
+
+    private static void runWorker(int fork, Deque<Unit> queue, FeatureResult[] results, String reportDir, FeatureTimings timings) throws Exception {
+        while (!queue.isEmpty()) {
+            Process process = start(reportDir);
+            BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), FileUtils.UTF8));
+            Writer out = new OutputStreamWriter(process.getOutputStream(), FileUtils.UTF8);
+            try {
+                Unit unit;
+                while ((unit = queue.pollFirst()) != null) {
+                    logger.info(">>>> fork {} feature {}: {}", fork, unit.index + 1, unit.path);
+                    FeatureResult result;
+                    try {
+                        out.write(unit.toJson() + "\n");
+                        out.flush();
+                        result = readResult(in);
+                    } catch (IOException e) {
+                        result = null;
+                    }
+                    if (result == null) {
+                        process.waitFor(5, TimeUnit.SECONDS);
+                        String message = "fork " + fork + " JVM exited" + (process.isAlive() ? "" : " with code " + process.exitValue());
+                        if (++unit.attempts < MAX_ATTEMPTS) {
+                            logger.warn("{}, feature will be re-assigned: {}", message, unit.path);
+                            queue.addFirst(unit);
+                        } else {
+                            logger.error("{}, giving up on feature: {}", message, unit.path);
+                            results[unit.index] = FeatureResult.failed(unit.path, message);
+                        }
+                        break; // start a new JVM if there is work left
+                    }
+                    results[unit.index] = result;
+                    timings.record(unit.feature, result.getElapsedTime());
+                }
+            } finally {
+                try {
+                    out.close(); // worker exits when stdin is closed
+                } catch (IOException e) {
+                    // ignore, already dead
+                }
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.JsonUtils;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * entry point of a JVM forked by {@link ForkedRunner}, reads one feature (as
+ * json) per line from stdin and writes one result line to stdout, everything
+ * else on stdout (e.g. logs) is just relayed by the parent
+ *
+ * @author pthomas3
+ */
+public class ForkedWorker {
+
+    public static void main(String[] args) throws Exception {
+        String reportDir = args[0];
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, FileUtils.UTF8));
+        PrintStream out = System.out;
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            Map<String, Object> unit = JsonUtils.toJsonDoc(line).read("$");
+            String path = (String) unit.get("path");
+            String name = (String) unit.get("name");
+            List<String> tags = (List) unit.get("tags");
+            FeatureResult result = CucumberRunner.runUnit(path, name, tags, reportDir);
+            out.println(ForkedRunner.RESULT_PREFIX + JsonUtils.toJson(result.toMap()));
+            out.flush();
+        }
+        System.exit(0); // stdin closed by the parent, don't wait for any pooled threads
+    }
+
+}
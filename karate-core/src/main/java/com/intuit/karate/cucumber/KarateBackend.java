@@ -49,9 +49,14 @@ public class KarateBackend implements Backend {
     private final JavaBackend backend;
     private final KarateObjectFactory objectFactory;
     private final CallContext callContext;
+    private final FeatureWrapper feature;
     private final String featurePath;
     private Glue glue;        
 
+    public FeatureWrapper getFeature() {
+        return feature;
+    }
+
     public String getFeaturePath() {
         return featurePath;
     }    
@@ -90,6 +95,7 @@ public class KarateBackend implements Backend {
 
     public KarateBackend(FeatureWrapper feature, CallContext callContext) {
         this.callContext = callContext;
+        this.feature = feature;
         this.featurePath = feature.getPath();
         ClassFinder classFinder = new KarateClassFinder(feature.getEnv().fileClassLoader);
         objectFactory = new KarateObjectFactory(feature.getEnv(), callContext);
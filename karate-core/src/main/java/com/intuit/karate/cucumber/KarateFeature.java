@@ -24,8 +24,10 @@
 package com.intuit.karate.cucumber;
 
 import com.intuit.karate.FileUtils;
+import com.intuit.karate.ScriptBindings;
 import cucumber.runtime.model.CucumberFeature;
 import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -56,6 +58,7 @@ public class KarateFeature {
     }
     
     public static List<KarateFeature> loadFeatures(KarateRuntimeOptions runtimeOptions) {
+        ScriptBindings.warmUp(); // while the features are being parsed
         List<CucumberFeature> features = runtimeOptions.loadFeatures();
         List<KarateFeature> karateFeatures = new ArrayList(features.size());
         for (CucumberFeature feature : features) {
@@ -65,6 +68,16 @@ public class KarateFeature {
         return karateFeatures;
     }
     
+    public String getFilePath() { // so that the feature can be loaded again, e.g. in another JVM
+        Path cwd = new File("").getAbsoluteFile().toPath();
+        Path path = file.getAbsoluteFile().toPath();
+        return path.startsWith(cwd) ? cwd.relativize(path).toString() : path.toString();
+    }
+
+    public List<String> getTags() {
+        return runtimeOptions.getTags();
+    }
+    
     public KarateRuntime getRuntime(KarateReporter reporter) {
         KarateRuntime kr = runtimeOptions.getRuntime(file, reporter);
         reporter.setLogger(kr.getLogger());
@@ -72,8 +85,12 @@ public class KarateFeature {
     }
     
     public KarateJunitAndJsonReporter getReporter(String reportDirPath) {
+        return getReporter(reportDirPath, feature.getPath());
+    }
+    
+    public KarateJunitAndJsonReporter getReporter(String reportDirPath, String featurePath) {
         File reportDir = new File(reportDirPath);
-        String featurePackagePath = FileUtils.toPackageQualifiedName(feature.getPath());
+        String featurePackagePath = FileUtils.toPackageQualifiedName(featurePath);
         try {
             reportDir.mkdirs();
             reportDirPath = reportDir.getPath() + File.separator;
@@ -40,30 +40,53 @@ import gherkin.formatter.model.Result;
 import gherkin.formatter.model.Scenario;
 import gherkin.formatter.model.ScenarioOutline;
 import gherkin.formatter.model.Step;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Stack;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
 
 /**
+ * writes the html report as the feature runs, each top-level step is flushed
+ * to disk as soon as it (and any feature it called) completes, so memory use
+ * does not grow with the size of the feature
  *
  * @author pthomas3
  */
 public class KarateHtmlReporter extends KarateReporterBase {
 
+    // loaded only once per JVM
+    private static class Template {
+
+        static final String HEAD;
+        static final String SVG = getFile("karate-logo.svg");
+        static final String JS = getFile("report-template.js");
+
+        static {
+            String html = getFile("report-template.html");
+            int pos = html.indexOf("</head>");
+            HEAD = html.substring(0, pos);
+        }
+
+        static String getFile(String name) {
+            return FileUtils.toString(KarateHtmlReporter.class.getClassLoader().getResourceAsStream(name));
+        }
+
+    }
+
     private final Reporter reporter;
     private final Formatter formatter;
     private final String buildDir;
 
-    private CucumberFeature feature;
-    private Document doc;
-    private List<ReportStep> steps;
+    private File file;
+    private Writer out;
     private int currentScenario;
     private int exampleNumber;
 
@@ -78,64 +101,104 @@ public class KarateHtmlReporter extends KarateReporterBase {
         tempFilePath = buildDir + "/karate-html.log";
     }
 
-    private void append(String path, Node node) {
-        Node temp = XmlUtils.getNodeByPath(doc, path, true);
-        temp.appendChild(node);
+    private void print(String raw) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.write(raw);
+        } catch (IOException e) {
+            System.out.println("html report output failed: " + e.getMessage());
+            closeQuietly();
+        }
     }
 
-    private void set(String path, String value) {
-        XmlUtils.setByPath(doc, path, value);
+    private void flush() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            System.out.println("html report output failed: " + e.getMessage());
+            closeQuietly();
+        }
     }
 
-    private Node node(String name, String clazz, String text) {
-        return XmlUtils.createElement(doc, name, text, clazz == null ? null : Collections.singletonMap("class", clazz));
+    private void closeQuietly() {
+        try {
+            out.close();
+        } catch (Exception e) {
+            // ignore
+        }
+        out = null;
     }
 
-    private Node node(String name, String clazz) {
-        return node(name, clazz, null);
+    private void open(String name, String clazz) {
+        if (clazz == null) {
+            print("<" + name + ">");
+        } else {
+            print("<" + name + " class=\"" + clazz + "\">");
+        }
     }
 
-    private Node div(String clazz, String value) {
-        return node("div", clazz, value);
+    private void close(String name) {
+        print("</" + name + ">\n");
     }
 
-    private Node div(String clazz, Node... childNodes) {
-        Node parent = node("div", clazz);
-        for (Node child : childNodes) {
-            parent.appendChild(child);
-        }
-        return parent;
+    private void node(String name, String clazz, String text) {
+        open(name, clazz);
+        print(XmlUtils.escape(text));
+        print("</" + name + ">");
     }
-    
-    private String getFile(String name) {
-        return FileUtils.toString(getClass().getClassLoader().getResourceAsStream(name));
+
+    private void div(String clazz, String text) {
+        node("div", clazz, text);
+        print("\n");
     }
 
     public void startKarateFeature(CucumberFeature feature) {
         currentScenario = 0;
-        this.feature = feature;
-        String html = getFile("report-template.html");
-        String img = getFile("karate-logo.svg");
-        Node svg = XmlUtils.toXmlDoc(img);
-        String js = getFile("report-template.js");
-        doc = XmlUtils.toXmlDoc(html);
-        XmlUtils.setByPath(doc, "/html/body/img", svg);
-        set("/html/head/title", feature.getPath());
-        set("/html/head/script", js);
+        String packageName = FileUtils.toPackageQualifiedName(feature.getPath());
+        file = new File(buildDir + "/surefire-reports/TEST-" + packageName + ".html");
+        try {
+            file.getParentFile().mkdirs();
+            out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), FileUtils.UTF8));
+        } catch (Exception e) {
+            System.out.println("html report output failed: " + e.getMessage());
+            out = null;
+        }
+        print(Template.HEAD);
+        node("title", null, feature.getPath());
+        print("\n<script>");
+        print(Template.JS); // not escaped, script is raw text in html
+        print("</script>\n</head>\n<body>\n<img>\n");
+        print(Template.SVG);
+        print("\n</img>\n");
+        open("div", null);
+        print("\n");
+        flush();
     }
 
     public void endKarateFeature() {
-        String xml = "<!DOCTYPE html>/n" + XmlUtils.toString(doc);
-        String packageName = FileUtils.toPackageQualifiedName(feature.getPath());
-        File file = new File(buildDir + "/surefire-reports/TEST-" + packageName + ".html");
+        if (out == null) {
+            return;
+        }
+        close("div");
+        print("</body>\n</html>\n");
+        if (out == null) { // write failed
+            return;
+        }
         try {
-            FileUtils.writeToFile(file, xml);
+            out.close();
+            out = null;
             System.out.println("Karate version: " + FileUtils.getKarateVersion());
             System.out.println("html report: (paste into browser to view)\n"
                     + "-----------------------------------------\n"
                     + file.toURI() + '\n');
         } catch (Exception e) {
             System.out.println("html report output failed: " + e.getMessage());
+            out = null;
         }
     }
 
@@ -159,11 +222,9 @@ public class KarateHtmlReporter extends KarateReporterBase {
         return NUMBER_FORMAT.format(duration);
     }
 
-    private void appendLog(Node parent, String log) {
+    private void appendLog(String log) {
         if (!log.isEmpty()) {
-            Node pre = node("div", "preformatted");
-            pre.setTextContent(log);
-            parent.appendChild(pre);
+            div("preformatted", log);
         }
     }
 
@@ -188,8 +249,9 @@ public class KarateHtmlReporter extends KarateReporterBase {
                     prevStep.addCalled(s);
                 }
             }
-            if (callStack.isEmpty()) {
-                steps.add(prevStep);
+            if (callStack.isEmpty()) { // top-level step complete, can be written out
+                stepHtml(prevStep);
+                flush();
             } else {
                 callStack.peek().add(prevStep);
             }
@@ -209,15 +271,18 @@ public class KarateHtmlReporter extends KarateReporterBase {
     @Override
     public void startOfScenarioLifeCycle(Scenario scenario) {
         currentScenario++;
-        steps = new ArrayList();
         prevStep = null;
         callStack = new Stack();
-        Node scenarioDiv = div("scenario");
-        append("/html/body/div", scenarioDiv);
-        Node scenarioHeadingDiv = div("scenario-heading",
-                node("span", "scenario-keyword", scenario.getKeyword() + ": "),
-                node("span", "scenario-name", getScenarioName(scenario)));
-        scenarioDiv.appendChild(scenarioHeadingDiv);
+        open("div", "scenario");
+        print("\n");
+        open("div", "scenario-heading");
+        print("\n");
+        node("span", "scenario-keyword", scenario.getKeyword() + ": ");
+        node("span", "scenario-name", getScenarioName(scenario));
+        print("\n");
+        close("div");
+        open("div", "scenario-steps");
+        print("\n");
         formatter.startOfScenarioLifeCycle(scenario);
     }
 
@@ -227,7 +292,7 @@ public class KarateHtmlReporter extends KarateReporterBase {
         formatter.examples(examples);
     }
     
-    private void stepHtml(ReportStep reportStep, Node parent) {
+    private void stepHtml(ReportStep reportStep) {
         Step step = reportStep.getStep();
         Result result = reportStep.getResult();
         String extraClass = "";
@@ -238,43 +303,44 @@ public class KarateHtmlReporter extends KarateReporterBase {
         } else {
             extraClass = " passed";            
         }
-        Node stepRow = div("step-row",
-                div("step-cell" + extraClass, step.getKeyword() + step.getName()),
-                div("time-cell" + extraClass, getDuration(result)));
-        parent.appendChild(stepRow);
+        open("div", "step-row");
+        print("\n");
+        div("step-cell" + extraClass, step.getKeyword() + step.getName());
+        div("time-cell" + extraClass, getDuration(result));
+        close("div");
         if (step.getRows() != null) {
-            Node table = node("table", null);
-            parent.appendChild(table);
+            open("table", null);
+            print("\n");
             for (DataTableRow row : step.getRows()) {
-                Node tr = node("tr", null);
-                table.appendChild(tr);
+                open("tr", null);
+                print("\n");
                 for (String cell : row.getCells()) {
-                    tr.appendChild(node("td", null, cell));
+                    node("td", null, cell);
+                    print("\n");
                 }
+                close("tr");
             }
+            close("table");
         }               
         if (reportStep.getCalled() != null) { // this is a 'call'
             for (ReportStep rs : reportStep.getCalled()) {
-                Node calledStepsDiv = div("scenario-steps-nested");
-                parent.appendChild(calledStepsDiv); 
-                stepHtml(rs, calledStepsDiv);
+                open("div", "scenario-steps-nested");
+                print("\n");
+                stepHtml(rs);
+                close("div");
             }            
         } else if (step.getDocString() != null) { // only for non-call, else un-synced stack traces may creep in
             DocString docString = step.getDocString();
-            parent.appendChild(node("div", "preformatted", docString.getValue()));            
+            div("preformatted", docString.getValue());
         }
-        appendLog(parent, reportStep.getLog());
+        appendLog(reportStep.getLog());
     }
 
     @Override
     public void endOfScenarioLifeCycle(Scenario scenario) {
-        Node scenarioStepsDiv = div("scenario-steps");
-        append("/html/body/div/div[" + currentScenario + "]", scenarioStepsDiv);
-        int count = steps.size();
-        for (int i = 0; i < count; i++) {
-            ReportStep reportStep = steps.get(i);
-            stepHtml(reportStep, scenarioStepsDiv);
-        }
+        close("div"); // scenario-steps
+        close("div"); // scenario
+        flush();
         formatter.endOfScenarioLifeCycle(scenario);
     }
 
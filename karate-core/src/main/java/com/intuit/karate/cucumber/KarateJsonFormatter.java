@@ -0,0 +1,257 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.JsonUtils;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Background;
+import gherkin.formatter.model.Examples;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.ScenarioOutline;
+import gherkin.formatter.model.Step;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * adapted from cucumber.runtime.formatter.CucumberJSONFormatter, which holds
+ * the whole feature in memory until the end. here each 'element' (scenario or
+ * background) is appended to the file as soon as it is complete, and the
+ * file is always valid json
+ *
+ * @author pthomas3
+ */
+public class KarateJsonFormatter implements Formatter, Reporter {
+
+    private static final String TAIL = "\n]}\n]\n";
+
+    private final ReportFileWriter out;
+
+    private String uri;
+    private Map<String, Object> featureMap;
+    private Map<String, Object> element;
+    private int elementCount;
+    private boolean started;
+    private List<Map> beforeHooks = new ArrayList();
+    private boolean inScenarioOutline;
+
+    public KarateJsonFormatter(String reportPath) throws IOException {
+        out = new ReportFileWriter(new File(reportPath));
+    }
+
+    private void writeFeature() {
+        if (featureMap == null) {
+            return;
+        }
+        String json = JsonUtils.toJson(featureMap);
+        // the json object is left 'open' so that elements can be added to it
+        out.append("[\n" + json.substring(0, json.length() - 1) + ",\"elements\":[\n", TAIL);
+        featureMap = null;
+        started = true;
+    }
+
+    private void writeElement() {
+        if (element == null) {
+            return;
+        }
+        if ("background".equals(element.get("type")) && element.get("steps") == null) {
+            element = null; // e.g. @backgroundOnce, where the steps were reported only for the first scenario
+            return;
+        }
+        writeFeature();
+        String json = JsonUtils.toJson(element);
+        out.append(elementCount++ == 0 ? json : ",\n" + json, TAIL);
+        element = null;
+    }
+
+    private void addElement(Map<String, Object> map) {
+        writeElement();
+        element = map;
+    }
+
+    private List<Map> getList(Map map, String key) {
+        List<Map> list = (List) map.get(key);
+        if (list == null) {
+            list = new ArrayList();
+            map.put(key, list);
+        }
+        return list;
+    }
+
+    private Map getCurrentStep(boolean result) {
+        if (element == null) {
+            return null;
+        }
+        String target = result ? "result" : "match";
+        Map lastWithValue = null;
+        for (Map step : getList(element, "steps")) {
+            if (step.get(target) == null) {
+                return step;
+            }
+            lastWithValue = step;
+        }
+        return lastWithValue;
+    }
+
+    @Override
+    public void uri(String uri) {
+        this.uri = uri;
+    }
+
+    @Override
+    public void feature(Feature feature) {
+        featureMap = feature.toMap();
+        featureMap.put("uri", uri);
+    }
+
+    @Override
+    public void background(Background background) {
+        addElement(background.toMap());
+    }
+
+    @Override
+    public void scenario(Scenario scenario) {
+        addElement(scenario.toMap());
+        if (!beforeHooks.isEmpty()) {
+            element.put("before", beforeHooks);
+            beforeHooks = new ArrayList();
+        }
+    }
+
+    @Override
+    public void scenarioOutline(ScenarioOutline scenarioOutline) {
+        inScenarioOutline = true; // the json report has only the example scenarios
+    }
+
+    @Override
+    public void examples(Examples examples) {
+
+    }
+
+    @Override
+    public void step(Step step) {
+        if (!inScenarioOutline && element != null) {
+            getList(element, "steps").add(step.toMap());
+        }
+    }
+
+    @Override
+    public void match(Match match) {
+        Map step = getCurrentStep(false);
+        if (step != null) {
+            step.put("match", match.toMap());
+        }
+    }
+
+    @Override
+    public void result(Result result) {
+        Map step = getCurrentStep(true);
+        if (step != null) {
+            step.put("result", result.toMap());
+        }
+    }
+
+    @Override
+    public void embedding(String mimeType, byte[] data) {
+        Map step = getCurrentStep(false);
+        if (step != null) {
+            Map<String, Object> embedding = new HashMap();
+            embedding.put("mime_type", mimeType);
+            embedding.put("data", Base64.getEncoder().encodeToString(data));
+            getList(step, "embeddings").add(embedding);
+        }
+    }
+
+    @Override
+    public void write(String text) {
+        Map step = getCurrentStep(false);
+        if (step != null) {
+            List output = getList(step, "output");
+            output.add(text);
+        }
+    }
+
+    private Map buildHookMap(Match match, Result result) {
+        Map<String, Object> hookMap = new HashMap();
+        hookMap.put("match", match.toMap());
+        hookMap.put("result", result.toMap());
+        return hookMap;
+    }
+
+    @Override
+    public void before(Match match, Result result) {
+        beforeHooks.add(buildHookMap(match, result));
+    }
+
+    @Override
+    public void after(Match match, Result result) {
+        if (element != null) {
+            getList(element, "after").add(buildHookMap(match, result));
+        }
+    }
+
+    @Override
+    public void startOfScenarioLifeCycle(Scenario scenario) {
+        inScenarioOutline = false;
+    }
+
+    @Override
+    public void endOfScenarioLifeCycle(Scenario scenario) {
+        writeElement(); // for the next element, background() or scenario() will start a new one
+    }
+
+    @Override
+    public void done() {
+        writeElement();
+        writeFeature(); // in case there were no elements
+        if (!started) { // keep it valid json
+            out.append("[]\n", "");
+        }
+        out.close();
+    }
+
+    @Override
+    public void syntaxError(String state, String event, List<String> legalEvents, String uri, Integer line) {
+
+    }
+
+    @Override
+    public void close() {
+
+    }
+
+    @Override
+    public void eof() {
+
+    }
+
+}
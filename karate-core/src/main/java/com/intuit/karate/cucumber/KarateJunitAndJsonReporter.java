@@ -25,7 +25,6 @@ package com.intuit.karate.cucumber;
 
 import com.intuit.karate.CallContext;
 import com.intuit.karate.StringUtils;
-import cucumber.runtime.formatter.CucumberJSONFormatter;
 import gherkin.formatter.model.Background;
 import gherkin.formatter.model.Examples;
 import gherkin.formatter.model.Feature;
@@ -34,7 +33,6 @@ import gherkin.formatter.model.Result;
 import gherkin.formatter.model.Scenario;
 import gherkin.formatter.model.ScenarioOutline;
 import gherkin.formatter.model.Step;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.List;
 
@@ -45,7 +43,7 @@ import java.util.List;
 public class KarateJunitAndJsonReporter extends KarateReporterBase {
 
     private final KarateJunitFormatter junit;
-    private final CucumberJSONFormatter json;
+    private final KarateJsonFormatter json;
     
     private Exception failureReason;
 
@@ -67,8 +65,7 @@ public class KarateJunitAndJsonReporter extends KarateReporterBase {
         String basePath = reportPath.substring(0, pos);
         String jsonReportPath = basePath + ".json";
         tempFilePath = basePath + ".log";
-        FileWriter fileWriter = new FileWriter(jsonReportPath);
-        json = new CucumberJSONFormatter(fileWriter);
+        json = new KarateJsonFormatter(jsonReportPath);
     }        
 
     @Override
@@ -25,9 +25,7 @@ package com.intuit.karate.cucumber;
 
 import com.intuit.karate.FileUtils;
 import com.intuit.karate.StringUtils;
-import cucumber.runtime.CucumberException;
-import cucumber.runtime.io.URLOutputStream;
-import cucumber.runtime.io.UTF8OutputStreamWriter;
+import com.intuit.karate.XmlUtils;
 import gherkin.formatter.Formatter;
 import gherkin.formatter.Reporter;
 import gherkin.formatter.model.Background;
@@ -38,24 +36,10 @@ import gherkin.formatter.model.Result;
 import gherkin.formatter.model.Scenario;
 import gherkin.formatter.model.ScenarioOutline;
 import gherkin.formatter.model.Step;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.io.Writer;
-import java.net.URL;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
@@ -69,7 +53,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  *
- * adapted from cucumber.runtime.formatter.JUnitFormatter
+ * adapted from cucumber.runtime.formatter.JUnitFormatter, each test-case is
+ * appended to the file as soon as the scenario completes, and the summary
+ * attributes of the test-suite are updated in place
  *
  * @author pthomas3
  */
@@ -77,12 +63,15 @@ public class KarateJunitFormatter implements Formatter, Reporter {
 
     private static final Logger logger = LoggerFactory.getLogger(KarateJunitFormatter.class);
 
-    private final Writer out;
-    private final Document doc;
-    private final Element rootElement;
+    private static final String TAIL = "</testsuite>\n";
+    // room for: tests="" failures="" skipped="" time=""
+    private static final int SUMMARY_LENGTH = 96;
+
+    private final ReportFileWriter out;
+    private long summaryPosition = -1;
 
     private TestCase testCase;
-    private Element currentElement;
+    private boolean inScenario;
 
     private final String featurePath;
     private final String reportPath;
@@ -128,21 +117,41 @@ public class KarateJunitFormatter implements Formatter, Reporter {
         this.featurePath = featurePath;
         this.reportPath = reportPath;
         logger.trace(">> {}", reportPath);
-        URL url = FileUtils.toFileUrl(reportPath);
-        this.out = new UTF8OutputStreamWriter(new URLOutputStream(url));
-        try {
-            doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-            rootElement = doc.createElement("testsuite");
-            doc.appendChild(rootElement);
-        } catch (ParserConfigurationException e) {
-            throw new CucumberException("Error while processing unit report", e);
+        this.out = new ReportFileWriter(new File(reportPath));
+    }
+
+    private void startSuite(String name) {
+        if (summaryPosition != -1) {
+            return;
+        }
+        String header = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<testsuite name=\"" + XmlUtils.escape(name, true) + "\"";
+        long pos = out.append(header, TAIL);
+        summaryPosition = pos + header.getBytes(FileUtils.UTF8).length;
+        out.append(summary() + ">\n", TAIL);
+    }
+
+    private String summary() {
+        String summary = " tests=\"" + testCount + "\" failures=\"" + failCount
+                + "\" skipped=\"" + skipCount + "\" time=\"" + formatTime(timeTaken) + "\"";
+        StringBuilder sb = new StringBuilder(SUMMARY_LENGTH);
+        sb.append(summary);
+        while (sb.length() < SUMMARY_LENGTH) {
+            sb.append(' ');
         }
+        return sb.toString();
+    }
+
+    private String getFeatureName() {
+        String featureName = testCase == null ? null : StringUtils.trimToNull(testCase.feature.getName());
+        return featureName == null ? featurePath : featureName;
     }
 
     @Override
     public void feature(Feature feature) {
         testCase = new TestCase();
         testCase.feature = feature;
+        startSuite(getFeatureName());
     }
 
     @Override
@@ -160,38 +169,15 @@ public class KarateJunitFormatter implements Formatter, Reporter {
 
     @Override
     public void done() {
-        try {
-            String featureName = StringUtils.trimToNull(testCase.feature.getName());
-            if (featureName == null) {
-                featureName = featurePath;
-            }
-            rootElement.setAttribute("name", featureName);
-            String testCountString = rootElement.getAttribute("tests");
-            try {
-                testCount = Integer.valueOf(testCountString);
-            } catch (Exception e) {
-                testCount = 0;
-                logger.warn("invalid test count: {}", e.getMessage());
-            }
-            failCount = rootElement.getElementsByTagName("failure").getLength();
-            rootElement.setAttribute("failures", String.valueOf(failCount));
-            skipCount = rootElement.getElementsByTagName("skipped").getLength();
-            rootElement.setAttribute("skipped", String.valueOf(skipCount));
-            timeTaken = sumTimes(rootElement.getElementsByTagName("testcase"));
-            rootElement.setAttribute("time", formatTime(timeTaken));
-            printStatsToConsole();
-            if (rootElement.getElementsByTagName("testcase").getLength() == 0) {
-                addDummyTestCase(); // to avoid failed Jenkins jobs
-            }
-            TransformerFactory transfac = TransformerFactory.newInstance();
-            Transformer trans = transfac.newTransformer();
-            trans.setOutputProperty(OutputKeys.INDENT, "yes");
-            StreamResult result = new StreamResult(out);
-            DOMSource source = new DOMSource(doc);
-            trans.transform(source, result);
-        } catch (TransformerException e) {
-            throw new CucumberException("Error while transforming.", e);
+        startSuite(getFeatureName());
+        if (inScenario) { // aborted mid-way, report what we have
+            endTestCase();
+        }
+        printStatsToConsole();
+        if (testCount == 0) {
+            addDummyTestCase(); // to avoid failed Jenkins jobs
         }
+        out.close();
         logger.trace("<< {}", reportPath);
     }
 
@@ -201,10 +187,8 @@ public class KarateJunitFormatter implements Formatter, Reporter {
         testCase.results.clear();
         currentScenario++;
         testCase.scenario = scenario;
-        currentElement = testCase.createTestCaseElement(doc);
-        testCase.writeElement(currentElement);
-        rootElement.appendChild(currentElement);
-        increaseAttributeValue(rootElement, "tests");
+        testCase.name = testCase.calculateElementName(scenario);
+        inScenario = true;
     }
 
     @Override
@@ -214,82 +198,50 @@ public class KarateJunitFormatter implements Formatter, Reporter {
 
     @Override
     public void endOfScenarioLifeCycle(Scenario scenario) {
-        if (testCase.steps.isEmpty()) {
-            testCase.handleEmptyTestCase(doc, currentElement);
-        }
+        endTestCase();
+    }
+
+    private void endTestCase() {
+        inScenario = false;
+        StringBuilder sb = new StringBuilder();
+        double time = testCase.writeElement(sb);
+        testCount++;
+        timeTaken += time;
+        out.append(sb.toString(), TAIL);
+        out.overwrite(summaryPosition, summary());
     }
 
     private void addDummyTestCase() {
-        Element dummy = doc.createElement("testcase");
-        dummy.setAttribute("classname", "dummy");
-        dummy.setAttribute("name", "dummy");
-        rootElement.appendChild(dummy);
-        Element skipped = doc.createElement("skipped");
-        skipped.setAttribute("message", "No features found");
-        dummy.appendChild(skipped);
+        out.append("<testcase classname=\"dummy\" name=\"dummy\">\n"
+                + "<skipped message=\"No features found\"/>\n"
+                + "</testcase>\n", TAIL);
     }
 
     @Override
     public void result(Result result) {
         testCase.results.add(result);
-        testCase.updateElement(currentElement);
-    }
-
-    private double sumTimes(NodeList testCaseNodes) {
-        double totalDurationSecondsForAllTimes = 0.0d;
-        for (int i = 0; i < testCaseNodes.getLength(); i++) {
-            try {
-                double testCaseTime
-                        = Double.parseDouble(testCaseNodes.item(i).getAttributes().getNamedItem("time").getNodeValue());
-                totalDurationSecondsForAllTimes += testCaseTime;
-            } catch (Exception e) {
-                logger.warn("junit xml reporter failed: {}", e.getMessage());
-            }
-        }
-        return totalDurationSecondsForAllTimes;
     }
 
-    private String formatTime(double time) {
+    private static String formatTime(double time) {
         DecimalFormat nfmt = (DecimalFormat) NumberFormat.getNumberInstance(Locale.US);
         nfmt.applyPattern("0.######");
         return nfmt.format(time);
     }
 
-    private void increaseAttributeValue(Element element, String attribute) {
-        int value = 0;
-        if (element.hasAttribute(attribute)) {
-            value = Integer.parseInt(element.getAttribute(attribute));
-        }
-        element.setAttribute(attribute, String.valueOf(++value));
+    private static void appendCData(StringBuilder sb, String text) {
+        sb.append("<![CDATA[");
+        sb.append(text.replace("]]>", "]]]]><![CDATA[>"));
+        sb.append("]]>");
     }
 
     private class TestCase {
 
-        private final DecimalFormat NUMBER_FORMAT = (DecimalFormat) NumberFormat.getNumberInstance(Locale.US);
-
-        private TestCase(Scenario scenario) {
-            this.scenario = scenario;
-            NUMBER_FORMAT.applyPattern("0.######");
-        }
-
-        private TestCase() {
-            this(null);
-        }
-
         Scenario scenario;
+        String name;
         private Feature feature;        
         final List<Step> steps = new ArrayList();
         final List<Result> results = new ArrayList();        
 
-        private Element createTestCaseElement(Document doc) {
-            return doc.createElement("testcase");
-        }
-
-        private void writeElement(Element tc) {
-            tc.setAttribute("classname", featurePath);
-            tc.setAttribute("name", calculateElementName(scenario));
-        }
-
         private String calculateElementName(Scenario scenario) {
             String scenarioName = StringUtils.trimToNull(scenario.getName());
             if (scenarioName == null) {
@@ -302,11 +254,21 @@ public class KarateJunitFormatter implements Formatter, Reporter {
             }
         }
 
-        public void updateElement(Element tc) {
-            tc.setAttribute("time", calculateTotalDurationString());
+        private double writeElement(StringBuilder tc) {
+            double time = calculateTotalDuration();
+            tc.append("<testcase classname=\"").append(XmlUtils.escape(featurePath, true))
+                    .append("\" name=\"").append(XmlUtils.escape(name, true))
+                    .append("\" time=\"").append(formatTime(time)).append("\">\n");
+            if (steps.isEmpty()) {
+                skipCount++;
+                tc.append("<skipped message=\"The scenario has no steps\"><![CDATA[]]></skipped>\n");
+                tc.append("</testcase>\n");
+                return time;
+            }
             StringBuilder sb = new StringBuilder();
             addStepAndResultListing(sb);
             Result skipped = null, failed = null;
+            boolean allSkipped = true; // e.g. when a failure budget has stopped the run
             for (Result result : results) {
                 if ("failed".equals(result.getStatus())) {
                     failed = result;
@@ -314,42 +276,43 @@ public class KarateJunitFormatter implements Formatter, Reporter {
                 if ("undefined".equals(result.getStatus()) || "pending".equals(result.getStatus())) {
                     skipped = result;
                 }
+                allSkipped = allSkipped && "skipped".equals(result.getStatus());
+            }
+            if (skipped == null && allSkipped && !results.isEmpty()) {
+                skipped = results.get(0);
             }
-            Element child;
             if (failed != null) {
+                failCount++;
                 addStackTrace(sb, failed);
-                child = createElementWithMessage(doc, sb, "failure", failed.getErrorMessage());
+                tc.append("<failure message=\"").append(XmlUtils.escape(failed.getErrorMessage(), true)).append("\">");
+                appendCData(tc, sb.toString());
+                tc.append("</failure>\n");
                 if (failMessages == null) {
                     // TODO investigate why a set is needed, a list ends up with mysterious duplicates
                     failMessages = new LinkedHashSet();
                 }
                 failMessages.add(failed.getErrorMessage());
             } else if (skipped != null) {
-                child = createElement(doc, sb, "skipped");
-            } else {
-                child = createElement(doc, sb, "system-out");
-            }
-            Node existingChild = tc.getFirstChild();
-            if (existingChild == null) {
-                tc.appendChild(child);
+                skipCount++;
+                tc.append("<skipped>");
+                appendCData(tc, sb.toString());
+                tc.append("</skipped>\n");
             } else {
-                tc.replaceChild(child, existingChild);
+                tc.append("<system-out>");
+                appendCData(tc, sb.toString());
+                tc.append("</system-out>\n");
             }
+            tc.append("</testcase>\n");
+            return time;
         }
 
-        public void handleEmptyTestCase(Document doc, Element tc) {
-            tc.setAttribute("time", calculateTotalDurationString());
-            Element child = createElementWithMessage(doc, new StringBuilder(), "skipped", "The scenario has no steps");
-            tc.appendChild(child);
-        }
-
-        private String calculateTotalDurationString() {
+        private double calculateTotalDuration() {
             long totalDurationNanos = 0;
             for (Result r : results) {
                 totalDurationNanos += r.getDuration() == null ? 0 : r.getDuration();
             }
-            double totalDurationSeconds = ((double) totalDurationNanos) / 1000000000;
-            return NUMBER_FORMAT.format(totalDurationSeconds);
+            // rounded the same way as the attribute, so that the totals add up
+            return Double.parseDouble(formatTime(((double) totalDurationNanos) / 1000000000));
         }
 
         private void addStepAndResultListing(StringBuilder sb) {
@@ -376,18 +339,6 @@ public class KarateJunitFormatter implements Formatter, Reporter {
             sb.append(sw.toString());
         }
 
-        private Element createElementWithMessage(Document doc, StringBuilder sb, String elementType, String message) {
-            Element child = createElement(doc, sb, elementType);
-            child.setAttribute("message", message);
-            return child;
-        }
-
-        private Element createElement(Document doc, StringBuilder sb, String elementType) {
-            Element child = doc.createElement(elementType);
-            child.appendChild(doc.createCDATASection(sb.toString()));
-            return child;
-        }
-
     }
 
     //==========================================================================
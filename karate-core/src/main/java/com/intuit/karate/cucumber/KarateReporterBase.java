@@ -26,6 +26,7 @@ package com.intuit.karate.cucumber;
 import com.intuit.karate.CallContext;
 import com.intuit.karate.JsonUtils;
 import com.intuit.karate.FileLogAppender;
+import com.intuit.karate.LogAppender;
 import com.intuit.karate.Logger;
 import com.intuit.karate.ScriptContext;
 import com.intuit.karate.StringUtils;
@@ -41,7 +42,7 @@ import gherkin.formatter.model.Step;
 public abstract class KarateReporterBase implements KarateReporter {
 
     protected String tempFilePath;
-    protected FileLogAppender appender;
+    protected LogAppender appender;
 
     @Override
     public void setLogger(Logger logger) {
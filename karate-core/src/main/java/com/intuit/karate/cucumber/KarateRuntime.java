@@ -27,7 +27,12 @@ import com.intuit.karate.Logger;
 import com.intuit.karate.ScriptContext;
 import com.intuit.karate.ScriptEnv;
 import com.intuit.karate.ScriptValue;
+import com.intuit.karate.ScriptValueMap;
+import com.intuit.karate.StepDefs;
+import com.intuit.karate.exception.KarateException;
+import com.intuit.karate.http.HttpClient;
 import com.intuit.karate.http.HttpConfig;
+import com.intuit.karate.http.HttpRequestBuilder;
 import cucumber.runtime.CucumberScenarioImpl;
 import cucumber.runtime.CucumberStats;
 import cucumber.runtime.Runtime;
@@ -40,7 +45,9 @@ import gherkin.formatter.model.Scenario;
 import gherkin.formatter.model.Step;
 import gherkin.formatter.model.Tag;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
 
 /**
  *
@@ -48,42 +55,134 @@ import java.util.Set;
  */
 public class KarateRuntime extends Runtime {
 
+    public static final String TAG_BACKGROUND_ONCE = "@backgroundOnce";
+
     private final KarateBackend backend;
     private final CucumberStats stats;
     private CucumberScenarioImpl scenarioResult;
     private boolean stopped;
     private boolean aborted;
     private ScriptContext prevContext;
+    
+    private FailureBudget failureBudget;
+    private boolean cancelled; // budget exceeded before the scenario started
+    private List<String> scenarioTags;
+    
+    // timeouts, see Watchdog
+    private final Object stepLock = new Object();
+    private Thread stepThread; // guarded by stepLock, set only while a step is running
+    private Step currentStep;
+    private boolean watching; // so that a late watchdog task does not apply to the next scenario
+    private int scenarioIndex;
+    private long featureDeadline; // -1 if none
+    private volatile boolean featureTimedOut;
+    private ScheduledFuture timeoutTask;
+    
+    // background once per feature, steps before this line are in the Background
+    private final int backgroundOnceLine;
+    private boolean backgroundRan;
+    private boolean backgroundRestored;
+    private ScriptValueMap backgroundVars;
+    private HttpConfig backgroundConfig;
+    private HttpRequestBuilder backgroundRequest;
 
     public KarateRuntime(KarateRuntimeOptions kro, KarateBackend backend, RuntimeGlue glue) {
         super(kro.getResourceLoader(), kro.getClassLoader(), Collections.singletonList(backend), kro.getRuntimeOptions(), glue);
         this.backend = backend;
         this.stats = new CucumberStats(kro.getRuntimeOptions().isMonochrome());
+        this.backgroundOnceLine = getBackgroundOnceLine(backend.getFeature());
+    }
+    
+    private static int getBackgroundOnceLine(FeatureWrapper feature) {
+        for (Tag tag : feature.getFeature().getGherkinFeature().getTags()) {
+            if (TAG_BACKGROUND_ONCE.equals(tag.getName())) {
+                List<FeatureSection> sections = feature.getSections();
+                return sections.isEmpty() ? -1 : sections.get(0).getLine();
+            }
+        }
+        return -1;
     }
     
     public Logger getLogger() {
         return backend.getEnv().logger;
     }
 
+    public void setFailureBudget(FailureBudget failureBudget) {
+        this.failureBudget = failureBudget;
+    }
+
+    public Set<String> getDependencies() {
+        return backend.getEnv().dependencies;
+    }
+
     private void addStepToCounterAndResult(Result result) {
         scenarioResult.add(result);
         stats.addStep(result);
     }
 
+    private boolean skipBackgroundStep(Step step) {
+        if (backgroundOnceLine == -1) {
+            return false;
+        }
+        StepDefs stepDefs = backend.getStepDefs();
+        if (step.getLine() < backgroundOnceLine) {
+            if (backgroundVars == null) { // first time, or the Background failed last time
+                backgroundRan = true;
+                return false;
+            }
+            if (!backgroundRestored) { // start from a clone of the snapshot
+                stepDefs.restore(backgroundVars, backgroundConfig, backgroundRequest);
+                backgroundRestored = true;
+            }
+            return true; // and not reported again
+        }
+        if (backgroundRan && backgroundVars == null && !stopped) { // Background just completed
+            ScriptContext context = stepDefs.getContext();
+            backgroundVars = context.getVars().deepCopy();
+            backgroundConfig = new HttpConfig(context.getConfig());
+            backgroundRequest = stepDefs.getRequest().copy();
+        }
+        return false;
+    }
+
+    private void skipStep(Step step, Reporter reporter, Result result, ScriptContext context) {
+        Match match = Match.UNDEFINED;
+        if (reporter instanceof KarateReporter) { // simulate cucumber flow to keep json-formatter happy                
+            ((KarateReporter) reporter).karateStep(step, match, result, backend.getCallContext(), context);
+        }
+        reporter.match(match);
+        addStepToCounterAndResult(result);
+        reporter.result(result);
+    }
+
     @Override
     public void runStep(String featurePath, Step step, Reporter reporter, I18n i18n) {
+        if (cancelled) { // no context, so that even karate-config.js is not evaluated
+            skipStep(step, reporter, Result.SKIPPED, null);
+            return;
+        }
+        if (skipBackgroundStep(step)) {
+            return;
+        }
+        if (!stopped && failureBudget != null && failureBudget.isExceeded()) {
+            prevContext = backend.getStepDefs().getContext();
+            stopped = true;
+        }
         if (stopped) {
-            Match match = Match.UNDEFINED;
             Result result = aborted ? StepResult.PASSED : Result.SKIPPED;
-            if (reporter instanceof KarateReporter) { // simulate cucumber flow to keep json-formatter happy                
-                ((KarateReporter) reporter).karateStep(step, match, result, backend.getCallContext(), backend.getStepDefs().getContext());
-            }
-            reporter.match(match);
-            addStepToCounterAndResult(result);
-            reporter.result(result);
+            skipStep(step, reporter, result, backend.getStepDefs().getContext());
             return;
         }
-        StepResult result = CucumberUtils.runStep(step, reporter, i18n, backend);
+        synchronized (stepLock) {
+            stepThread = Thread.currentThread();
+            currentStep = step;
+        }
+        StepResult result;
+        try {
+            result = CucumberUtils.runStep(step, reporter, i18n, backend);
+        } finally {
+            stepDone();
+        }
         if (!result.isPass() || result.isAbort()) {
             if (!result.isAbort()) {
                 addError(result.getError());
@@ -104,15 +203,118 @@ public class KarateRuntime extends Runtime {
         // 'karate.info' also does not apply to 'called' features
         CucumberUtils.initScenarioInfo(scenario, backend);
         scenarioResult = new CucumberScenarioImpl(reporter, tags, scenario);
+        scenarioTags = backend.getCallContext().getTags();
+        cancelled = failureBudget != null && failureBudget.isExceeded();
+        if (!cancelled) {
+            cancelled = !startWatchdog(scenario.getName());
+        }
+    }
+
+    // returns false if the feature has already run out of time
+    private boolean startWatchdog(String scenarioName) {
+        long now = System.currentTimeMillis();
+        long featureTimeout = Watchdog.getFeatureTimeout();
+        if (featureDeadline == 0) { // first scenario
+            featureDeadline = featureTimeout > 0 ? now + featureTimeout : -1;
+        }
+        if (featureTimedOut || (featureDeadline > 0 && now >= featureDeadline)) {
+            return false;
+        }
+        long scenarioTimeout = Watchdog.getScenarioTimeout(backend.getCallContext().getTagValues());
+        boolean feature = featureDeadline > 0 && (scenarioTimeout <= 0 || featureDeadline - now < scenarioTimeout);
+        if (!feature && scenarioTimeout <= 0) {
+            return true;
+        }
+        Thread thread = Thread.currentThread();
+        String what = (feature ? "feature" : "scenario") + " timed out after " + (feature ? featureTimeout : scenarioTimeout)
+                + " ms, " + backend.getFeaturePath() + ": " + scenarioName;
+        synchronized (stepLock) {
+            int index = ++scenarioIndex;
+            watching = true;
+            timeoutTask = Watchdog.schedule(() -> timedOut(thread, index, what, feature), feature ? featureDeadline - now : scenarioTimeout);
+        }
+        return true;
+    }
+
+    private void timedOut(Thread thread, int index, String what, boolean feature) {
+        synchronized (stepLock) {
+            if (!watching || index != scenarioIndex) {
+                return;
+            }
+            StringBuilder sb = new StringBuilder(what);
+            if (currentStep != null && stepThread != null) {
+                sb.append("\nstep: line ").append(currentStep.getLine()).append(": ")
+                        .append(currentStep.getKeyword()).append(currentStep.getName());
+            }
+            sb.append("\n").append(Watchdog.getStackTrace(thread));
+            if (feature) {
+                featureTimedOut = true; // the remaining scenarios will be skipped
+            }
+            Watchdog.setTimedOut(thread, new KarateException(sb.toString()));
+            if (stepThread != null) { // else the next step will fail
+                HttpClient.abort(stepThread);
+                stepThread.interrupt();
+                Step step = currentStep;
+                timeoutTask = Watchdog.schedule(() -> abandonIfStuck(thread, index, step), Watchdog.getGracePeriod());
+            }
+        }
+    }
+
+    // last resort, for things like an infinite loop in js which ignore the interrupt
+    private void abandonIfStuck(Thread thread, int index, Step step) {
+        synchronized (stepLock) {
+            if (watching && index == scenarioIndex && stepThread == thread && currentStep == step) {
+                if (Watchdog.abandon(thread)) {
+                    getLogger().warn("thread did not respond to interrupt, abandoned: {}", thread.getName());
+                } else {
+                    getLogger().warn("thread did not respond to interrupt, still waiting: {}", thread.getName());
+                }
+            }
+        }
+    }
+
+    private void stepDone() {
+        synchronized (stepLock) {
+            stepThread = null;
+            currentStep = null;
+            Thread.interrupted(); // clear, only meant for the step
+        }
+    }
+
+    private void stopWatchdog() {
+        synchronized (stepLock) {
+            watching = false;
+            if (timeoutTask != null) {
+                timeoutTask.cancel(false);
+                timeoutTask = null;
+            }
+        }
+        Watchdog.clearTimedOut(Thread.currentThread());
     }
 
     @Override
     public void disposeBackendWorlds(String scenarioDesignation) {
         stats.addScenario(scenarioResult.getStatus(), scenarioDesignation);
+        stopWatchdog();
+        if (cancelled) {
+            backend.disposeWorld();
+            cancelled = false;
+            return;
+        }
+        boolean failed = Result.FAILED.equals(scenarioResult.getStatus());
+        if (failureBudget != null && failed) {
+            failureBudget.scenarioFailed(scenarioDesignation, scenarioTags);
+        }
+        RunMetrics metrics = RunMetrics.current();
+        if (metrics != null) {
+            metrics.scenarioDone(failed);
+        }
         prevContext = backend.getStepDefs().getContext();
         invokeAfterHookIfConfigured(false);
         backend.disposeWorld();
         stopped = false; // else a failed scenario results in all remaining ones in the feature being skipped !
+        backgroundRan = false;
+        backgroundRestored = false;
     }
 
     @Override
@@ -121,6 +323,9 @@ public class KarateRuntime extends Runtime {
     }       
     
     public void afterFeature() {
+        if (prevContext == null && failureBudget != null && failureBudget.isExceeded()) {
+            return; // all scenarios were skipped
+        }
         invokeAfterHookIfConfigured(true);
     }
     
@@ -86,8 +86,18 @@ public class KarateRuntimeOptions {
         return new KarateRuntime(this, backend, glue);
     }
 
+    public List<String> getTags() {
+        List<String> tags = new ArrayList();
+        for (Object filter : runtimeOptions.getFilters()) {
+            if (filter instanceof String) { // the rest are name (regex) filters
+                tags.add((String) filter);
+            }
+        }
+        return tags;
+    }
+
     public List<CucumberFeature> loadFeatures() {
-        return runtimeOptions.cucumberFeatures(resourceLoader);
+        return FeatureIndex.loadFeatures(runtimeOptions, resourceLoader);
     }
 
     public ClassLoader getClassLoader() {
@@ -40,7 +40,10 @@ public class KarateStats {
     private double timeTaken;    
     private final long startTime;
     private long endTime;
+    private long predictedTime;
     private Map<String, String> failedMap;
+    private Map<String, Map<String, Object>> rateLimitStats;
+    private Map<Long, Integer> threadHistory;
     private Throwable failureReason;
     
     private KarateStats(long startTime) {
@@ -91,11 +94,30 @@ public class KarateStats {
         System.out.println("Karate version: " + FileUtils.getKarateVersion());
         System.out.println("====================================================");
         System.out.println(String.format("elapsed time: %.2f | total thread time: %.2f", elapsedTime / 1000, timeTaken));
+        if (predictedTime > 0) { // only if there were timings from a previous run
+            System.out.println(String.format("predicted time: %.2f | actual: %.2f", (double) predictedTime / 1000, elapsedTime / 1000));
+        }
         double efficiency = 1000 * timeTaken / (elapsedTime * threadCount);
         System.out.println(String.format("features: %5d | threads: %3d | efficiency: %.2f", 
                 featureCount, threadCount, efficiency));
         System.out.println(String.format("scenarios: %4d | failed: %4d | skipped: %4d", 
                 testCount, failCount, skipCount));
+        if (threadHistory != null) {
+            StringBuilder sb = new StringBuilder();
+            threadHistory.forEach((k, v) -> {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(String.format("%.1f: %d", k / 1000.0, v));
+            });
+            System.out.println("threads over time: " + sb);
+        }
+        if (rateLimitStats != null) {
+            rateLimitStats.forEach((k, v) -> {
+                System.out.println(String.format("rate limit: %s | calls: %d | delayed: %d | wait: %.2f | max wait: %.2f",
+                        k, v.get("calls"), v.get("delayed"), (Long) v.get("waitMillis") / 1000.0, (Long) v.get("maxWaitMillis") / 1000.0));
+            });
+        }
         System.out.println("====================================================");
         if (failedMap != null) {
             System.out.println("failed features:");
@@ -112,6 +134,38 @@ public class KarateStats {
         }
     }
 
+    public void setPredictedTime(long predictedTime) {
+        this.predictedTime = predictedTime;
+    }
+
+    public long getPredictedTime() {
+        return predictedTime;
+    }
+
+    public void setThreadHistory(Map<Long, Integer> threadHistory) {
+        this.threadHistory = threadHistory;
+    }
+
+    /**
+     * @return for an adaptive run, the thread count keyed by the milliseconds
+     * since the start, when it changed
+     */
+    public Map<Long, Integer> getThreadHistory() {
+        return threadHistory;
+    }
+
+    public void setRateLimitStats(Map<String, Map<String, Object>> rateLimitStats) {
+        this.rateLimitStats = rateLimitStats;
+    }
+
+    /**
+     * @return for each http rate limit (host or pattern) that was used, the
+     * number of calls, how many had to wait, total and max wait in millis
+     */
+    public Map<String, Map<String, Object>> getRateLimitStats() {
+        return rateLimitStats;
+    }
+
     public void setFeatureCount(int featureCount) {
         this.featureCount = featureCount;
     }        
@@ -0,0 +1,106 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.FileUtils;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * for reports that are written as the test runs, the closing 'tail' of the
+ * document is re-written after every append, so that what is on disk is
+ * always complete and well-formed even if the JVM dies mid-way
+ *
+ * @author pthomas3
+ */
+public class ReportFileWriter {
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private long position;
+
+    public ReportFileWriter(File file) throws IOException {
+        this.file = file;
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        channel.truncate(0);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    private int write(long pos, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(FileUtils.UTF8));
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            pos += channel.write(buffer, pos);
+        }
+        return length;
+    }
+
+    /**
+     * @return the (byte) position at which the text was written, for use with
+     * {@link #overwrite(long, String)}
+     */
+    public long append(String text, String tail) {
+        try {
+            long start = position;
+            position += write(position, text);
+            write(position, tail); // file never shrinks, so no need to truncate
+            return start;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * the caller has to make sure that the text has the same length (in bytes)
+     * as what it replaces, typically by padding with white-space
+     */
+    public void overwrite(long pos, String text) {
+        try {
+            write(pos, text);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void close() {
+        try {
+            channel.close();
+            raf.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
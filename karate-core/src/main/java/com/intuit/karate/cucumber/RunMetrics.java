@@ -0,0 +1,294 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.JsonUtils;
+import com.sun.net.httpserver.HttpServer;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * live counters for a parallel run, updated as features, scenarios and http
+ * calls complete (without locking) so that progress can be logged every few
+ * seconds and optionally served as json over http while the run is going on
+ *
+ * @author pthomas3
+ */
+public class RunMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunMetrics.class);
+
+    public static final String PROGRESS_SECONDS = "karate.progress.seconds";
+    public static final String METRICS_PORT = "karate.metrics.port";
+
+    private static final int DEFAULT_PROGRESS_SECONDS = 10;
+
+    // the run in progress in this JVM, if any
+    private static volatile RunMetrics current;
+
+    private final long startTime = System.currentTimeMillis();
+    private final int featureCount;
+    private final LongAdder featuresDone = new LongAdder();
+    private final LongAdder scenariosPassed = new LongAdder();
+    private final LongAdder scenariosFailed = new LongAdder();
+    private final LongAdder activeThreads = new LongAdder();
+    private final LongAdder httpErrors = new LongAdder();
+    private final Histogram httpTimes = new Histogram();
+
+    private ScheduledExecutorService printer;
+    private HttpServer server;
+
+    /**
+     * log-linear buckets (16 per power of two) so that percentiles are within
+     * about 6% of the actual value, for any range of milliseconds
+     */
+    public static class Histogram {
+
+        private static final int SUB = 16;
+        private static final int SIZE = SUB + 48 * SUB;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(SIZE);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+
+        static int index(long value) {
+            if (value < SUB) {
+                return (int) Math.max(0, value);
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(value); // at least 4
+            int sub = (int) ((value >> (exp - 4)) & (SUB - 1));
+            return Math.min(SIZE - 1, SUB + (exp - 4) * SUB + sub);
+        }
+
+        static long upperBound(int index) {
+            if (index < SUB) {
+                return index;
+            }
+            int exp = (index - SUB) / SUB + 4;
+            int sub = (index - SUB) % SUB;
+            return ((long) (SUB + sub + 1) << (exp - 4)) - 1;
+        }
+
+        public void add(long value) {
+            buckets.incrementAndGet(index(value));
+            count.increment();
+            sum.add(value);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        public double getMean() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        /**
+         * @param percentile e.g. 95
+         * @return the (upper bound of the) value below which this percentage
+         * of values fall, or zero if there are none
+         */
+        public long getPercentile(double percentile) {
+            long n = 0;
+            long[] counts = new long[SIZE]; // snapshot, other threads may keep adding
+            for (int i = 0; i < SIZE; i++) {
+                counts[i] = buckets.get(i);
+                n += counts[i];
+            }
+            if (n == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile * n / 100));
+            long seen = 0;
+            for (int i = 0; i < SIZE; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(SIZE - 1);
+        }
+
+    }
+
+    private RunMetrics(int featureCount) {
+        this.featureCount = featureCount;
+    }
+
+    public static RunMetrics current() {
+        return current;
+    }
+
+    /**
+     * @param featureCount features that will be run
+     * @return metrics that are now {@link #current()}, call {@link #stop()}
+     * when the run is complete
+     */
+    public static RunMetrics start(int featureCount) {
+        RunMetrics metrics = new RunMetrics(featureCount);
+        int seconds = Integer.getInteger(PROGRESS_SECONDS, DEFAULT_PROGRESS_SECONDS);
+        if (seconds > 0) {
+            metrics.printer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "karate-progress");
+                thread.setDaemon(true);
+                return thread;
+            });
+            metrics.printer.scheduleAtFixedRate(() -> logger.info(metrics.toString()), seconds, seconds, TimeUnit.SECONDS);
+        }
+        Integer port = Integer.getInteger(METRICS_PORT);
+        if (port != null) {
+            metrics.startServer(port);
+        }
+        current = metrics;
+        return metrics;
+    }
+
+    private void startServer(int port) {
+        try {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+            server.createContext("/", exchange -> {
+                byte[] bytes = FileUtils.toBytes(JsonUtils.toJson(toMap()));
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+            });
+            server.start();
+            logger.info("run metrics available at: http://127.0.0.1:{}", getPort());
+        } catch (Exception e) {
+            logger.warn("could not start metrics server on port: {}, {}", port, e.getMessage());
+            server = null;
+        }
+    }
+
+    public int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    public void stop() {
+        if (current == this) {
+            current = null;
+        }
+        if (printer != null) {
+            printer.shutdownNow();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    public void featureStarted() {
+        activeThreads.increment();
+    }
+
+    public void featureDone() {
+        activeThreads.decrement();
+        featuresDone.increment();
+    }
+
+    public void scenarioDone(boolean failed) {
+        if (failed) {
+            scenariosFailed.increment();
+        } else {
+            scenariosPassed.increment();
+        }
+    }
+
+    public void httpCall(long millis, boolean failed) {
+        httpTimes.add(millis);
+        if (failed) {
+            httpErrors.increment();
+        }
+    }
+
+    public Histogram getHttpTimes() {
+        return httpTimes;
+    }
+
+    public long getScenarioCount() {
+        return scenariosPassed.sum() + scenariosFailed.sum();
+    }
+
+    public long getFailedCount() {
+        return scenariosFailed.sum();
+    }
+
+    private static double perSecond(long count, double seconds) {
+        return seconds == 0 ? 0 : Math.round(count * 100 / seconds) / 100.0;
+    }
+
+    public Map<String, Object> toMap() {
+        double seconds = (System.currentTimeMillis() - startTime) / 1000.0;
+        long scenarios = getScenarioCount();
+        Map<String, Object> map = new LinkedHashMap();
+        map.put("elapsedSeconds", seconds);
+        map.put("features", featureCount);
+        map.put("featuresDone", featuresDone.sum());
+        map.put("activeThreads", activeThreads.sum());
+        map.put("scenarios", scenarios);
+        map.put("scenariosPassed", scenariosPassed.sum());
+        map.put("scenariosFailed", scenariosFailed.sum());
+        map.put("scenariosPerSecond", perSecond(scenarios, seconds));
+        Map<String, Object> http = new LinkedHashMap();
+        http.put("calls", httpTimes.getCount());
+        http.put("errors", httpErrors.sum());
+        http.put("callsPerSecond", perSecond(httpTimes.getCount(), seconds));
+        http.put("mean", Math.round(httpTimes.getMean()));
+        http.put("p50", httpTimes.getPercentile(50));
+        http.put("p95", httpTimes.getPercentile(95));
+        http.put("p99", httpTimes.getPercentile(99));
+        map.put("http", http);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        double seconds = (System.currentTimeMillis() - startTime) / 1000.0;
+        long scenarios = getScenarioCount();
+        String text = String.format("progress: features %d/%d | threads %d | scenarios %d (failed %d, %.2f/s)",
+                featuresDone.sum(), featureCount, activeThreads.sum(), scenarios, scenariosFailed.sum(), perSecond(scenarios, seconds));
+        if (httpTimes.getCount() > 0) {
+            text = text + String.format(" | http %d (%.2f/s, p50 %dms, p95 %dms, p99 %dms)", httpTimes.getCount(),
+                    perSecond(httpTimes.getCount(), seconds), httpTimes.getPercentile(50), httpTimes.getPercentile(95), httpTimes.getPercentile(99));
+        }
+        return text;
+    }
+
+}
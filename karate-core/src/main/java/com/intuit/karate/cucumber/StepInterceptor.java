@@ -23,6 +23,8 @@
  */
 package com.intuit.karate.cucumber;
 
+import com.intuit.karate.CallContext;
+
 /**
  *
  * @author pthomas3
@@ -35,4 +37,8 @@ public interface  StepInterceptor {
     
     void afterScenario(ScenarioWrapper scenario, KarateBackend backend);
     
+    default void afterCall(FeatureWrapper feature, CallContext callContext, long startTime, long endTime, boolean pass) {
+        // no-op, so that existing implementations do not have to change
+    }
+    
 }
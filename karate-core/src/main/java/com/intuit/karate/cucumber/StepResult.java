@@ -33,6 +33,7 @@ import gherkin.formatter.model.Step;
 public class StepResult {
     
     public static final String ABORTED = "aborted";
+    public static final String RETRY = "retry";
     public static final Result PASSED = new Result(Result.PASSED, null, null);
     public static final Object DUMMY_OBJECT = new Object();
     
@@ -40,12 +41,14 @@ public class StepResult {
     private final Result result;
     private final boolean pass;
     private final boolean abort;
+    private final boolean retry;
 
     public StepResult(Step step, Result result) {
         this.step = step;
         this.result = result;
         pass = result.getError() == null;
         abort = result.getStatus().equals(ABORTED);
+        retry = result.getStatus().equals(RETRY);
     }
 
     public Step getStep() {
@@ -67,5 +70,9 @@ public class StepResult {
     public boolean isAbort() {
         return abort;
     }
+
+    public boolean isRetry() {
+        return retry;
+    }
         
 }
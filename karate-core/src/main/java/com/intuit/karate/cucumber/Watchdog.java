@@ -0,0 +1,164 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.exception.KarateException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * wall-clock timeouts for scenarios and features, set via system properties
+ * (in seconds) or a '@timeout=seconds' tag on the scenario or feature. when a
+ * scenario runs out of time the thread is interrupted (and any in-flight http
+ * call aborted), and every step that runs or fails after that on the thread
+ * fails with the same error, which has the step and the stack of the thread
+ * at the time, so that it shows up in the report
+ *
+ * @author pthomas3
+ */
+public class Watchdog {
+
+    private static final Logger logger = LoggerFactory.getLogger(Watchdog.class);
+
+    public static final String SCENARIO_TIMEOUT = "karate.scenario.timeout";
+    public static final String FEATURE_TIMEOUT = "karate.feature.timeout";
+    public static final String TIMEOUT_TAG = "timeout";
+
+    // how long a thread has to respond to the interrupt, before being given up on
+    public static final String GRACE_PERIOD = "karate.timeout.grace";
+    private static final int DEFAULT_GRACE_SECONDS = 10;
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "karate-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
+    private static final Map<Thread, KarateException> TIMED_OUT = new ConcurrentHashMap();
+    private static final Map<Thread, Consumer<KarateException>> ABANDON_LISTENERS = new ConcurrentHashMap();
+
+    private Watchdog() {
+        // only static methods
+    }
+
+    private static long getMillis(String property) {
+        String value = System.getProperty(property);
+        if (value == null || value.trim().isEmpty()) {
+            return 0;
+        }
+        return Math.round(Double.valueOf(value.trim()) * 1000);
+    }
+
+    /**
+     * @param tagValues of the scenario (includes those of the feature)
+     * @return zero if no timeout
+     */
+    public static long getScenarioTimeout(Map<String, List<String>> tagValues) {
+        List<String> values = tagValues == null ? null : tagValues.get(TIMEOUT_TAG);
+        if (values != null && !values.isEmpty()) {
+            try {
+                return Math.round(Double.valueOf(values.get(0)) * 1000);
+            } catch (Exception e) {
+                logger.warn("ignoring @{}, has to be seconds: {}", TIMEOUT_TAG, values.get(0));
+            }
+        }
+        return getMillis(SCENARIO_TIMEOUT);
+    }
+
+    public static long getFeatureTimeout() {
+        return getMillis(FEATURE_TIMEOUT);
+    }
+
+    public static long getGracePeriod() {
+        long millis = getMillis(GRACE_PERIOD);
+        return millis > 0 ? millis : TimeUnit.SECONDS.toMillis(DEFAULT_GRACE_SECONDS);
+    }
+
+    static ScheduledFuture schedule(Runnable task, long delayMillis) {
+        return SCHEDULER.schedule(task, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+    }
+
+    static String getStackTrace(Thread thread) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('"').append(thread.getName()).append("\" ").append(thread.getState());
+        for (StackTraceElement element : thread.getStackTrace()) {
+            sb.append("\n\tat ").append(element);
+        }
+        return sb.toString();
+    }
+
+    static void setTimedOut(Thread thread, KarateException error) {
+        logger.error(error.getMessage());
+        TIMED_OUT.put(thread, error);
+    }
+
+    static void clearTimedOut(Thread thread) {
+        TIMED_OUT.remove(thread);
+    }
+
+    /**
+     * for when a thread does not respond to the interrupt within the grace
+     * period, so that the caller can stop waiting on it and carry on, the
+     * thread is left to finish (or not) on its own
+     */
+    static void onAbandoned(Thread thread, Consumer<KarateException> listener) {
+        ABANDON_LISTENERS.put(thread, listener);
+    }
+
+    static void clearAbandoned(Thread thread) {
+        ABANDON_LISTENERS.remove(thread);
+    }
+
+    /**
+     * @return false if nothing is listening, and the thread has to be waited on
+     */
+    static boolean abandon(Thread thread) {
+        Consumer<KarateException> listener = ABANDON_LISTENERS.remove(thread);
+        if (listener == null) {
+            return false;
+        }
+        listener.accept(TIMED_OUT.get(thread));
+        return true;
+    }
+
+    /**
+     * @return the error if the scenario on the current thread has run out of
+     * time, else null
+     */
+    public static KarateException getTimedOut() {
+        return TIMED_OUT.get(Thread.currentThread());
+    }
+
+}
@@ -27,11 +27,14 @@ import com.intuit.karate.exception.KarateException;
 import com.intuit.karate.ScriptContext;
 import com.intuit.karate.ScriptValue;
 import com.intuit.karate.XmlUtils;
+import com.intuit.karate.cucumber.RunMetrics;
 import com.jayway.jsonpath.DocumentContext;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.w3c.dom.Node;
 
@@ -51,6 +54,13 @@ public abstract class HttpClient<T> {
 
     private static final String KARATE_HTTP_PROPERTIES = "karate-http.properties";
 
+    // resolved once, not for every scenario and call
+    private static final Map<String, Class<? extends HttpClient>> CLASSES = new ConcurrentHashMap();
+    private static volatile String defaultClassName;
+
+    // so that a run that is stopping early can abort calls stuck on the network
+    private static final Map<Thread, HttpClient> IN_FLIGHT = new ConcurrentHashMap();
+
     protected HttpRequestBuilder request;
 
     /**
@@ -83,6 +93,21 @@ public abstract class HttpClient<T> {
 
     protected abstract String getRequestUri();
 
+    /**
+     * called from another thread, to abort the request in progress (if any),
+     * the default does nothing and the call is left to complete or time out
+     */
+    protected void abort() {
+
+    }
+
+    public static void abort(Thread thread) {
+        HttpClient client = IN_FLIGHT.get(thread);
+        if (client != null) {
+            client.abort();
+        }
+    }
+
     private T getEntityInternal(ScriptValue body, String mediaType) {
         if (body.isJsonLike()) {
             if (mediaType == null) {
@@ -202,29 +227,102 @@ public abstract class HttpClient<T> {
     }
 
     public HttpResponse invoke(HttpRequestBuilder request, ScriptContext context) {
-        T body = buildRequestInternal(request, context);        
+        T body = buildRequestInternal(request, context);
+        List<RateLimiter> limiters = getRateLimiters(context.getConfig());
+        if (limiters.isEmpty()) {
+            return invokeInternal(body, context);
+        }
+        // always acquired in the same order (and released in reverse) so that threads cannot deadlock
+        int acquired = 0;
+        try {
+            for (RateLimiter limiter : limiters) {
+                try {
+                    limiter.acquire();
+                } catch (InterruptedException e) {
+                    throw new KarateException("interrupted while waiting for permit to call: " + limiter.getName(), e);
+                }
+                acquired++;
+            }
+            return invokeInternal(body, context);
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                limiters.get(i).release();
+            }
+        }
+    }
+
+    private List<RateLimiter> getRateLimiters(HttpConfig config) {
+        List<RateLimiter> limiters = new ArrayList(2);
+        RateLimitConfig rateLimit = config.getRateLimitConfig();
+        if (rateLimit != null) {
+            RateLimiter limiter = rateLimit.getLimiter(getRequestUri());
+            if (limiter != null) {
+                limiters.add(limiter);
+            }
+        }
+        // only set for the rows of a parallel call loop, see configure callParallelism
+        Map<String, RateLimiter> hostLimiters = config.getCallHostLimiters();
+        if (hostLimiters != null) {
+            int maxPerHost = config.getMaxRequestsPerHost();
+            limiters.add(hostLimiters.computeIfAbsent(RateLimitConfig.getHost(getRequestUri()), host -> RateLimiter.create(host, 0, maxPerHost, 1)));
+        }
+        return limiters;
+    }
+
+    private HttpResponse invokeInternal(T body, ScriptContext context) {
+        Thread thread = Thread.currentThread();
+        IN_FLIGHT.put(thread, this);
+        RunMetrics metrics = RunMetrics.current();
+        long callStartTime = System.currentTimeMillis();
         try {
             HttpResponse response = makeHttpRequest(body, context);
+            if (metrics != null) {
+                metrics.httpCall(System.currentTimeMillis() - callStartTime, false);
+            }
             context.updateConfigCookies(response.getCookies());
             return response;
         } catch (Exception e) {
+            if (metrics != null) {
+                metrics.httpCall(System.currentTimeMillis() - callStartTime, true);
+            }
             long startTime = context.getPrevRequest().getStartTime();
             long responseTime = System.currentTimeMillis() - startTime;
             String message = "http call failed after " + responseTime + " milliseconds for URL: " + getRequestUri();
             context.logger.error(e.getMessage() + ", " + message);
             throw new KarateException(message, e);
+        } finally {
+            IN_FLIGHT.remove(thread);
         }
     }
 
     public static HttpClient construct(String className) {
         try {
-            Class clazz = Class.forName(className);
-            return (HttpClient) clazz.newInstance();
+            Class<? extends HttpClient> clazz = CLASSES.get(className);
+            if (clazz == null) {
+                clazz = Class.forName(className).asSubclass(HttpClient.class);
+                CLASSES.put(className, clazz);
+            }
+            return clazz.newInstance();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    private static String getDefaultClassName() throws Exception {
+        if (defaultClassName == null) {
+            try (InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(KARATE_HTTP_PROPERTIES)) {
+                if (is == null) {
+                    String msg = KARATE_HTTP_PROPERTIES + " not found";
+                    throw new RuntimeException(msg);
+                }
+                Properties props = new Properties();
+                props.load(is);
+                defaultClassName = props.getProperty("client.class");
+            }
+        }
+        return defaultClassName;
+    }
+
     public static HttpClient construct(HttpConfig config, ScriptContext context) {
         if (config.getClientInstance() != null) {
             return config.getClientInstance();
@@ -234,14 +332,7 @@ public abstract class HttpClient<T> {
             if (config.getClientClass() != null) {
                 className = config.getClientClass();
             } else {
-                InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(KARATE_HTTP_PROPERTIES);
-                if (is == null) {
-                    String msg = KARATE_HTTP_PROPERTIES + " not found";
-                    throw new RuntimeException(msg);
-                }
-                Properties props = new Properties();
-                props.load(is);
-                className = props.getProperty("client.class");
+                className = getDefaultClassName();
             }
             HttpClient client = construct(className);
             client.configure(config, context);
@@ -23,6 +23,7 @@
  */
 package com.intuit.karate.http;
 
+import com.intuit.karate.CallCache;
 import com.intuit.karate.FileUtils;
 import com.intuit.karate.ScriptValue;
 import java.nio.charset.Charset;
@@ -64,6 +65,14 @@ public class HttpConfig {
     private Map<String, Object> userDefined;
     private ScriptValue afterScenario = ScriptValue.NULL;
     private ScriptValue afterFeature = ScriptValue.NULL;
+    private int callParallelism = 1;
+    private int maxRequestsPerHost;
+    private Map<String, RateLimiter> callHostLimiters;
+    private RateLimitConfig rateLimitConfig;
+    private RetryConfig retryConfig = RetryConfig.DEFAULT;
+    private int callSingleCacheMinutes;
+    private String callSingleCacheDir;
+    private String callonceScope = CallCache.SCOPE_FEATURE;
     
     // report config
     private boolean logEnabled = true;
@@ -103,6 +112,14 @@ public class HttpConfig {
         userDefined = parent.userDefined;
         afterScenario = parent.afterScenario;
         afterFeature = parent.afterFeature;
+        callParallelism = parent.callParallelism;
+        maxRequestsPerHost = parent.maxRequestsPerHost;
+        callHostLimiters = parent.callHostLimiters;
+        rateLimitConfig = parent.rateLimitConfig;
+        retryConfig = parent.retryConfig;
+        callSingleCacheMinutes = parent.callSingleCacheMinutes;
+        callSingleCacheDir = parent.callSingleCacheDir;
+        callonceScope = parent.callonceScope;
         logEnabled = parent.logEnabled;
         showAllSteps = parent.showAllSteps;
     }
@@ -339,6 +356,38 @@ public class HttpConfig {
         this.afterFeature = afterFeature;
     }
 
+    public int getCallParallelism() {
+        return callParallelism;
+    }
+
+    public void setCallParallelism(int callParallelism) {
+        this.callParallelism = callParallelism;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public void setMaxRequestsPerHost(int maxRequestsPerHost) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    public Map<String, RateLimiter> getCallHostLimiters() {
+        return callHostLimiters;
+    }
+
+    public void setCallHostLimiters(Map<String, RateLimiter> callHostLimiters) {
+        this.callHostLimiters = callHostLimiters;
+    }
+
+    public RateLimitConfig getRateLimitConfig() {
+        return rateLimitConfig;
+    }
+
+    public void setRateLimitConfig(RateLimitConfig rateLimitConfig) {
+        this.rateLimitConfig = rateLimitConfig;
+    }
+
     public boolean isLogEnabled() {
         return logEnabled;
     }
@@ -354,5 +403,37 @@ public class HttpConfig {
     public void setShowAllSteps(boolean showAllSteps) {
         this.showAllSteps = showAllSteps;
     }
-    
+
+    public RetryConfig getRetryConfig() {
+        return retryConfig;
+    }
+
+    public void setRetryConfig(RetryConfig retryConfig) {
+        this.retryConfig = retryConfig;
+    }
+
+    public int getCallSingleCacheMinutes() {
+        return callSingleCacheMinutes;
+    }
+
+    public void setCallSingleCacheMinutes(int callSingleCacheMinutes) {
+        this.callSingleCacheMinutes = callSingleCacheMinutes;
+    }
+
+    public String getCallSingleCacheDir() {
+        return callSingleCacheDir;
+    }
+
+    public void setCallSingleCacheDir(String callSingleCacheDir) {
+        this.callSingleCacheDir = callSingleCacheDir;
+    }
+
+    public String getCallonceScope() {
+        return callonceScope;
+    }
+
+    public void setCallonceScope(String callonceScope) {
+        this.callonceScope = callonceScope;
+    }
+
 }
@@ -47,6 +47,30 @@ public class HttpRequestBuilder {
     private String method;
     private String soapAction;
 
+    public HttpRequestBuilder copy() {
+        HttpRequestBuilder copy = new HttpRequestBuilder();
+        copy.url = url;
+        copy.paths = paths == null ? null : new ArrayList(paths);
+        copy.headers = copy(headers);
+        copy.params = copy(params);
+        copy.cookies = cookies == null ? null : new LinkedHashMap(cookies);
+        copy.formFields = copy(formFields);
+        copy.multiPartItems = multiPartItems == null ? null : new ArrayList(multiPartItems);
+        copy.body = body == null ? null : body.copy();
+        copy.method = method;
+        copy.soapAction = soapAction;
+        return copy;
+    }
+
+    private static MultiValuedMap copy(MultiValuedMap map) {
+        if (map == null) {
+            return null;
+        }
+        MultiValuedMap copy = new MultiValuedMap();
+        map.forEach((k, v) -> copy.put(k, new ArrayList(v)));
+        return copy;
+    }
+
     public void setUrl(String url) {
         this.url = url;
     }
@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * immutable, so can be shared by copies of the config, either a single set of
+ * limits (applied to each host separately) or a set of limits for each host
+ * pattern (such as '*.example.com', shared by all the hosts that match), the
+ * first pattern that matches wins
+ *
+ * @author pthomas3
+ */
+public class RateLimitConfig {
+
+    public static class Rule {
+
+        private final String pattern; // null means any host, each host limited separately
+        private final Pattern regex;
+        private final double perSecond;
+        private final int maxInFlight;
+        private final int burst;
+
+        public Rule(String pattern, double perSecond, int maxInFlight, int burst) {
+            this.pattern = pattern;
+            this.regex = pattern == null ? null : toRegex(pattern);
+            this.perSecond = perSecond;
+            this.maxInFlight = maxInFlight;
+            this.burst = burst;
+        }
+
+        public boolean matches(String host) {
+            if (regex == null) {
+                return true;
+            }
+            if (regex.matcher(host).matches()) {
+                return true;
+            }
+            int pos = host.lastIndexOf(':');
+            return pos != -1 && regex.matcher(host.substring(0, pos)).matches();
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public double getPerSecond() {
+            return perSecond;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+    }
+
+    private final List<Rule> rules;
+
+    public RateLimitConfig(List<Rule> rules) {
+        this.rules = Collections.unmodifiableList(rules);
+    }
+
+    public static RateLimitConfig fromMap(Map<String, Object> map) {
+        List<Rule> rules = new ArrayList();
+        if (map.containsKey("perSecond") || map.containsKey("maxInFlight") || map.containsKey("burst")) {
+            rules.add(toRule(null, map));
+        } else {
+            map.forEach((k, v) -> {
+                if (!(v instanceof Map)) {
+                    throw new RuntimeException("rateLimit config for '" + k + "' has to be json: " + v);
+                }
+                rules.add(toRule(k, (Map) v));
+            });
+        }
+        return new RateLimitConfig(rules);
+    }
+
+    private static Rule toRule(String pattern, Map<String, Object> map) {
+        return new Rule(pattern,
+                getNumber(map, "perSecond", 0).doubleValue(),
+                getNumber(map, "maxInFlight", 0).intValue(),
+                getNumber(map, "burst", 1).intValue());
+    }
+
+    private static Number getNumber(Map<String, Object> map, String key, Number defaultValue) {
+        Object o = map.get(key);
+        if (o == null) {
+            return defaultValue;
+        }
+        if (o instanceof Number) {
+            return (Number) o;
+        }
+        try {
+            return Double.valueOf(o.toString());
+        } catch (Exception e) {
+            throw new RuntimeException("rateLimit config value for '" + key + "' is not a number: " + o);
+        }
+    }
+
+    private static Pattern toRegex(String pattern) {
+        StringBuilder sb = new StringBuilder();
+        String[] parts = pattern.split("\\*", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                sb.append(".*");
+            }
+            if (!parts[i].isEmpty()) {
+                sb.append(Pattern.quote(parts[i]));
+            }
+        }
+        return Pattern.compile(sb.toString(), Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * @param url the full url of the request
+     * @return host and port (if any), e.g. 'localhost:8080'
+     */
+    public static String getHost(String url) {
+        int pos = url.indexOf("://");
+        String host = pos == -1 ? url : url.substring(pos + 3);
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                host = host.substring(0, i);
+                break;
+            }
+        }
+        pos = host.lastIndexOf('@'); // user info
+        return pos == -1 ? host : host.substring(pos + 1);
+    }
+
+    /**
+     * @param url the full url of the request
+     * @return the limiter to use, or null if no rule matches
+     */
+    public RateLimiter getLimiter(String url) {
+        String host = getHost(url);
+        for (Rule rule : rules) {
+            if (rule.matches(host)) {
+                String name = rule.pattern == null ? host : rule.pattern;
+                return RateLimiter.get(name, rule.perSecond, rule.maxInFlight, rule.burst);
+            }
+        }
+        return null;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+}
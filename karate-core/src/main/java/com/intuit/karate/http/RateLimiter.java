@@ -0,0 +1,207 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * jvm-wide limit on outgoing http calls, a token bucket for the rate (with
+ * room for a burst after being idle) and a cap on calls in flight, callers
+ * wait their turn in order (fair semaphore and lock) and the time spent
+ * waiting is recorded so that it can be reported in the stats
+ *
+ * @author pthomas3
+ */
+public class RateLimiter {
+
+    // keyed by name and limits, so that features that configure the same limits share
+    private static final Map<String, RateLimiter> LIMITERS = new ConcurrentHashMap();
+
+    private static final long DELAY_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String name;
+    private final Semaphore permits;
+    private final long intervalNanos;
+    private final int burst;
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    // guarded by lock
+    private double storedTokens;
+    private long nextFreeNanos;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private RateLimiter(String name, double perSecond, int maxInFlight, int burst) {
+        this.name = name;
+        this.permits = maxInFlight > 0 ? new Semaphore(maxInFlight, true) : null;
+        this.intervalNanos = perSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / perSecond) : 0;
+        this.burst = Math.max(1, burst);
+        storedTokens = this.burst - 1;
+        nextFreeNanos = System.nanoTime();
+    }
+
+    /**
+     * @param name for the stats, e.g. the host or pattern
+     * @param perSecond zero for no limit on the rate
+     * @param maxInFlight zero for no limit on concurrent calls
+     * @param burst calls that can be made at once after being idle
+     * @return the limiter shared by all threads in this JVM
+     */
+    public static RateLimiter get(String name, double perSecond, int maxInFlight, int burst) {
+        String key = name + "|" + perSecond + "|" + maxInFlight + "|" + burst;
+        return LIMITERS.computeIfAbsent(key, k -> new RateLimiter(name, perSecond, maxInFlight, burst));
+    }
+
+    /**
+     * @return a limiter that is not shared and does not show up in the stats
+     * @see #get(java.lang.String, double, int, int)
+     */
+    public static RateLimiter create(String name, double perSecond, int maxInFlight, int burst) {
+        return new RateLimiter(name, perSecond, maxInFlight, burst);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * blocks until the call can be made, and {@link #release()} has to be
+     * called in a finally block once the call is complete
+     *
+     * @throws InterruptedException
+     */
+    public void acquire() throws InterruptedException {
+        long startTime = System.nanoTime();
+        if (permits != null) {
+            permits.acquire();
+        }
+        if (intervalNanos > 0) {
+            long wait = reserve(System.nanoTime());
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    release();
+                    throw e;
+                }
+            }
+        }
+        long waited = System.nanoTime() - startTime;
+        calls.increment();
+        if (waited > DELAY_THRESHOLD_NANOS) {
+            delayed.increment();
+            waitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+    }
+
+    public void release() {
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    // returns how long to wait for the slot reserved
+    private long reserve(long now) {
+        lock.lock();
+        try {
+            if (now > nextFreeNanos) { // tokens pile up while idle, up to the burst
+                storedTokens = Math.min(burst - 1, storedTokens + (double) (now - nextFreeNanos) / intervalNanos);
+                nextFreeNanos = now;
+            }
+            long wait = nextFreeNanos - now;
+            double fromStore = Math.min(1, storedTokens);
+            storedTokens -= fromStore;
+            nextFreeNanos += (long) ((1 - fromStore) * intervalNanos);
+            return wait;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getDelayed() {
+        return delayed.sum();
+    }
+
+    public long getWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+    }
+
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    private void resetStats() {
+        calls.reset();
+        delayed.reset();
+        waitNanos.reset();
+        maxWaitNanos.set(0);
+    }
+
+    /**
+     * @return for each limiter that was used, the number of calls, how many
+     * had to wait and for how long (total and max, in milliseconds)
+     */
+    public static Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap();
+        LIMITERS.values().forEach(limiter -> {
+            if (limiter.getCalls() == 0) {
+                return;
+            }
+            Map<String, Object> map = stats.get(limiter.name);
+            if (map == null) {
+                map = new LinkedHashMap();
+                map.put("calls", 0L);
+                map.put("delayed", 0L);
+                map.put("waitMillis", 0L);
+                map.put("maxWaitMillis", 0L);
+                stats.put(limiter.name, map);
+            }
+            map.put("calls", (Long) map.get("calls") + limiter.getCalls());
+            map.put("delayed", (Long) map.get("delayed") + limiter.getDelayed());
+            map.put("waitMillis", (Long) map.get("waitMillis") + limiter.getWaitMillis());
+            map.put("maxWaitMillis", Math.max((Long) map.get("maxWaitMillis"), limiter.getMaxWaitMillis()));
+        });
+        return stats;
+    }
+
+    public static void resetAllStats() {
+        LIMITERS.values().forEach(RateLimiter::resetStats);
+    }
+
+}
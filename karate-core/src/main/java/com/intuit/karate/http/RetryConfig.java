@@ -0,0 +1,123 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.http;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * immutable, so can be shared by copies of the config, the wait before each
+ * attempt grows exponentially by the backoff factor, is spread out by the
+ * jitter so that many threads retrying at once don't stay in lock-step, and
+ * is capped at maxInterval
+ *
+ * @author pthomas3
+ */
+public class RetryConfig {
+
+    public static final RetryConfig DEFAULT = new RetryConfig(3, 3000, 1, 0, 0, 0);
+
+    private final int count;
+    private final long interval;
+    private final double backoff;
+    private final double jitter;
+    private final long maxInterval;
+    private final long timeout;
+
+    public RetryConfig(int count, long interval, double backoff, double jitter, long maxInterval, long timeout) {
+        this.count = count;
+        this.interval = interval;
+        this.backoff = backoff;
+        this.jitter = jitter;
+        this.maxInterval = maxInterval;
+        this.timeout = timeout;
+    }
+
+    public static RetryConfig fromMap(Map<String, Object> map) {
+        return new RetryConfig(
+                getNumber(map, "count", DEFAULT.count).intValue(),
+                getNumber(map, "interval", DEFAULT.interval).longValue(),
+                getNumber(map, "backoff", DEFAULT.backoff).doubleValue(),
+                getNumber(map, "jitter", DEFAULT.jitter).doubleValue(),
+                getNumber(map, "maxInterval", DEFAULT.maxInterval).longValue(),
+                getNumber(map, "timeout", DEFAULT.timeout).longValue());
+    }
+
+    private static Number getNumber(Map<String, Object> map, String key, Number defaultValue) {
+        Object o = map.get(key);
+        if (o == null) {
+            return defaultValue;
+        }
+        if (o instanceof Number) {
+            return (Number) o;
+        }
+        try {
+            return Double.valueOf(o.toString());
+        } catch (Exception e) {
+            throw new RuntimeException("retry config value for '" + key + "' is not a number: " + o);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getInterval() {
+        return interval;
+    }
+
+    public double getBackoff() {
+        return backoff;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    public long getMaxInterval() {
+        return maxInterval;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public long getDelay(int attempt) { // attempt is 1 for the wait after the first try
+        double delay = interval * Math.pow(backoff, attempt - 1);
+        if (maxInterval > 0 && delay > maxInterval) {
+            delay = maxInterval;
+        }
+        if (jitter > 0) {
+            delay = delay * (1 - jitter + ThreadLocalRandom.current().nextDouble() * 2 * jitter);
+        }
+        return Math.max(0, Math.round(delay));
+    }
+
+    @Override
+    public String toString() {
+        return "{ count: " + count + ", interval: " + interval + ", backoff: " + backoff
+                + ", jitter: " + jitter + ", maxInterval: " + maxInterval + ", timeout: " + timeout + " }";
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.http;
+
+import com.intuit.karate.StringUtils;
+import java.util.List;
+
+/**
+ * same semantics as HttpUtils.parseUriPattern() but pre-compiled, and
+ * matching does not create any objects, for use on hot paths e.g. gatling
+ * 
+ * @author pthomas3
+ */
+public class UriPattern {
+
+    private final String pattern;
+    private final String[] segments; // null means a {placeholder} that matches anything
+
+    private UriPattern(String pattern) {
+        this.pattern = pattern;
+        List<String> list = StringUtils.split(pattern, '/');
+        segments = new String[list.size()];
+        for (int i = 0; i < segments.length; i++) {
+            String segment = list.get(i);
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                segments[i] = null;
+            } else {
+                segments[i] = segment;
+            }
+        }
+    }
+
+    public static UriPattern compile(String pattern) {
+        return new UriPattern(pattern);
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public boolean matches(String url) {
+        int end = url.indexOf('?');
+        if (end == -1) {
+            end = url.length();
+        }
+        int index = 0;
+        int pos = 0;
+        while (pos < end) {
+            int next = url.indexOf('/', pos);
+            if (next == -1 || next > end) {
+                next = end;
+            }
+            if (next > pos) { // skip empty segments, e.g. leading or trailing slash
+                if (index == segments.length) {
+                    return false;
+                }
+                String segment = segments[index++];
+                if (segment != null) {
+                    int length = next - pos;
+                    if (segment.length() != length || !url.regionMatches(pos, segment, 0, length)) {
+                        return false;
+                    }
+                }
+            }
+            pos = next + 1;
+        }
+        return index == segments.length;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+}
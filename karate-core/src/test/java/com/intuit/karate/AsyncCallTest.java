@@ -0,0 +1,68 @@
+package com.intuit.karate;
+
+import com.intuit.karate.exception.KarateException;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Map;
+import jdk.nashorn.api.scripting.ScriptObjectMirror;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class AsyncCallTest {
+
+    private static Object callAndWait(ScriptContext context) throws Exception {
+        ScriptValue fn = Script.evalJsExpression("function(){ return java.lang.Thread.currentThread().getContextClassLoader() }", context);
+        AsyncCall asyncCall = new AsyncCall(fn.getValue(ScriptObjectMirror.class), null, context);
+        while (!asyncCall.isDone()) { // so that it runs on the pool and not on this thread
+            Thread.sleep(10);
+        }
+        return asyncCall.await();
+    }
+
+    @Test(timeout = 30000)
+    public void testPoolThreadUsesTheCallersContextClassLoader() throws Exception {
+        File dir = new File("target");
+        ScriptContext context = new ScriptContext(ScriptEnv.init("dev", dir), new CallContext(null, false));
+        // start all the pool threads, so that the next call re-uses one
+        int threads = Integer.getInteger(AsyncCall.THREADS_PROPERTY, Math.max(8, Runtime.getRuntime().availableProcessors() * 2));
+        for (int i = 0; i < threads; i++) {
+            callAndWait(context);
+        }
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        ClassLoader classLoader = new URLClassLoader(new URL[0], previous);
+        thread.setContextClassLoader(classLoader);
+        try {
+            context = new ScriptContext(ScriptEnv.init("dev", dir), new CallContext(null, false));
+            assertSame(classLoader, callAndWait(context));
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+        assertSame(previous, callAndWait(context)); // restored after the call
+    }
+
+    @Test
+    public void testCapturedVariablesAreReportedNotLost() {
+        ScriptContext context = new ScriptContext(ScriptEnv.init("dev", new File("target")), new CallContext(null, false));
+        ScriptValue fn = Script.evalJsExpression("(function(){ var factor = 3; return function(x){ return x * factor } })()", context);
+        try {
+            new AsyncCall(fn.getValue(ScriptObjectMirror.class), 2, context).await();
+            fail("expected an error");
+        } catch (KarateException ke) {
+            assertTrue(ke.getMessage(), ke.getMessage().contains(AsyncCall.CAPTURE_HINT));
+        }
+        fn = Script.evalJsExpression("function(arg){ return arg.x * arg.factor }", context);
+        Map<String, Object> arg = new HashMap();
+        arg.put("x", 2);
+        arg.put("factor", 3);
+        Object result = new AsyncCall(fn.getValue(ScriptObjectMirror.class), arg, context).await();
+        assertEquals(6, ((Number) result).intValue());
+    }
+
+}
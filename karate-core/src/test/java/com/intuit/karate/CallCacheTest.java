@@ -0,0 +1,30 @@
+package com.intuit.karate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class CallCacheTest {
+
+    @Test(timeout = 5000) // would wait for ever on the failed call
+    public void testErrorDoesNotPoisonKey() throws Exception {
+        CallCache cache = new CallCache();
+        try {
+            cache.get("foo", () -> {
+                throw new StackOverflowError("first try failed");
+            });
+            fail("expected error");
+        } catch (StackOverflowError e) {
+            assertEquals("first try failed", e.getMessage());
+        }
+        CallResult result = new CallResult(new ScriptValue(1), null);
+        CompletableFuture<CallResult> other = CompletableFuture.supplyAsync(() -> cache.get("foo", () -> result));
+        assertSame(result, other.get(4, TimeUnit.SECONDS));
+    }
+
+}
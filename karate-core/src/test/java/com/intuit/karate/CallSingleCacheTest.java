@@ -0,0 +1,92 @@
+package com.intuit.karate;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class CallSingleCacheTest {
+    
+    private final Logger logger = new Logger();
+    
+    @After
+    public void after() {
+        CallSingleCache.clear();
+    }
+    
+    @Test
+    public void testFailureDoesNotPoisonKey() {
+        try {
+            CallSingleCache.get("foo", 0, logger, () -> {
+                throw new RuntimeException("first try failed");
+            });
+            fail("expected exception");
+        } catch (RuntimeException e) {
+            assertEquals("first try failed", e.getMessage());
+        }
+        assertEquals("bar", CallSingleCache.get("foo", 0, logger, () -> "bar"));
+        assertEquals("bar", CallSingleCache.get("foo", 0, logger, () -> "baz"));
+    }
+    
+    @Test
+    public void testCacheHitHasAllTheFilesReadByTheCall() {
+        File dir = new File("src/test/java/com/intuit/karate/cucumber/impact");
+        ScriptContext first = new ScriptContext(ScriptEnv.init("dev", dir), new CallContext(null, false));
+        first.bindings.bridge.read("impact-data.json"); // already read, before the callSingle
+        first.bindings.bridge.callSingle("impact-single.feature");
+        ScriptContext second = new ScriptContext(ScriptEnv.init("dev", dir), new CallContext(null, false));
+        second.bindings.bridge.callSingle("impact-single.feature"); // cache hit
+        assertTrue(second.env.dependencies.contains(new File(dir, "impact-data.json").getAbsolutePath()));
+    }
+
+    @Test(timeout = 5000) // would wait for ever on the failed call
+    public void testErrorDoesNotPoisonKey() {
+        try {
+            CallSingleCache.get("foo", 0, logger, () -> {
+                throw new StackOverflowError("first try failed");
+            });
+            fail("expected error");
+        } catch (StackOverflowError e) {
+            assertEquals("first try failed", e.getMessage());
+        }
+        assertEquals("bar", CallSingleCache.get("foo", 0, logger, () -> "bar"));
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        assertEquals(1, CallSingleCache.get("foo", 1, logger, () -> counter.incrementAndGet()));
+        Thread.sleep(10);
+        assertEquals(2, CallSingleCache.get("foo", 1, logger, () -> counter.incrementAndGet()));
+    }
+    
+    @Test
+    public void testKeysDoNotBlockEachOther() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread thread = new Thread(() -> CallSingleCache.get("slow", 0, logger, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return "slow";
+        }));
+        thread.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // would wait for the other thread if there was one lock for all keys
+        assertEquals("fast", CallSingleCache.get("fast", 0, logger, () -> "fast"));
+        release.countDown();
+        thread.join();
+        assertEquals("slow", CallSingleCache.get("slow", 0, logger, () -> "other"));
+    }
+    
+}
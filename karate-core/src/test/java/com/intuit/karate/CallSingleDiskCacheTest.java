@@ -0,0 +1,70 @@
+package com.intuit.karate;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class CallSingleDiskCacheTest {
+    
+    private final File dir = new File("target/callsingle-test");
+    private final File featureDir = new File("target/callsingle-test-src");
+    private final AtomicInteger counter = new AtomicInteger();
+    private ScriptContext context;
+    
+    @Before
+    public void before() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        FileUtils.writeToFile(new File(featureDir, "token.js"), "function(){ return { token: 'foo' } }");
+        ScriptEnv env = ScriptEnv.init("dev", featureDir);
+        context = new ScriptContext(env, new CallContext(null, false));
+    }
+    
+    private Object get(Object arg, long ttl) {
+        return CallSingleDiskCache.get(dir, "token.js", arg, ttl, context, () -> {
+            counter.incrementAndGet();
+            return Collections.singletonMap("token", "foo");
+        }).value;
+    }
+    
+    @Test
+    public void testCacheHitAndInvalidation() throws Exception {
+        Match.equals(get(null, 0), "{ token: 'foo' }");
+        assertEquals(1, counter.get());
+        Match.equals(get(null, 0), "{ token: 'foo' }");
+        assertEquals(1, counter.get()); // from disk
+        get(Collections.singletonMap("user", "bar"), 0);
+        assertEquals(2, counter.get()); // different arg
+        get(null, 1);
+        Thread.sleep(10);
+        get(null, 1);
+        assertEquals(4, counter.get()); // expired
+        get(null, 0);
+        assertEquals(4, counter.get());
+        FileUtils.writeToFile(new File(featureDir, "token.js"), "function(){ return { token: 'bar' } }");
+        get(null, 0);
+        assertEquals(5, counter.get()); // file changed
+    }
+    
+    @Test
+    public void testOnlyJsonIsSaved() {
+        CallSingleDiskCache.get(dir, "token.js", null, 0, context, () -> new Object());
+        CallSingleDiskCache.get(dir, "token.js", null, 0, context, () -> {
+            counter.incrementAndGet();
+            return "foo";
+        });
+        assertEquals(1, counter.get());
+    }
+    
+}
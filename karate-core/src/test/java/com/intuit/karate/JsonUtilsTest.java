@@ -4,6 +4,7 @@ import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import org.junit.Test;
@@ -184,6 +185,12 @@ public class JsonUtilsTest {
         doc = JsonUtils.emptyJsonArray(2);
         json = doc.jsonString();
         assertEquals("[{},{}]", json);         
-    }      
+    }
+
+    @Test
+    public void testIsJson() {
+        assertTrue(JsonUtils.isJson(Collections.singletonMap("foo", Collections.singletonList(1))));
+        assertFalse(JsonUtils.isJson(Collections.singletonMap("foo", new Object())));
+    }
 
 }
@@ -0,0 +1,60 @@
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.FileUtils;
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class AdaptiveThreadsTest {
+
+    @Test
+    public void testIncreaseWhileQueued() {
+        AdaptiveThreads threads = new AdaptiveThreads(2, 3);
+        assertEquals(3, threads.adjust(0.5, 1, -1, true));
+        threads = new AdaptiveThreads(2, 2);
+        assertEquals(2, threads.adjust(0.5, 1, -1, true)); // max
+        threads = new AdaptiveThreads(2, 4);
+        assertEquals(2, threads.adjust(0.5, 1, -1, false)); // nothing waiting
+    }
+
+    @Test
+    public void testDecreaseOnCpu() {
+        AdaptiveThreads threads = new AdaptiveThreads(1, 20);
+        assertEquals(1, threads.adjust(0.95, 1, -1, true));
+        threads = new AdaptiveThreads(8, 20).maxCpu(0.8);
+        assertEquals(8, threads.adjust(0.85, 1, -1, true)); // never below min
+    }
+
+    @Test
+    public void testDecreaseOnLatency() {
+        AdaptiveThreads threads = new AdaptiveThreads(1, 20);
+        assertEquals(2, threads.adjust(-1, 1, 100, true)); // baseline of 100
+        assertEquals(2, threads.adjust(-1, 1, 100, false));
+        assertEquals(1, threads.adjust(-1, 1, 250, true)); // 2.5 x baseline
+    }
+
+    @Test
+    public void testRun() {
+        File dir = new File("target/adaptive-features");
+        for (int i = 1; i <= 6; i++) {
+            String text = "Feature: sleeps\n\nScenario: sleeps " + i + "\n* eval java.lang.Thread.sleep(300)\n" + RunCounter.STEP + "\n";
+            FileUtils.writeToFile(new File(dir, "adaptive-" + i + ".feature"), text);
+        }
+        RunCounter.reset();
+        AdaptiveThreads threads = new AdaptiveThreads(1, 4).interval(100).maxCpu(1.1); // ignore cpu
+        KarateStats stats = CucumberRunner.parallel(null, Collections.singletonList(dir.getPath()), threads, "target/adaptive");
+        assertEquals(6, RunCounter.get());
+        assertEquals(6, stats.getTestCount());
+        assertEquals(0, stats.getFailCount());
+        Map<Long, Integer> history = stats.getThreadHistory();
+        assertEquals(1, (int) history.get(0L));
+        assertTrue(history.toString(), history.values().stream().anyMatch(n -> n > 1));
+    }
+
+}
@@ -24,9 +24,13 @@
 package com.intuit.karate.cucumber;
 
 import com.intuit.karate.FileUtils;
+import com.intuit.karate.JsonUtils;
+import com.intuit.karate.Match;
+import com.jayway.jsonpath.DocumentContext;
 import cucumber.api.CucumberOptions;
 import java.io.File;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -42,6 +46,8 @@ public class CucumberRunnerTest {
     
     private static final Logger logger = LoggerFactory.getLogger(CucumberRunnerTest.class);
     
+    public static final AtomicInteger BACKGROUND_COUNTER = new AtomicInteger();
+    
     private boolean contains(String reportPath, String textToFind) {
         String contents = FileUtils.toString(new File(reportPath));
         return contents.contains(textToFind);
@@ -72,6 +78,79 @@ public class CucumberRunnerTest {
         assertTrue(contains(reportPath, "When def a = 55"));
     }  
     
+    @Test 
+    public void testJunitAndJsonReports() throws Exception {
+        String reportPath = "target/multi-scenario.xml";
+        File file = new File("src/test/java/com/intuit/karate/cucumber/multi-scenario.feature");
+        KarateJunitAndJsonReporter reporter = run(file, reportPath);
+        assertEquals(2, reporter.getJunitFormatter().getTestCount());
+        assertTrue(contains(reportPath, "tests=\"2\" failures=\"0\" skipped=\"0\""));
+        DocumentContext doc = JsonUtils.toJsonDoc(FileUtils.toString(new File("target/multi-scenario.json")));
+        Match.equals(doc.read("$[0].elements[*].type"), "['background', 'scenario', 'background', 'scenario']");
+        Match.equals(doc.read("$[0].elements[*].name"), "['', 'first', '', 'second']");
+    }
+    
+    @Test 
+    public void testCallerParallel() throws Exception {
+        String reportPath = "target/caller-parallel.xml";
+        File file = new File("src/test/java/com/intuit/karate/cucumber/caller-parallel.feature");
+        KarateJunitAndJsonReporter reporter = run(file, reportPath);
+        KarateJunitFormatter formatter = reporter.getJunitFormatter();
+        assertEquals(2, formatter.getTestCount());
+        assertEquals(1, formatter.getFailCount());
+        String contents = FileUtils.toString(new File(reportPath));
+        // called steps are reported in input order
+        int prev = -1;
+        for (int i = 0; i < 5; i++) {
+            int pos = contents.indexOf("call[" + i + "] [called in parallel]");
+            assertTrue(pos > prev);
+            prev = pos;
+        }
+        assertTrue(contents.contains("feature call (loop) failed at index: 1"));
+        assertFalse(contents.contains("feature call (loop) failed at index: 2"));
+    }
+    
+    @Test
+    public void testCallerAsync() throws Exception {
+        String reportPath = "target/caller-async.xml";
+        File file = new File("src/test/java/com/intuit/karate/cucumber/caller-async.feature");
+        KarateJunitAndJsonReporter reporter = run(file, reportPath);
+        KarateJunitFormatter formatter = reporter.getJunitFormatter();
+        assertEquals(3, formatter.getTestCount());
+        assertEquals(1, formatter.getFailCount());
+        String contents = FileUtils.toString(new File(reportPath));
+        assertTrue(contents.contains("callAsync ["));
+        assertTrue(contents.contains("] js function"));
+        assertTrue(contents.contains("callAsync failed: called.feature"));
+        assertTrue(contents.contains("callAsync failed for 1 of 2 calls"));
+    }
+    
+    @Test
+    public void testRetry() throws Exception {
+        String reportPath = "target/retry.xml";
+        File file = new File("src/test/java/com/intuit/karate/cucumber/retry.feature");
+        KarateJunitAndJsonReporter reporter = run(file, reportPath);
+        KarateJunitFormatter formatter = reporter.getJunitFormatter();
+        assertEquals(2, formatter.getTestCount());
+        assertEquals(1, formatter.getFailCount());
+        String contents = FileUtils.toString(new File(reportPath));
+        assertTrue(contents.contains("karate.retry() [attempts: 3"));
+        assertTrue(contents.contains("too many retry attempts: 2"));
+    }
+    
+    @Test
+    public void testBackgroundOnce() throws Exception {
+        String reportPath = "target/background-once.xml";
+        File file = new File("src/test/java/com/intuit/karate/cucumber/background-once.feature");
+        KarateJunitAndJsonReporter reporter = run(file, reportPath);
+        KarateJunitFormatter formatter = reporter.getJunitFormatter();
+        assertEquals(2, formatter.getTestCount());
+        assertEquals(0, formatter.getFailCount());
+        assertEquals(1, BACKGROUND_COUNTER.get());
+        String json = FileUtils.toString(new File("target/background-once.json"));
+        assertEquals(1, json.split("\"type\":\"background\"", -1).length - 1);
+    }
+    
     @Test 
     public void testParallel() {
         KarateStats stats = CucumberRunner.parallel(getClass(), 1);
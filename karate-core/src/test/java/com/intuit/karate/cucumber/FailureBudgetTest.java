@@ -0,0 +1,52 @@
+package com.intuit.karate.cucumber;
+
+import java.io.File;
+import java.util.Collections;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class FailureBudgetTest {
+
+    private static KarateStats run(String reportDir, FailureBudget budget) {
+        new File(reportDir, FeatureTimings.FILE_NAME).delete(); // so that the biggest feature is first
+        RunCounter.reset();
+        return CucumberRunner.parallel(null, Collections.singletonList("src/test/java/com/intuit/karate/cucumber/budget"), 1, reportDir, budget);
+    }
+
+    @Test
+    public void testFailFast() {
+        FailureBudget budget = new FailureBudget().maxFailures(1);
+        KarateStats stats = run("target/budget-fail-fast", budget);
+        assertTrue(budget.isExceeded());
+        assertEquals(1, RunCounter.get()); // only the first scenario ran
+        assertEquals(4, stats.getTestCount());
+        assertEquals(1, stats.getFailCount());
+        assertEquals(3, stats.getSkipCount());
+    }
+
+    @Test
+    public void testFailOnTag() {
+        FailureBudget budget = new FailureBudget().failOnTag("critical");
+        KarateStats stats = run("target/budget-tag", budget);
+        assertTrue(budget.getExceeded().contains("@critical"));
+        assertEquals(3, RunCounter.get());
+        assertEquals(4, stats.getTestCount());
+        assertEquals(2, stats.getFailCount());
+        assertEquals(1, stats.getSkipCount());
+    }
+
+    @Test
+    public void testNotExceeded() {
+        FailureBudget budget = new FailureBudget().maxFailPercent(75);
+        KarateStats stats = run("target/budget-percent", budget);
+        assertFalse(budget.isExceeded());
+        assertEquals(4, RunCounter.get());
+        assertEquals(2, stats.getFailCount());
+        assertEquals(0, stats.getSkipCount());
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.FileUtils;
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class FeatureDependenciesTest {
+
+    private static final String DIR = "target/impact";
+    private static final String REPORT_DIR = "target/impact-reports";
+
+    private static KarateStats run() {
+        List<String> tags = Collections.singletonList("@impact");
+        KarateStats stats = CucumberRunner.parallelImpacted(tags, Collections.singletonList(DIR), 2, REPORT_DIR);
+        // results of features that were not run are still part of the totals
+        assertEquals(3, stats.getFeatureCount());
+        assertEquals(3, stats.getTestCount());
+        assertEquals(1, stats.getFailCount());
+        return stats;
+    }
+
+    private static void append(String name, String text) {
+        File file = new File(DIR, name);
+        FileUtils.writeToFile(file, FileUtils.toString(file) + text);
+    }
+
+    @Test
+    public void testOnlyImpactedFeaturesAreRun() {
+        new File(REPORT_DIR, FeatureDependencies.FILE_NAME).delete();
+        for (File file : new File("src/test/java/com/intuit/karate/cucumber/impact").listFiles()) {
+            FileUtils.copy(file, new File(DIR, file.getName()));
+        }
+        RunCounter.reset();
+        run(); // no history, everything runs
+        assertEquals(3, RunCounter.get());
+        String json = FileUtils.toString(new File(REPORT_DIR, FeatureDependencies.FILE_NAME));
+        assertTrue(json.contains("impact-data.json"));
+        assertTrue(json.contains("impact-called.feature"));
+        FeatureDependencies dependencies = new FeatureDependencies(REPORT_DIR);
+        File data = new File(DIR, "impact-data.json").getAbsoluteFile();
+        assertEquals(Collections.singleton(DIR + File.separator + "impact-1.feature"), dependencies.getAffected(Collections.singleton(data)));
+        run(); // nothing changed, only the failed feature runs
+        assertEquals(4, RunCounter.get());
+        append("impact-called.feature", "* def extra = 1\n");
+        run(); // the caller of the changed feature, and the failed one
+        assertEquals(6, RunCounter.get());
+        append("impact-data.json", " ");
+        run(); // the reader of the changed json, and the failed one
+        assertEquals(8, RunCounter.get());
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.FileUtils;
+import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.model.CucumberScenarioOutline;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class FeatureIndexTest {
+
+    private static final File DIR = new File("target/feature-index");
+    private static final File INDEX = new File("target/feature-index.json");
+
+    private static final String FOO = "@foo\nFeature:\n\nScenario: one\n* def a = 1\n";
+    private static final String BAR = "Feature:\n\n@bar\nScenario: two\n* def a = 1\n\nScenario: three\n* def a = 1\n";
+    private static final String BAZ = "Feature:\n\nScenario Outline: four\n* def a = <a>\n\n"
+            + "Examples:\n| a |\n| 1 |\n\n@baz\nExamples:\n| a |\n| 2 |\n";
+
+    @Before
+    public void before() {
+        INDEX.delete();
+        FileUtils.writeToFile(new File(DIR, "foo.feature"), FOO);
+        FileUtils.writeToFile(new File(DIR, "bar.feature"), BAR);
+        FileUtils.writeToFile(new File(DIR, "baz.feature"), BAZ);
+        System.setProperty(FeatureIndex.FILE_PROPERTY, INDEX.getPath());
+    }
+
+    @After
+    public void after() {
+        System.clearProperty(FeatureIndex.FILE_PROPERTY);
+    }
+
+    private static List<CucumberFeature> load(String... tags) {
+        return new KarateRuntimeOptions(Arrays.asList(tags), Collections.singletonList(DIR.getPath())).loadFeatures();
+    }
+
+    private static List<String> names(List<CucumberFeature> features) {
+        return features.stream().map(f -> new File(f.getPath()).getName()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSameAsCucumber() {
+        for (String tag : new String[]{"@foo", "~@foo", "@bar", "~@bar", "@baz", "@foo,@baz", "@none"}) {
+            KarateRuntimeOptions kro = new KarateRuntimeOptions(Collections.singletonList(tag), Collections.singletonList(DIR.getPath()));
+            List<CucumberFeature> expected = kro.getRuntimeOptions().cucumberFeatures(kro.getResourceLoader());
+            assertEquals(tag, names(expected), names(load(tag)));
+            assertEquals(tag, names(expected), names(load(tag))); // from the index
+        }
+    }
+
+    @Test
+    public void testFilteredFeaturesAreNotParsed() {
+        assertEquals(Collections.singletonList("foo.feature"), names(load("@foo")));
+        String json = FileUtils.toString(INDEX);
+        assertTrue(json.contains("bar.feature"));
+        assertTrue(json.contains("baz.feature"));
+        // same size and time, so the index is trusted and the broken file is never parsed
+        File bar = new File(DIR, "bar.feature");
+        long lastModified = bar.lastModified();
+        FileUtils.writeToFile(bar, BAR.replace("Feature:", "Feature;"));
+        bar.setLastModified(lastModified);
+        assertEquals(Collections.singletonList("foo.feature"), names(load("@foo")));
+        // the outline is parsed with only the examples that match
+        List<CucumberFeature> features = load("@baz");
+        assertEquals(Collections.singletonList("baz.feature"), names(features));
+        CucumberScenarioOutline outline = (CucumberScenarioOutline) features.get(0).getFeatureElements().get(0);
+        assertEquals(1, outline.getCucumberExamplesList().size());
+        // a change in size means the file is indexed again
+        FileUtils.writeToFile(bar, BAR.replace("@bar", "@foo"));
+        assertEquals(Arrays.asList("bar.feature", "foo.feature"), names(load("@foo")));
+    }
+
+}
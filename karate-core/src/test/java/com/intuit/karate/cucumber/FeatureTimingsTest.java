@@ -0,0 +1,55 @@
+package com.intuit.karate.cucumber;
+
+import cucumber.runtime.model.CucumberFeature;
+import java.io.File;
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class FeatureTimingsTest {
+    
+    private static CucumberFeature feature(String name) {
+        File file = new File("src/test/java/com/intuit/karate/cucumber/" + name);
+        return new KarateFeature(file).getFeature();
+    }
+    
+    @Test
+    public void testMakespan() {
+        assertEquals(0, FeatureTimings.getMakespan(Arrays.asList(), 2));
+        assertEquals(10, FeatureTimings.getMakespan(Arrays.asList(10L, 5L, 5L), 2));
+        // shortest first is worse
+        assertEquals(15, FeatureTimings.getMakespan(Arrays.asList(5L, 5L, 10L), 2));
+        assertEquals(20, FeatureTimings.getMakespan(Arrays.asList(5L, 5L, 10L), 1));
+    }
+    
+    @Test
+    public void testStepCount() {
+        assertEquals(8, FeatureTimings.getStepCount(feature("outline.feature")));
+        assertEquals(13, FeatureTimings.getStepCount(feature("background-once.feature"))); // 3 background steps per scenario
+    }
+    
+    @Test
+    public void testRecordAndPredict() {
+        String dir = "target/timings-test";
+        new File(dir, FeatureTimings.FILE_NAME).delete();
+        CucumberFeature outline = feature("outline.feature");
+        CucumberFeature scenario = feature("scenario.feature");
+        FeatureTimings timings = new FeatureTimings(dir);
+        assertFalse(timings.isKnown(outline));
+        assertEquals(800, timings.predict(outline)); // default per step
+        timings.record(outline, 4000);
+        timings.save();
+        timings = new FeatureTimings(dir);
+        assertTrue(timings.isKnown(outline));
+        assertFalse(timings.isKnown(scenario));
+        assertEquals(4000, timings.predict(outline));
+        // no history, estimated from the average time per step seen so far
+        int steps = FeatureTimings.getStepCount(scenario);
+        assertEquals(steps * 500, timings.predict(scenario));
+    }
+    
+}
@@ -0,0 +1,30 @@
+package com.intuit.karate.cucumber;
+
+import java.io.File;
+import java.util.Collections;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class ForkedRunnerTest {
+    
+    @Test
+    public void testForkedWithCrash() {
+        new File("target/fork-crash.marker").delete();
+        String reportDir = "target/fork";
+        KarateStats stats = CucumberRunner.parallelForked(null, 
+                Collections.singletonList("src/test/java/com/intuit/karate/cucumber/fork"), 2, reportDir);
+        assertEquals(3, stats.getFeatureCount());
+        assertEquals(4, stats.getTestCount());
+        assertEquals(1, stats.getFailCount());
+        assertTrue(stats.getFailedMap().keySet().iterator().next().endsWith("fork-2"));
+        // the crashed feature was re-run and its report written by the second JVM
+        String prefix = reportDir + "/TEST-";
+        assertTrue(new File(prefix + "fork-crash.xml").exists());
+        assertTrue(new File(prefix + "fork-1.json").exists());
+    }
+    
+}
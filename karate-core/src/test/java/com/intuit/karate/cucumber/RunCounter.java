@@ -0,0 +1,33 @@
+package com.intuit.karate.cucumber;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * shared by the test features that need to count the scenarios that actually
+ * ran (as opposed to being skipped or abandoned), see {@link #STEP}
+ *
+ * @author pthomas3
+ */
+public class RunCounter {
+
+    public static final String STEP = "* eval Java.type('" + RunCounter.class.getName() + "').increment()";
+
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    private RunCounter() {
+        // only static methods
+    }
+
+    public static int increment() {
+        return COUNT.incrementAndGet();
+    }
+
+    public static void reset() {
+        COUNT.set(0);
+    }
+
+    public static int get() {
+        return COUNT.get();
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.JsonUtils;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class RunMetricsTest {
+
+    @Test
+    public void testHistogramPercentiles() {
+        RunMetrics.Histogram histogram = new RunMetrics.Histogram();
+        assertEquals(0, histogram.getPercentile(50));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.add(i);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 0.01);
+        assertEquals(500, histogram.getPercentile(50), 500 * 0.07);
+        assertEquals(950, histogram.getPercentile(95), 950 * 0.07);
+        assertEquals(990, histogram.getPercentile(99), 990 * 0.07);
+        // small values are exact
+        RunMetrics.Histogram small = new RunMetrics.Histogram();
+        small.add(3);
+        assertEquals(3, small.getPercentile(99));
+    }
+
+    @Test
+    public void testEndpoint() throws Exception {
+        System.setProperty(RunMetrics.METRICS_PORT, "0");
+        RunMetrics metrics = RunMetrics.start(2);
+        try {
+            assertSame(metrics, RunMetrics.current());
+            metrics.featureStarted();
+            metrics.scenarioDone(false);
+            metrics.scenarioDone(true);
+            metrics.httpCall(20, false);
+            URL url = new URL("http://127.0.0.1:" + metrics.getPort());
+            HttpURLConnection con = (HttpURLConnection) url.openConnection();
+            assertEquals(200, con.getResponseCode());
+            String json;
+            try (InputStream is = con.getInputStream()) {
+                json = FileUtils.toString(is);
+            }
+            Map<String, Object> map = JsonUtils.toJsonDoc(json).read("$");
+            assertEquals(2, map.get("features"));
+            assertEquals(1, map.get("activeThreads"));
+            assertEquals(2, map.get("scenarios"));
+            assertEquals(1, map.get("scenariosFailed"));
+            Map<String, Object> http = (Map) map.get("http");
+            assertEquals(1, http.get("calls"));
+            assertEquals(20, http.get("p99"));
+        } finally {
+            metrics.stop();
+            System.clearProperty(RunMetrics.METRICS_PORT);
+        }
+        assertNull(RunMetrics.current());
+    }
+
+}
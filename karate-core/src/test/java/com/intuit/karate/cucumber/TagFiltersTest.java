@@ -0,0 +1,49 @@
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.filter.TagFilter;
+import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.model.CucumberTagStatement;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class TagFiltersTest {
+
+    public static class ExtraTagFilter implements TagFilter {
+
+        @Override
+        public boolean filter(CucumberFeature feature, CucumberTagStatement cucumberTagStatement) {
+            return false;
+        }
+
+    }
+
+    private static boolean hasExtra() {
+        return CucumberRunner.getTagFilters().stream().anyMatch(f -> f instanceof ExtraTagFilter);
+    }
+
+    @Test
+    public void testTagFiltersAreLoadedPerClassLoader() throws Exception {
+        File dir = new File("target/tag-filters");
+        FileUtils.writeToFile(new File(dir, "META-INF/services/" + TagFilter.class.getName()), ExtraTagFilter.class.getName());
+        Thread thread = Thread.currentThread();
+        ClassLoader prev = thread.getContextClassLoader();
+        assertFalse(hasExtra());
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{dir.toURI().toURL()}, prev)) {
+            thread.setContextClassLoader(classLoader);
+            assertTrue(hasExtra());
+            CucumberRunner.releaseTagFilters(classLoader);
+        } finally {
+            thread.setContextClassLoader(prev);
+        }
+        assertFalse(hasExtra());
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.intuit.karate.cucumber;
+
+import java.util.Collections;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class WatchdogTest {
+
+    private static KarateStats run(String name) {
+        RunCounter.reset();
+        String path = "src/test/java/com/intuit/karate/cucumber/watchdog/" + name;
+        return CucumberRunner.parallel(null, Collections.singletonList(path), 1, "target/watchdog-" + name);
+    }
+
+    @Test
+    public void testScenarioTimeout() {
+        long startTime = System.currentTimeMillis();
+        KarateStats stats = run("scenario");
+        assertTrue(System.currentTimeMillis() - startTime < 8000);
+        assertEquals(1, RunCounter.get()); // the next scenario still runs
+        assertEquals(2, stats.getTestCount());
+        assertEquals(1, stats.getFailCount());
+        String message = stats.getFailedMap().values().iterator().next();
+        assertTrue(message, message.contains("scenario timed out after 1000 ms"));
+        assertTrue(message, message.contains("step: line 6: * eval java.lang.Thread.sleep(10000)"));
+        assertTrue(message, message.contains("java.lang.Thread.sleep"));
+    }
+
+    @Test
+    public void testThreadAbandonedAfterGracePeriod() {
+        System.setProperty(Watchdog.GRACE_PERIOD, "1");
+        try {
+            long startTime = System.currentTimeMillis();
+            KarateStats stats = run("loop");
+            // the loop is still going, but the other feature ran on a new thread
+            assertTrue(System.currentTimeMillis() - startTime < 5000);
+            assertEquals(1, RunCounter.get());
+            assertEquals(2, stats.getTestCount());
+            assertEquals(1, stats.getFailCount());
+            String message = stats.getFailedMap().values().iterator().next();
+            assertTrue(message, message.contains("scenario timed out after 1000 ms"));
+            assertTrue(message, message.contains("step: line 7: * eval while"));
+        } finally {
+            System.clearProperty(Watchdog.GRACE_PERIOD);
+        }
+    }
+
+    @Test
+    public void testFeatureTimeout() {
+        System.setProperty(Watchdog.FEATURE_TIMEOUT, "3");
+        try {
+            KarateStats stats = run("feature");
+            assertEquals(1, RunCounter.get());
+            assertEquals(3, stats.getTestCount());
+            assertEquals(1, stats.getFailCount());
+            assertEquals(1, stats.getSkipCount());
+            String message = stats.getFailedMap().values().iterator().next();
+            assertTrue(message, message.contains("feature timed out after 3000 ms"));
+        } finally {
+            System.clearProperty(Watchdog.FEATURE_TIMEOUT);
+        }
+    }
+
+}
@@ -0,0 +1,18 @@
+@ignore @backgroundOnce
+Feature: background executed once per feature
+
+Background:
+* def counter = Java.type('com.intuit.karate.cucumber.CucumberRunnerTest').BACKGROUND_COUNTER
+* def runs = counter.incrementAndGet()
+* def cat = { name: 'Billie', kittens: [] }
+
+Scenario: first scenario sees the background
+* match runs == 1
+* set cat.name = 'Bob'
+* set cat.kittens[0] = { name: 'Wild' }
+* def extra = 'first'
+
+Scenario: second scenario starts from a fresh clone
+* match runs == 1
+* match cat == { name: 'Billie', kittens: [] }
+* assert typeof extra == 'undefined'
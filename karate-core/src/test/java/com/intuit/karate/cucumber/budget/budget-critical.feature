@@ -0,0 +1,8 @@
+@ignore
+Feature: critical
+
+@critical
+Scenario: fails
+* eval Java.type('com.intuit.karate.cucumber.RunCounter').increment()
+* def a = 1
+* match a == 2
@@ -0,0 +1,12 @@
+@ignore
+Feature: fails first
+
+Scenario: fails
+* eval Java.type('com.intuit.karate.cucumber.RunCounter').increment()
+* def a = 1
+* def b = 2
+* def c = 3
+* match a == 2
+
+Scenario: runs unless the budget is exceeded
+* eval Java.type('com.intuit.karate.cucumber.RunCounter').increment()
@@ -0,0 +1,3 @@
+function(x) {
+  return x * 2;
+}
@@ -0,0 +1,7 @@
+@ignore
+Feature: called in parallel
+
+Scenario:
+* print 'input:', input
+* def output = input * 2
+* def thread = java.lang.Thread.currentThread().getName()
@@ -0,0 +1,30 @@
+@ignore
+Feature:
+
+Scenario: async calls
+* def foo = 'bar'
+* def first = karate.callAsync('called-parallel.feature', { input: 1 })
+* def second = karate.callAsync('called-parallel.feature', { input: 2 })
+* def fun = karate.callAsync('called-async.js', 3)
+* def foo = 'baz'
+* def result = karate.await(first)
+* match result.output == 2
+* match result.foo == 'bar'
+* match result.thread == '#regex karate-async-.+'
+* def results = karate.awaitAll()
+* match results[0].output == 4
+* match results[1] == 6
+
+Scenario: async js function
+* def factor = 10
+* def fn = function(x){ return { value: x * factor } }
+* def first = karate.callAsync(fn, 2)
+* def factor = 100
+* def second = karate.callAsync(fn, 3)
+* def results = karate.awaitAll()
+* match results[*].value == [20, 300]
+
+Scenario: async call with failure
+* def first = karate.callAsync('called.feature', { input: 4 })
+* def second = karate.callAsync('called-parallel.feature', { input: 5 })
+* def results = karate.awaitAll()
@@ -0,0 +1,19 @@
+@ignore
+Feature:
+
+Scenario: parallel call loop
+* configure callParallelism = 3
+* table data
+    | input |
+    | 1     |
+    | 2     |
+    | 3     |
+    | 4     |
+    | 5     |
+* def result = call read('called-parallel.feature') data
+* match result[*].output == [2, 4, 6, 8, 10]
+* match each result contains { thread: '#regex karate-call-.+' }
+
+Scenario: parallel call loop with failure
+* configure callParallelism = { threads: 3, perHost: 2 }
+* def result = call read('called.feature') [{ input: 1 }, { input: 4 }, { input: 5 }]
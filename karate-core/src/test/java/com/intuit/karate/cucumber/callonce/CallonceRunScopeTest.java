@@ -0,0 +1,28 @@
+package com.intuit.karate.cucumber.callonce;
+
+import com.intuit.karate.cucumber.CucumberRunner;
+import com.intuit.karate.cucumber.KarateStats;
+import cucumber.api.CucumberOptions;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+@CucumberOptions(tags = "~@ignore")
+public class CallonceRunScopeTest {
+    
+    public static final AtomicInteger COUNTER = new AtomicInteger();
+    
+    @Test
+    public void testCallonceSharedAcrossFeatures() {
+        COUNTER.set(0);
+        KarateStats stats = CucumberRunner.parallel(getClass(), 3, "target/callonce-run");
+        assertEquals(0, stats.getFailCount());
+        assertEquals(6, stats.getTestCount());
+        assertEquals(1, COUNTER.get());
+    }
+    
+}
@@ -0,0 +1,12 @@
+Feature: callonce with run scope 2
+
+Background:
+* configure callonceScope = 'run'
+* def result = callonce read('callonce-setup.feature')
+
+Scenario: first
+* match result.value == 'foo'
+
+Scenario: second
+* match result.value == 'foo'
+* set result.value = 'changed'
@@ -0,0 +1,6 @@
+@ignore
+Feature: setup that should run only once for the whole run
+
+Scenario:
+* def count = Java.type('com.intuit.karate.cucumber.callonce.CallonceRunScopeTest').COUNTER.incrementAndGet()
+* def value = 'foo'
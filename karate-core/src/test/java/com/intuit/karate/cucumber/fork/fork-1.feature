@@ -0,0 +1,10 @@
+@ignore
+Feature: forked feature one
+
+Scenario: first
+* def a = 1
+* match a == 1
+
+Scenario: second
+* def b = { foo: 'bar' }
+* match b.foo == 'bar'
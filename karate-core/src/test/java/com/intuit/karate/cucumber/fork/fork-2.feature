@@ -0,0 +1,6 @@
+@ignore
+Feature: forked feature two
+
+Scenario: fails
+* def a = 1
+* match a == 2
@@ -0,0 +1,8 @@
+@ignore
+Feature: kills the worker JVM the first time it runs
+
+Scenario: crash once
+* def File = Java.type('java.io.File')
+* def marker = new File('target/fork-crash.marker')
+* eval if (!marker.exists()) { marker.createNewFile(); java.lang.System.exit(1) }
+* assert marker.exists()
@@ -0,0 +1,7 @@
+@ignore @impact
+Feature: reads a json file
+
+Scenario: read
+* eval Java.type('com.intuit.karate.cucumber.RunCounter').increment()
+* def data = read('impact-data.json')
+* match data.name == 'foo'
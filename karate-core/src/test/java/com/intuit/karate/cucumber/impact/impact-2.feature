@@ -0,0 +1,7 @@
+@ignore @impact
+Feature: calls another feature
+
+Scenario: call
+* eval Java.type('com.intuit.karate.cucumber.RunCounter').increment()
+* def result = call read('impact-called.feature')
+* match result.called == true
@@ -0,0 +1,7 @@
+@ignore @impact
+Feature: fails
+
+Scenario: fail
+* eval Java.type('com.intuit.karate.cucumber.RunCounter').increment()
+* def a = 1
+* match a == 2
@@ -0,0 +1,5 @@
+@ignore
+Feature: called
+
+Scenario: called
+* def called = true
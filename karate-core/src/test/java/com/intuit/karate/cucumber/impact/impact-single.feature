@@ -0,0 +1,5 @@
+@ignore
+Feature: called via karate.callSingle()
+
+Scenario: read
+* def data = read('impact-data.json')
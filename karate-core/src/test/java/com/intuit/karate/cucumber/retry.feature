@@ -0,0 +1,13 @@
+@ignore
+Feature:
+
+Scenario: retry until condition is satisfied
+* configure retry = { count: 5, interval: 10, backoff: 2, jitter: 0.5 }
+* def counter = new java.util.concurrent.atomic.AtomicInteger()
+* def fun = function(){ return counter.incrementAndGet() }
+* def result = karate.retry(fun, function(x){ return x == 3 })
+* match result == 3
+
+Scenario: retry attempts exhausted
+* configure retry = { count: 2, interval: 10 }
+* def result = karate.retry(function(){ return 1 }, function(x){ return x == 2 })
@@ -0,0 +1,12 @@
+@ignore
+Feature: feature timeout
+
+Scenario: first
+* eval Java.type('com.intuit.karate.cucumber.RunCounter').increment()
+
+Scenario: second
+* eval java.lang.Thread.sleep(10000)
+* eval Java.type('com.intuit.karate.cucumber.RunCounter').increment()
+
+Scenario: third
+* eval Java.type('com.intuit.karate.cucumber.RunCounter').increment()
@@ -0,0 +1,8 @@
+@ignore
+Feature: scenario timeout ignoring the interrupt
+
+@timeout=1
+Scenario: loops
+* def end = java.lang.System.currentTimeMillis() + 6000
+* eval while (java.lang.System.currentTimeMillis() < end) { }
+* eval Java.type('com.intuit.karate.cucumber.RunCounter').increment()
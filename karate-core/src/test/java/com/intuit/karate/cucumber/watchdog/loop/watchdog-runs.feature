@@ -0,0 +1,5 @@
+@ignore
+Feature: runs on a new thread when the other one is abandoned
+
+Scenario: runs
+* eval Java.type('com.intuit.karate.cucumber.RunCounter').increment()
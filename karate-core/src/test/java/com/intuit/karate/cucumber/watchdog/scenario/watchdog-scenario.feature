@@ -0,0 +1,10 @@
+@ignore
+Feature: scenario timeout
+
+@timeout=1
+Scenario: hangs
+* eval java.lang.Thread.sleep(10000)
+* eval Java.type('com.intuit.karate.cucumber.RunCounter').increment()
+
+Scenario: runs
+* eval Java.type('com.intuit.karate.cucumber.RunCounter').increment()
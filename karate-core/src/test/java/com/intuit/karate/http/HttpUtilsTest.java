@@ -54,6 +54,19 @@ public class HttpUtilsTest {
         Match.equals(map, "{ path: 'cats', id: '1' }");        
     }
     
+    @Test
+    public void testCompiledUriPatterns() {
+        assertTrue(UriPattern.compile("/cats/{id}").matches("/cats/1"));
+        assertTrue(UriPattern.compile("/cats/{id}/").matches("/cats/1")); // trailing slash
+        assertTrue(UriPattern.compile("/cats/{id}").matches("/cats/1/")); // trailing slash
+        assertTrue(UriPattern.compile("/cats/{id}").matches("/cats/1?foo=bar/baz"));
+        assertFalse(UriPattern.compile("/cats/{id}").matches("/foo/bar"));
+        assertFalse(UriPattern.compile("/cats/{id}").matches("/catsx/1"));
+        assertFalse(UriPattern.compile("/cats").matches("/cats/1")); // exact match
+        assertFalse(UriPattern.compile("/cats/{id}").matches("/cats"));
+        assertTrue(UriPattern.compile("/{path}/{id}").matches("/cats/1"));
+    }
+    
     @Test
     public void testParseCookieString() {
         String header = "Set-Cookie: foo=\"bar\";Version=1";
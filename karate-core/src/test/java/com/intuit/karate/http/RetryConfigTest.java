@@ -0,0 +1,40 @@
+package com.intuit.karate.http;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class RetryConfigTest {
+    
+    @Test
+    public void testDelay() {
+        Map<String, Object> map = new HashMap();
+        map.put("interval", 100);
+        map.put("backoff", 2);
+        map.put("maxInterval", 500);
+        RetryConfig config = RetryConfig.fromMap(map);
+        assertEquals(3, config.getCount()); // default
+        assertEquals(100, config.getDelay(1));
+        assertEquals(200, config.getDelay(2));
+        assertEquals(400, config.getDelay(3));
+        assertEquals(500, config.getDelay(4));
+    }
+    
+    @Test
+    public void testJitter() {
+        Map<String, Object> map = new HashMap();
+        map.put("interval", 1000);
+        map.put("jitter", 0.25);
+        RetryConfig config = RetryConfig.fromMap(map);
+        for (int i = 0; i < 100; i++) {
+            long delay = config.getDelay(1);
+            assertTrue(delay >= 750 && delay <= 1250);
+        }
+    }
+    
+}
@@ -3,10 +3,10 @@ package com.intuit.karate.gatling
 import java.io.File
 import java.util.function.Consumer
 
-import akka.actor.{Actor, ActorRef, ActorSystem, Props}
+import akka.actor.{Actor, ActorRef}
 import com.intuit.karate.{CallContext, ScriptContext, ScriptValueMap}
 import com.intuit.karate.cucumber._
-import com.intuit.karate.http.{HttpRequest, HttpUtils}
+import com.intuit.karate.http.HttpRequest
 import gherkin.formatter.model.Step
 import io.gatling.commons.stats.{KO, OK}
 import io.gatling.core.action.{Action, ExitableAction}
@@ -14,39 +14,39 @@ import io.gatling.core.session.Session
 import io.gatling.core.stats.StatsEngine
 import io.gatling.core.stats.message.ResponseTimings
 
+import scala.collection.mutable
+
 class KarateActor extends Actor {
   override def receive: Receive = {
-    case m: Runnable => {
-      m.run()
-      context.stop(self)
-    }
+    case m: Runnable => m.run()
   }
 }
 
-class KarateAction(val name: String, val protocol: KarateProtocol, val system: ActorSystem, val statsEngine: StatsEngine, val next: Action) extends ExitableAction {
-
-  def getActor(): ActorRef = {
-    val actorName = new File(name).getName + "-" + protocol.actorCount.incrementAndGet()
-    system.actorOf(Props[KarateActor], actorName)
-  }
+class KarateAction(val name: String, val protocol: KarateProtocol, val actorPool: ActorRef, val statsEngine: StatsEngine, val next: Action) extends ExitableAction {
 
   override def execute(session: Session) = {
 
     def logRequestStats(request: HttpRequest, timings: ResponseTimings, pass: Boolean, statusCode: Int, message: Option[String]) = {
-      val pathPair = HttpUtils.parseUriIntoUrlBaseAndPath(request.getUri)
-      val matchedUri = protocol.pathMatches(pathPair.right)
-      val reportUri = if (matchedUri.isDefined) matchedUri.get else pathPair.right
+      val (path, matchedUri) = protocol.resolve(request.getUri)
+      val reportUri = matchedUri.getOrElse(path)
       val key = request.getMethod + " " + reportUri
       val okOrNot = if (pass) OK else KO
       statsEngine.logResponse(session, key, timings, okOrNot, Option(statusCode + ""), message)
     }
 
+    def logTimedStats(key: String, startTime: Long, endTime: Long, pass: Boolean, message: Option[String]) = {
+      val okOrNot = if (pass) OK else KO
+      statsEngine.logResponse(session, key, ResponseTimings(startTime, endTime), okOrNot, None, message)
+    }
+
     val stepInterceptor = new StepInterceptor {
 
       var prevRequest: Option[HttpRequest] = None
       var startTime: Long = 0
       var responseTime: Long = 0
       var responseStatus: Int = 0
+      // keyed by call depth, since a 'call' step is still running when the called steps begin
+      val stepStartTimes = mutable.Map[Int, Long]()
 
       def logPrevRequestIfDefined(ctx: ScriptContext, pass: Boolean, message: Option[String]) = {
         if (prevRequest.isDefined) {
@@ -75,6 +75,8 @@ class KarateAction(val name: String, val protocol: KarateProtocol, val system: A
           if (pauseTime > 0) {
             Thread.sleep(pauseTime) // TODO use actors here as well
           }
+        } else if (protocol.reportStep(step.getStep.getName)) {
+          stepStartTimes(backend.getCallContext.callDepth) = System.currentTimeMillis
         }
       }
 
@@ -86,17 +88,34 @@ class KarateAction(val name: String, val protocol: KarateProtocol, val system: A
           startTime = ctx.getVars.get(ScriptValueMap.VAR_REQUEST_TIME_STAMP).getValue(classOf[Long])
           responseTime = ctx.getVars.get(ScriptValueMap.VAR_RESPONSE_TIME).getValue(classOf[Long])
           responseStatus = ctx.getVars.get(ScriptValueMap.VAR_RESPONSE_STATUS).getValue(classOf[Int])
+        } else {
+          val stepStartTime = stepStartTimes.remove(backend.getCallContext.callDepth)
+          if (stepStartTime.isDefined) {
+            val step = result.getStep
+            val stepType = step.getName.split(" ")(0)
+            val key = new File(backend.getFeaturePath).getName + ":" + step.getLine + " " + stepType
+            val message = if (result.isPass) None else Option(step.getName)
+            logTimedStats(key, stepStartTime.get, System.currentTimeMillis, result.isPass, message)
+          }
         }
         handleResultIfFail(backend.getFeaturePath, result, result.getStep, ctx)
       }
 
+      override def afterCall(feature: FeatureWrapper, callContext: CallContext, callStart: Long, callEnd: Long, pass: Boolean): Unit = {
+        if (protocol.reportCalls) {
+          val key = "call " + new File(feature.getPath).getName
+          val message = if (pass) None else Option(feature.getPath)
+          logTimedStats(key, callStart, callEnd, pass, message)
+        }
+      }
+
       override def afterScenario(scenario: ScenarioWrapper, backend: KarateBackend): Unit = {
         logPrevRequestIfDefined(backend.getStepDefs.getContext, true, None)
       }
 
     }
 
-    val asyncSystem: Consumer[Runnable] = r => getActor() ! r
+    val asyncSystem: Consumer[Runnable] = r => actorPool ! r
     val asyncNext: Runnable = () => next ! session
     val callContext = new CallContext(null, 0, null, -1, false, true, null, asyncSystem, asyncNext, stepInterceptor)
 
@@ -7,6 +7,6 @@ import io.gatling.core.structure.ScenarioContext
 class KarateActionBuilder(requestName: String) extends ActionBuilder {
   override def build(ctx: ScenarioContext, next: Action): Action = {
     val karateComponents = ctx.protocolComponentsRegistry.components(KarateProtocol.KarateProtocolKey)
-    new KarateAction(requestName, karateComponents.protocol, karateComponents.system, ctx.coreComponents.statsEngine, next)
+    new KarateAction(requestName, karateComponents.protocol, karateComponents.actorPool, ctx.coreComponents.statsEngine, next)
   }
 }
@@ -2,20 +2,37 @@ package com.intuit.karate.gatling
 
 import java.util.concurrent.atomic.AtomicInteger
 
-import akka.actor.ActorSystem
-import com.intuit.karate.http.HttpUtils
+import akka.actor.{ActorRef, ActorSystem, Props}
+import akka.dispatch.DispatcherConfigurator
+import akka.routing.SmallestMailboxPool
+import com.typesafe.config.ConfigFactory
+import com.intuit.karate.http.{HttpUtils, UriPattern}
 import io.gatling.core.{CoreComponents, protocol}
 import io.gatling.core.config.GatlingConfiguration
 import io.gatling.core.protocol.{Protocol, ProtocolComponents, ProtocolKey}
 import io.gatling.core.session.Session
+import io.gatling.core.util.cache.Cache
 
 case class MethodPause(val method: String, pause: Int)
 
+object KarateReportLevel extends Enumeration {
+  type KarateReportLevel = Value
+  // each level includes everything reported by the ones before it
+  val Http, Calls, Steps = Value
+}
+
 class KarateProtocol(val uriPatterns: Map[String, Seq[MethodPause]]) extends Protocol {
-  def pathMatches(uri: String): Option[String] = uriPatterns.keys.find(HttpUtils.parseUriPattern(_, uri) != null)
+  private val compiledPatterns = uriPatterns.keys.map(UriPattern.compile).toList
+  // the same urls come up again and again under load, so resolve each one only once
+  private val uriCache = Cache.newConcurrentLoadingCache[String, (String, Option[String])](KarateProtocol.UriCacheSize, uri => {
+    val path = HttpUtils.parseUriIntoUrlBaseAndPath(uri).right
+    (path, pathMatches(path))
+  })
+  def pathMatches(uri: String): Option[String] = compiledPatterns.find(_.matches(uri)).map(_.getPattern)
+  // returns the path part of the uri and the pattern it matched (if any)
+  def resolve(uri: String): (String, Option[String]) = uriCache.get(uri)
   def pauseFor(uri: String, method: String) = {
-    val pathPair = HttpUtils.parseUriIntoUrlBaseAndPath(uri)
-    val matchedUri = pathMatches(pathPair.right)
+    val matchedUri = if (uriPatterns.isEmpty) None else resolve(uri)._2
     if (matchedUri.isDefined) {
       val methodPause = uriPatterns.getOrElse(matchedUri.get, Nil).find(mp => method.equalsIgnoreCase(mp.method))
       if (methodPause.isDefined) methodPause.get.pause else 0
@@ -24,20 +41,48 @@ class KarateProtocol(val uriPatterns: Map[String, Seq[MethodPause]]) extends Pro
     }
   }
   val actorCount = new AtomicInteger()
+  // karate steps block (e.g. on http calls), so they run on a dedicated dispatcher of this many threads
+  // with one worker actor per thread, instead of creating a new actor for every step
+  var actorPoolSize: Int = KarateProtocol.DefaultActorPoolSize
+  var actorThroughput: Int = 5
+  def createActorPool(system: ActorSystem): ActorRef = {
+    val dispatchers = system.dispatchers
+    if (!dispatchers.hasDispatcher(KarateProtocol.DispatcherId)) { // can be over-ridden in gatling-akka.conf
+      val config = ConfigFactory.parseString(
+        s"""id = "${KarateProtocol.DispatcherId}"
+           |type = Dispatcher
+           |executor = "thread-pool-executor"
+           |thread-pool-executor.fixed-pool-size = $actorPoolSize
+           |throughput = $actorThroughput""".stripMargin).withFallback(dispatchers.defaultDispatcherConfig)
+      dispatchers.registerConfigurator(KarateProtocol.DispatcherId, new DispatcherConfigurator(config, dispatchers.prerequisites))
+    }
+    val props = SmallestMailboxPool(actorPoolSize).props(Props[KarateActor].withDispatcher(KarateProtocol.DispatcherId))
+    system.actorOf(props, "karate-" + actorCount.incrementAndGet())
+  }
+  var reportLevel: KarateReportLevel.KarateReportLevel = KarateReportLevel.Http
+  // step name prefixes e.g. "match", "def", reported when the level is Steps, empty means all
+  var reportSteps: Seq[String] = Nil
+  def reportCalls: Boolean = reportLevel >= KarateReportLevel.Calls
+  def reportStep(stepName: String): Boolean = reportLevel >= KarateReportLevel.Steps &&
+    (reportSteps.isEmpty || reportSteps.exists(stepName.startsWith(_)))
 }
 
 object KarateProtocol {
+  val DispatcherId = "karate-dispatcher"
+  val UriCacheSize = 10000
+  // same as the (parallelism-min, factor, max) defaults of the akka default-dispatcher
+  val DefaultActorPoolSize = Math.max(8, Math.min(64, Runtime.getRuntime.availableProcessors * 3))
   val KarateProtocolKey = new ProtocolKey {
     type Protocol = KarateProtocol
     type Components = KarateComponents
     override def defaultProtocolValue(configuration: GatlingConfiguration) = new KarateProtocol(Map.empty)
     override def newComponents(system: ActorSystem, coreComponents: CoreComponents)=
-      karateProtocol => KarateComponents(karateProtocol, system)
+      karateProtocol => KarateComponents(karateProtocol, system, karateProtocol.createActorPool(system))
     override def protocolClass= classOf[KarateProtocol].asInstanceOf[Class[io.gatling.core.protocol.Protocol]]
   }
 }
 
-case class KarateComponents(val protocol: KarateProtocol, val system: ActorSystem) extends ProtocolComponents {
+case class KarateComponents(val protocol: KarateProtocol, val system: ActorSystem, val actorPool: ActorRef) extends ProtocolComponents {
   def onStart: Option[Session => Session] = None
   def onExit: Option[Session => Unit] = None
 }
@@ -38,8 +38,12 @@ import java.nio.charset.Charset;
 import java.security.KeyStore;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
+import javax.ws.rs.client.AsyncInvoker;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
@@ -70,6 +74,7 @@ public class JerseyHttpClient extends HttpClient<Entity> {
     private WebTarget target;
     private Builder builder;
     private Charset charset;
+    private volatile Future<Response> currentCall;
 
     @Override
     public void configure(HttpConfig config, ScriptContext context) {
@@ -213,21 +218,45 @@ public class JerseyHttpClient extends HttpClient<Entity> {
         return Entity.entity(value, getMediaType(mediaType));
     }
 
+    @Override
+    protected void abort() {
+        Future<Response> call = currentCall;
+        if (call == null || call.cancel(true)) {
+            return;
+        }
+        try { // already connected, closing makes the read of the body fail
+            call.get().close();
+        } catch (Exception e) {
+            // the call failed anyway
+        }
+    }
+
     @Override
     public HttpResponse makeHttpRequest(Entity entity, ScriptContext context) {
         String method = request.getMethod();
         if ("PATCH".equals(method)) { // http://danofhisword.com/dev/2015/09/04/Jersey-Client-Http-Patch.html
             builder.property(HttpUrlConnectorProvider.SET_METHOD_WORKAROUND, true);
         }
+        // async so that the call can be aborted from another thread
+        AsyncInvoker invoker = builder.async();
+        Future<Response> call = entity != null ? invoker.method(method, entity) : invoker.method(method);
+        currentCall = call;
         Response resp;
-        if (entity != null) {
-            resp = builder.method(method, entity);
-        } else {
-            resp = builder.method(method);
+        byte[] bytes;
+        try {
+            resp = call.get();
+            bytes = resp.readEntity(byte[].class);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        } catch (InterruptedException | CancellationException e) {
+            call.cancel(true);
+            throw new RuntimeException("http call aborted: " + getRequestUri(), e);
+        } finally {
+            currentCall = null;
         }
         HttpRequest actualRequest = context.getPrevRequest();
         HttpResponse response = new HttpResponse(actualRequest.getStartTime(), actualRequest.getEndTime());
-        byte[] bytes = resp.readEntity(byte[].class);        
         response.setUri(getRequestUri());
         response.setBody(bytes);
         response.setStatus(resp.getStatus());
@@ -0,0 +1,247 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.netty;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.JsonUtils;
+import com.intuit.karate.ScriptBindings;
+import com.intuit.karate.cucumber.CucumberRunner;
+import com.intuit.karate.cucumber.FeatureResult;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * registers with a {@link Coordinator} and runs the features it hands out,
+ * sending back the result and report files of each one. feature paths are
+ * relative to the working directory of the coordinator, so agents on other
+ * machines need the same project checked out and should be started from the
+ * same (relative) directory
+ *
+ * @author pthomas3
+ */
+public class Agent {
+
+    private static final Logger logger = LoggerFactory.getLogger(Agent.class);
+
+    private static final int MAX_RETRIES = 10;
+
+    private final String coordinatorUrl;
+    private final int threads;
+
+    private volatile String id;
+    private volatile long heartbeatMillis = Coordinator.DEFAULT_HEARTBEAT_MILLIS;
+
+    public Agent(String coordinatorUrl, int threads) {
+        this.coordinatorUrl = coordinatorUrl.endsWith("/") ? coordinatorUrl.substring(0, coordinatorUrl.length() - 1) : coordinatorUrl;
+        this.threads = threads;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * blocks until the coordinator has no more work, or cannot be reached
+     */
+    public void run() {
+        try {
+            register(null);
+        } catch (Exception e) {
+            logger.error("agent could not register with coordinator: {}, {}", coordinatorUrl, e.getMessage());
+            return;
+        }
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "karate-agent-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(() -> heartbeat(), heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        List<Thread> workers = new ArrayList(threads);
+        for (int i = 1; i <= threads; i++) {
+            Thread thread = new Thread(() -> work(), "karate-agent-" + id + "-" + i);
+            workers.add(thread);
+            thread.start();
+        }
+        try {
+            for (Thread thread : workers) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            workers.forEach(Thread::interrupt);
+        } finally {
+            heartbeat.shutdownNow();
+        }
+        logger.info("agent {} done", id);
+    }
+
+    private synchronized void register(String staleId) throws IOException {
+        if (id != null && !id.equals(staleId)) { // another thread got there first
+            return;
+        }
+        Map<String, Object> map = post(coordinatorUrl + CoordinatorHandler.AGENTS, null);
+        String env = (String) map.get("env");
+        if (env != null) {
+            System.setProperty(ScriptBindings.KARATE_ENV, env);
+        }
+        if (System.getProperty(ScriptBindings.KARATE_CONFIG_DIR) == null) {
+            System.setProperty(ScriptBindings.KARATE_CONFIG_DIR, new File(".").getPath());
+        }
+        heartbeatMillis = ((Number) map.get("heartbeat")).longValue();
+        id = (String) map.get("id");
+        logger.info("agent registered with coordinator: {}, id: {}", coordinatorUrl, id);
+    }
+
+    private void heartbeat() {
+        String current = id;
+        try {
+            if (post(agentUrl(current, "heartbeat"), null) == null) {
+                logger.warn("coordinator does not know agent {}, will re-register", current);
+                register(current);
+            }
+        } catch (Exception e) {
+            logger.warn("heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private String agentUrl(String agentId, String action) {
+        return coordinatorUrl + CoordinatorHandler.AGENTS + "/" + agentId + "/" + action;
+    }
+
+    // retries while the coordinator is unreachable, and re-registers if it has forgotten us
+    private Map<String, Object> call(String action, Map<String, Object> body) throws IOException {
+        int retries = 0;
+        while (true) {
+            String current = id;
+            try {
+                Map<String, Object> map = post(agentUrl(current, action), body);
+                if (map != null) {
+                    return map;
+                }
+                register(current);
+            } catch (IOException e) {
+                if (++retries > MAX_RETRIES) {
+                    throw e;
+                }
+                logger.warn("coordinator call failed ({}), will retry: {}", action, e.getMessage());
+                sleep(heartbeatMillis);
+            }
+        }
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                Map<String, Object> response = call("next", null);
+                if (Boolean.TRUE.equals(response.get("done"))) {
+                    return;
+                }
+                Map<String, Object> unit = (Map) response.get("unit");
+                if (unit == null) {
+                    Number wait = (Number) response.get("wait");
+                    sleep(wait == null ? heartbeatMillis : wait.longValue());
+                    continue;
+                }
+                call("result", execute(unit));
+            }
+        } catch (Exception e) {
+            logger.error("agent stopping, coordinator unreachable: {}, {}", coordinatorUrl, e.getMessage());
+        }
+    }
+
+    private Map<String, Object> execute(Map<String, Object> unit) throws IOException {
+        String path = (String) unit.get("path");
+        String name = (String) unit.get("name");
+        List<String> tags = (List) unit.get("tags");
+        File reportDir = Files.createTempDirectory("karate-agent").toFile();
+        Map<String, String> reports = new LinkedHashMap();
+        FeatureResult result;
+        try {
+            result = CucumberRunner.runUnit(path, name, tags, reportDir.getPath());
+            File[] files = reportDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    reports.put(file.getName(), FileUtils.toString(file));
+                }
+            }
+        } finally {
+            org.apache.commons.io.FileUtils.deleteQuietly(reportDir);
+        }
+        Map<String, Object> map = new LinkedHashMap(3);
+        map.put("id", unit.get("id"));
+        map.put("result", result.toMap());
+        map.put("reports", reports);
+        return map;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return null if the coordinator responds with a 404
+     */
+    static Map<String, Object> post(String url, Map<String, Object> body) throws IOException {
+        HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            con.setRequestMethod("POST");
+            con.setDoOutput(true);
+            con.setRequestProperty("Content-Type", "application/json");
+            byte[] bytes = FileUtils.toBytes(JsonUtils.toJson(body == null ? Collections.emptyMap() : body));
+            try (OutputStream os = con.getOutputStream()) {
+                os.write(bytes);
+            }
+            int status = con.getResponseCode();
+            if (status == 404) {
+                return null;
+            }
+            if (status != 200) {
+                throw new IOException("coordinator returned status: " + status);
+            }
+            String response = FileUtils.toString(con.getInputStream());
+            return JsonUtils.toJsonDoc(response).read("$");
+        } finally {
+            con.disconnect();
+        }
+    }
+
+}
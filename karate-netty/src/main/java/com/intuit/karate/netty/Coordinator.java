@@ -0,0 +1,350 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.netty;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.cucumber.CucumberRunner;
+import com.intuit.karate.cucumber.FeatureResult;
+import com.intuit.karate.cucumber.FeatureTimings;
+import com.intuit.karate.cucumber.KarateFeature;
+import com.intuit.karate.cucumber.KarateRuntimeOptions;
+import com.intuit.karate.cucumber.KarateStats;
+import com.intuit.karate.filter.TagFilterException;
+import cucumber.runtime.model.CucumberFeature;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * hands out features to {@link Agent}-s that register over http (possibly
+ * from other machines), and merges what they send back into one set of
+ * reports and stats. an agent that misses its heartbeats is considered lost,
+ * and the features it was running are given to other agents
+ *
+ * @author pthomas3
+ */
+public class Coordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(Coordinator.class);
+
+    public static final long DEFAULT_HEARTBEAT_MILLIS = 2000;
+
+    private static final int MAX_ATTEMPTS = 2;
+    private static final int MAX_CONTENT_LENGTH = 64 * 1024 * 1024;
+
+    private static class Unit {
+
+        final int index;
+        final CucumberFeature feature;
+        final String path;
+        final List<String> tags;
+        int attempts;
+
+        Unit(int index, KarateFeature karateFeature) {
+            this.index = index;
+            this.feature = karateFeature.getFeature();
+            this.path = karateFeature.getFilePath();
+            this.tags = karateFeature.getTags();
+        }
+
+    }
+
+    private static class AgentInfo {
+
+        final String id;
+        final String host;
+        final Set<Unit> units = ConcurrentHashMap.newKeySet();
+        volatile long lastSeen = System.currentTimeMillis();
+
+        AgentInfo(String id, String host) {
+            this.id = id;
+            this.host = host;
+        }
+
+    }
+
+    private final String reportDir;
+    private final String env;
+    private final long heartbeatMillis;
+    private final KarateStats stats;
+    private final FeatureTimings timings;
+    private final List<Unit> units;
+    private final Deque<Unit> pending;
+    private final FeatureResult[] results;
+    private final CountDownLatch latch;
+    private final Map<String, AgentInfo> agents = new ConcurrentHashMap();
+    private final AtomicInteger agentCounter = new AtomicInteger();
+    private final ScheduledExecutorService monitor;
+
+    private final Channel channel;
+    private final int port;
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workerGroup;
+
+    public static Coordinator start(List<KarateFeature> karateFeatures, int port, String reportDir, String env, long heartbeatMillis) {
+        return new Coordinator(karateFeatures, port, reportDir, env, heartbeatMillis);
+    }
+
+    /**
+     * runs a coordinator, and optionally agents in the same JVM (useful for
+     * testing), and blocks until all features have been run
+     *
+     * @param tags - can be null
+     * @param paths - feature files or directories
+     * @param port - 0 to use any free port
+     * @param localAgents - number of agents to start on localhost
+     * @param reportDir - can be null, and defaults to "target/surefire-reports"
+     * @param env - value of 'karate.env' on the agents, can be null
+     * @return merged stats
+     */
+    public static KarateStats run(List<String> tags, List<String> paths, int port, int localAgents, String reportDir, String env) {
+        KarateRuntimeOptions kro = new KarateRuntimeOptions(tags, paths);
+        List<KarateFeature> karateFeatures = KarateFeature.loadFeatures(kro);
+        Coordinator coordinator = start(karateFeatures, port, reportDir, env, DEFAULT_HEARTBEAT_MILLIS);
+        String url = "http://127.0.0.1:" + coordinator.getPort();
+        for (int i = 1; i <= localAgents; i++) {
+            Thread thread = new Thread(() -> new Agent(url, 1).run(), "karate-agent-local-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return coordinator.waitForResults();
+    }
+
+    private Coordinator(List<KarateFeature> karateFeatures, int port, String userReportDir, String env, long heartbeatMillis) {
+        this.reportDir = userReportDir == null ? "target/surefire-reports" : userReportDir;
+        this.env = env;
+        this.heartbeatMillis = heartbeatMillis;
+        logger.info("Karate version: {}", FileUtils.getKarateVersion());
+        stats = KarateStats.startTimer();
+        timings = new FeatureTimings(reportDir);
+        units = new ArrayList(karateFeatures.size());
+        boolean history = false;
+        for (KarateFeature karateFeature : karateFeatures) {
+            CucumberFeature feature = karateFeature.getFeature();
+            try {
+                CucumberRunner.filterOnTags(feature);
+            } catch (TagFilterException e) {
+                throw new RuntimeException(e);
+            }
+            if (!feature.getFeatureElements().isEmpty()) {
+                history = history || timings.isKnown(feature);
+                units.add(new Unit(units.size(), karateFeature));
+            }
+        }
+        stats.setFeatureCount(units.size());
+        List<Unit> sorted = new ArrayList(units);
+        sorted.sort((a, b) -> Long.compare(timings.predict(b.feature), timings.predict(a.feature)));
+        pending = new LinkedBlockingDeque(sorted);
+        results = new FeatureResult[units.size()];
+        latch = new CountDownLatch(units.size());
+        monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "karate-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        monitor.scheduleWithFixedDelay(() -> checkAgents(), heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        bossGroup = new NioEventLoopGroup(1);
+        workerGroup = new NioEventLoopGroup();
+        try {
+            ServerBootstrap b = new ServerBootstrap();
+            b.group(bossGroup, workerGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ChannelPipeline p = ch.pipeline();
+                            p.addLast(new HttpServerCodec());
+                            p.addLast(new HttpObjectAggregator(MAX_CONTENT_LENGTH));
+                            p.addLast(new CoordinatorHandler(Coordinator.this));
+                        }
+                    });
+            channel = b.bind(port).sync().channel();
+            InetSocketAddress isa = (InetSocketAddress) channel.localAddress();
+            this.port = isa.getPort();
+            logger.info("coordinator started - http://127.0.0.1:{}, features: {}", this.port, units.size());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public KarateStats waitForResults() {
+        try {
+            latch.await();
+            stats.stopTimer();
+            timings.save();
+            // give the agents a chance to find out that we are done
+            long deadline = System.currentTimeMillis() + heartbeatMillis * 3;
+            while (!agents.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            for (FeatureResult result : results) {
+                result.addTo(stats);
+            }
+        } catch (Exception e) {
+            logger.error("karate coordinator failed: {}", e.getMessage());
+            stats.setFailureReason(e);
+        } finally {
+            stop();
+        }
+        stats.printStats(agentCounter.get());
+        return stats;
+    }
+
+    public void stop() {
+        monitor.shutdownNow();
+        bossGroup.shutdownGracefully();
+        workerGroup.shutdownGracefully();
+    }
+
+    private AgentInfo seen(String agentId) {
+        AgentInfo agent = agents.get(agentId);
+        if (agent != null) {
+            agent.lastSeen = System.currentTimeMillis();
+        }
+        return agent;
+    }
+
+    public Map<String, Object> register(String host) {
+        String id = agentCounter.incrementAndGet() + "";
+        agents.put(id, new AgentInfo(id, host));
+        logger.info("agent registered: {} ({})", id, host);
+        Map<String, Object> map = new LinkedHashMap(3);
+        map.put("id", id);
+        map.put("env", env);
+        map.put("heartbeat", heartbeatMillis);
+        return map;
+    }
+
+    public boolean heartbeat(String agentId) {
+        return seen(agentId) != null;
+    }
+
+    public synchronized Map<String, Object> next(String agentId) {
+        AgentInfo agent = seen(agentId);
+        if (agent == null) {
+            return null;
+        }
+        Map<String, Object> map = new LinkedHashMap(1);
+        if (latch.getCount() == 0) {
+            agents.remove(agentId);
+            map.put("done", true);
+            return map;
+        }
+        Unit unit = pending.pollFirst();
+        if (unit == null) { // features still running elsewhere, may need to be re-assigned
+            map.put("wait", heartbeatMillis);
+            return map;
+        }
+        agent.units.add(unit);
+        logger.info(">>>> agent {} feature {} of {}: {}", agentId, unit.index + 1, units.size(), unit.path);
+        Map<String, Object> unitMap = new LinkedHashMap(4);
+        unitMap.put("id", unit.index);
+        unitMap.put("path", unit.path);
+        unitMap.put("name", unit.feature.getPath());
+        unitMap.put("tags", unit.tags);
+        map.put("unit", unitMap);
+        return map;
+    }
+
+    public synchronized boolean result(String agentId, Map<String, Object> body) {
+        AgentInfo agent = seen(agentId);
+        Unit unit = units.get(((Number) body.get("id")).intValue());
+        if (agent != null) {
+            agent.units.remove(unit);
+        }
+        if (results[unit.index] != null) { // e.g. from an agent that was considered lost
+            logger.warn("ignoring duplicate result from agent {}: {}", agentId, unit.path);
+            return agent != null;
+        }
+        pending.remove(unit); // in case it was re-queued meanwhile
+        Map<String, String> reports = (Map) body.get("reports");
+        if (reports != null) {
+            reports.forEach((name, content) -> {
+                File file = new File(reportDir, new File(name).getName()); // no funny paths
+                FileUtils.writeToFile(file, content);
+            });
+        }
+        FeatureResult result = FeatureResult.fromMap((Map) body.get("result"));
+        results[unit.index] = result;
+        timings.record(unit.feature, result.getElapsedTime());
+        latch.countDown();
+        logger.info("<<<< agent {} feature {} of {}: {}", agentId, unit.index + 1, units.size(), unit.path);
+        return agent != null;
+    }
+
+    private synchronized void requeue(Unit unit, String reason) {
+        if (results[unit.index] != null) {
+            return;
+        }
+        if (++unit.attempts < MAX_ATTEMPTS) {
+            pending.addFirst(unit);
+        } else {
+            logger.error("{}, giving up on feature: {}", reason, unit.path);
+            results[unit.index] = FeatureResult.failed(unit.path, reason);
+            latch.countDown();
+        }
+    }
+
+    private void checkAgents() {
+        long cutoff = System.currentTimeMillis() - heartbeatMillis * 3;
+        for (AgentInfo agent : agents.values()) {
+            if (agent.lastSeen < cutoff) {
+                agents.remove(agent.id);
+                logger.warn("agent lost: {} ({}), re-assigning features: {}", agent.id, agent.host, agent.units.size());
+                for (Unit unit : agent.units) {
+                    requeue(unit, "agent lost: " + agent.id);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.netty;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.JsonUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * the json over http protocol between a {@link Coordinator} and its agents
+ * <pre>
+ * POST /agents                  -> { id, env, heartbeat }
+ * POST /agents/{id}/heartbeat   -> {}
+ * POST /agents/{id}/next        -> { unit: { id, path, name, tags } } | { wait: millis } | { done: true }
+ * POST /agents/{id}/result      &lt;- { id, result, reports: { fileName: content } }
+ * </pre> a 404 means the coordinator does not know (or has given up on) the
+ * agent, which has to register again
+ *
+ * @author pthomas3
+ */
+public class CoordinatorHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoordinatorHandler.class);
+
+    public static final String AGENTS = "/agents";
+
+    private final Coordinator coordinator;
+
+    public CoordinatorHandler(Coordinator coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        ctx.flush();
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest msg) {
+        Object response;
+        try {
+            response = handle(ctx, msg);
+        } catch (Exception e) {
+            logger.error("coordinator request failed: {} {}", msg.uri(), e.getMessage());
+            write(ctx, HttpResponseStatus.BAD_REQUEST, e.getMessage());
+            return;
+        }
+        if (response == null) {
+            write(ctx, HttpResponseStatus.NOT_FOUND, "unknown agent");
+        } else {
+            write(ctx, HttpResponseStatus.OK, JsonUtils.toJson(response));
+        }
+    }
+
+    private Object handle(ChannelHandlerContext ctx, FullHttpRequest msg) {
+        if (!HttpMethod.POST.equals(msg.method()) || !msg.uri().startsWith(AGENTS)) {
+            throw new RuntimeException("unexpected request: " + msg.method() + " " + msg.uri());
+        }
+        String path = msg.uri().substring(AGENTS.length());
+        if (path.isEmpty() || path.equals("/")) {
+            InetSocketAddress remote = (InetSocketAddress) ctx.channel().remoteAddress();
+            return coordinator.register(remote.getHostString());
+        }
+        String[] parts = path.substring(1).split("/");
+        if (parts.length != 2) {
+            throw new RuntimeException("unexpected path: " + msg.uri());
+        }
+        String agentId = parts[0];
+        switch (parts[1]) {
+            case "heartbeat":
+                return coordinator.heartbeat(agentId) ? Collections.emptyMap() : null;
+            case "next":
+                return coordinator.next(agentId);
+            case "result":
+                Map<String, Object> body = JsonUtils.toJsonDoc(getBody(msg)).read("$");
+                return coordinator.result(agentId, body) ? Collections.emptyMap() : null;
+            default:
+                throw new RuntimeException("unexpected path: " + msg.uri());
+        }
+    }
+
+    private static String getBody(FullHttpRequest msg) {
+        ByteBuf content = msg.content();
+        byte[] bytes = new byte[content.readableBytes()];
+        content.readBytes(bytes);
+        return FileUtils.toString(bytes);
+    }
+
+    private static void write(ChannelHandlerContext ctx, HttpResponseStatus status, String body) {
+        ByteBuf responseBuf = Unpooled.copiedBuffer(body == null ? "" : body, CharsetUtil.UTF_8);
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, responseBuf);
+        response.headers().set("Content-Type", "application/json");
+        response.headers().set("Content-Length", responseBuf.readableBytes());
+        ctx.write(response);
+        ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+    }
+
+}
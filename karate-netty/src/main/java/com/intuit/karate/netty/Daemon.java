@@ -0,0 +1,334 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.netty;
+
+import com.intuit.karate.CallSingleCache;
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.JsonUtils;
+import com.intuit.karate.ScriptBindings;
+import com.intuit.karate.cucumber.CucumberRunner;
+import com.intuit.karate.cucumber.KarateStats;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * keeps a JVM (with nashorn and the karate / cucumber classes loaded and
+ * warmed up) waiting for runs sent by {@link DaemonClient} over a local
+ * socket, one json line for the request, and then json lines streamed back:
+ * { out: 'console line' } as the run progresses and { result: {...} } at the
+ * end. runs are one at a time, each with a fresh class loader for the class
+ * path sent by the client, so that changes to java helpers are picked up.
+ * every request has to carry the token that the daemon writes (readable only
+ * by the owner) to {@link #getTokenFile(int)} when it starts, so that other
+ * users on the same machine cannot run code in it
+ *
+ * @author pthomas3
+ */
+public class Daemon {
+
+    private static final Logger logger = LoggerFactory.getLogger(Daemon.class);
+
+    public static final int DEFAULT_PORT = 4567;
+
+    public static final String DIR_PROPERTY = "karate.daemon.dir";
+
+    private static final String WARM_UP = "Feature:\n\nScenario:\n* def a = { b: 1, c: [1, 2] }\n* match a == { b: '#number', c: '#[2]' }\n";
+
+    private final ServerSocket server;
+    private final Thread thread;
+    private final Object lock = new Object(); // one run at a time
+    private final byte[] token;
+    private final File tokenFile;
+
+    private Daemon(ServerSocket server) {
+        this.server = server;
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        token = Base64.getUrlEncoder().withoutPadding().encode(bytes);
+        tokenFile = getTokenFile(server.getLocalPort());
+        thread = new Thread(() -> accept(), "karate-daemon");
+    }
+
+    /**
+     * @param port of the daemon
+     * @return the file the daemon writes its token to, in the directory set
+     * by the system property {@value #DIR_PROPERTY}, default ~/.karate
+     */
+    public static File getTokenFile(int port) {
+        String dir = System.getProperty(DIR_PROPERTY);
+        if (dir == null) {
+            dir = System.getProperty("user.home") + File.separator + ".karate";
+        }
+        return new File(dir, "daemon-" + port + ".token");
+    }
+
+    /**
+     * @param port zero for any free port
+     * @return the daemon, warmed up and accepting runs
+     */
+    public static Daemon start(int port) {
+        ServerSocket server;
+        try {
+            server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new RuntimeException("could not start daemon on port: " + port + ", " + e.getMessage(), e);
+        }
+        Daemon daemon = new Daemon(server);
+        try {
+            daemon.writeToken();
+        } catch (IOException e) {
+            daemon.stop();
+            throw new RuntimeException("could not write daemon token file: " + daemon.tokenFile + ", " + e.getMessage(), e);
+        }
+        daemon.warmUp();
+        daemon.thread.start();
+        logger.info("karate daemon started on port: {}", daemon.getPort());
+        return daemon;
+    }
+
+    private void writeToken() throws IOException {
+        Path path = tokenFile.toPath();
+        Files.createDirectories(path.getParent());
+        Files.deleteIfExists(path); // so that the permissions are ours
+        try {
+            Set<PosixFilePermission> ownerOnly = PosixFilePermissions.fromString("rw-------");
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(ownerOnly));
+        } catch (UnsupportedOperationException e) { // windows
+            Files.createFile(path);
+            File file = path.toFile();
+            file.setReadable(false, false);
+            file.setWritable(false, false);
+            file.setReadable(true, true);
+            file.setWritable(true, true);
+        }
+        Files.write(path, token);
+        tokenFile.deleteOnExit();
+    }
+
+    private void warmUp() {
+        long startTime = System.currentTimeMillis();
+        try {
+            File file = File.createTempFile("karate-warm-up", ".feature");
+            FileUtils.writeToFile(file, WARM_UP);
+            CucumberRunner.runFeature(file, null, false);
+            file.delete();
+        } catch (Exception e) {
+            logger.warn("warm up failed: {}", e.getMessage());
+        }
+        logger.info("warm up took {} ms", System.currentTimeMillis() - startTime);
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public void waitSync() {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void stop() {
+        try {
+            server.close();
+        } catch (IOException e) {
+            logger.warn("error closing daemon socket: {}", e.getMessage());
+        }
+        tokenFile.delete();
+    }
+
+    private boolean isAuthorized(Map<String, Object> request) {
+        Object value = request.remove("token");
+        if (!(value instanceof String)) {
+            return false;
+        }
+        return MessageDigest.isEqual(token, ((String) value).getBytes(FileUtils.UTF8));
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread handler = new Thread(() -> handle(socket), "karate-daemon-run");
+                handler.start();
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    logger.warn("daemon accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket;
+                BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream(), FileUtils.UTF8));
+                Writer writer = new OutputStreamWriter(s.getOutputStream(), FileUtils.UTF8)) {
+            String line = reader.readLine();
+            if (line == null) {
+                return;
+            }
+            Map<String, Object> response = new LinkedHashMap(1);
+            try {
+                Map<String, Object> request = JsonUtils.toJsonDoc(line).read("$");
+                if (!isAuthorized(request)) {
+                    logger.warn("daemon request rejected, missing or invalid token");
+                    response.put("error", "missing or invalid token, see: " + tokenFile);
+                    send(writer, response);
+                    return;
+                }
+                Map<String, Object> result;
+                synchronized (lock) {
+                    result = run(request, out -> send(writer, Collections.singletonMap("out", out)));
+                }
+                response.put("result", result);
+            } catch (Exception e) {
+                logger.error("daemon run failed: {}", e.getMessage());
+                response.put("error", e.getMessage() + "");
+            }
+            send(writer, response);
+        } catch (IOException e) {
+            logger.warn("daemon connection failed: {}", e.getMessage());
+        }
+    }
+
+    private static void send(Writer writer, Map<String, Object> map) {
+        try {
+            writer.write(JsonUtils.toJson(map));
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException e) {
+            // client has gone away, but the run carries on
+        }
+    }
+
+    private static String setProperty(String key, String value) {
+        return value == null ? System.clearProperty(key) : System.setProperty(key, value);
+    }
+
+    /**
+     * @param request tests, tags, env, threads, output, classpath and dir
+     * (working directory of the client, for karate-config.js)
+     * @param out gets each line printed to the console during the run
+     * @return a summary of the stats
+     */
+    static Map<String, Object> run(Map<String, Object> request, Consumer<String> out) throws Exception {
+        List<String> tests = (List) request.get("tests");
+        List<String> tags = (List) request.get("tags");
+        List<String> classPath = (List) request.get("classpath");
+        Number threads = (Number) request.get("threads");
+        String output = (String) request.get("output");
+        URL[] urls = new URL[classPath == null ? 0 : classPath.size()];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = new File(classPath.get(i)).toURI().toURL();
+        }
+        URLClassLoader classLoader = new URLClassLoader(urls, Daemon.class.getClassLoader());
+        Thread current = Thread.currentThread();
+        ClassLoader prevClassLoader = current.getContextClassLoader();
+        PrintStream prevOut = System.out;
+        String prevEnv = setProperty(ScriptBindings.KARATE_ENV, (String) request.get("env"));
+        String prevConfigDir = setProperty(ScriptBindings.KARATE_CONFIG_DIR, (String) request.get("dir"));
+        CallSingleCache.clear(); // as if this was a fresh JVM
+        current.setContextClassLoader(classLoader);
+        System.setOut(new PrintStream(new LineOutputStream(prevOut, out), true, "utf-8"));
+        try {
+            KarateStats stats = CucumberRunner.parallel(tags, tests, threads == null ? 1 : threads.intValue(), output);
+            Map<String, Object> result = new LinkedHashMap();
+            result.put("features", stats.getFeatureCount());
+            result.put("scenarios", stats.getTestCount());
+            result.put("failed", stats.getFailCount());
+            result.put("skipped", stats.getSkipCount());
+            result.put("elapsedTime", stats.getEndTime() - stats.getStartTime());
+            return result;
+        } finally {
+            System.out.flush();
+            System.setOut(prevOut);
+            current.setContextClassLoader(prevClassLoader);
+            setProperty(ScriptBindings.KARATE_ENV, prevEnv);
+            setProperty(ScriptBindings.KARATE_CONFIG_DIR, prevConfigDir);
+            ScriptBindings.releaseEngine(classLoader);
+            CucumberRunner.releaseTagFilters(classLoader);
+            classLoader.close();
+        }
+    }
+
+    // also writes to the original console
+    private static class LineOutputStream extends OutputStream {
+
+        private final PrintStream console;
+        private final Consumer<String> consumer;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        LineOutputStream(PrintStream console, Consumer<String> consumer) {
+            this.console = console;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            console.write(b);
+            if (b == '\n') {
+                consumer.accept(new String(buffer.toByteArray(), FileUtils.UTF8));
+                buffer.reset();
+            } else if (b != '\r') {
+                buffer.write(b);
+            }
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            console.flush();
+        }
+
+    }
+
+}
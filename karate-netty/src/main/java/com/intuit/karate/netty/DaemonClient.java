@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.netty;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.JsonUtils;
+import com.intuit.karate.exception.KarateException;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * sends a run to a {@link Daemon} and prints the console output as it comes
+ * back, kept thin on purpose so that it starts fast (no nashorn or cucumber)
+ *
+ * @author pthomas3
+ */
+public class DaemonClient {
+
+    private DaemonClient() {
+        // only static methods
+    }
+
+    /**
+     * @param port of the daemon
+     * @param request see {@link Daemon}, the token is added from
+     * {@link Daemon#getTokenFile(int)}
+     * @param out where the console output of the run is printed
+     * @return the summary of the stats
+     */
+    public static Map<String, Object> run(int port, Map<String, Object> request, PrintStream out) {
+        File tokenFile = Daemon.getTokenFile(port);
+        Map<String, Object> withToken = new LinkedHashMap(request);
+        try {
+            withToken.put("token", new String(Files.readAllBytes(tokenFile.toPath()), FileUtils.UTF8));
+        } catch (IOException e) {
+            throw new KarateException("could not read daemon token file: " + tokenFile + ", is the daemon running on port: " + port + " ?");
+        }
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                Writer writer = new OutputStreamWriter(socket.getOutputStream(), FileUtils.UTF8);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), FileUtils.UTF8))) {
+            writer.write(JsonUtils.toJson(withToken));
+            writer.write('\n');
+            writer.flush();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Map<String, Object> map = JsonUtils.toJsonDoc(line).read("$");
+                if (map.containsKey("out")) {
+                    out.println(map.get("out"));
+                } else if (map.containsKey("result")) {
+                    return (Map) map.get("result");
+                } else if (map.containsKey("error")) {
+                    throw new KarateException("daemon run failed: " + map.get("error"));
+                }
+            }
+            throw new KarateException("daemon closed the connection before the run was complete");
+        } catch (IOException e) {
+            throw new KarateException("could not connect to daemon on port: " + port + ", is it running ? " + e.getMessage());
+        }
+    }
+
+}
@@ -27,6 +27,10 @@ import com.intuit.karate.FileUtils;
 import com.intuit.karate.ScriptBindings;
 import com.intuit.karate.StringUtils;
 import com.intuit.karate.cucumber.CucumberRunner;
+import com.intuit.karate.cucumber.AdaptiveThreads;
+import com.intuit.karate.cucumber.FailureBudget;
+import com.intuit.karate.cucumber.KarateFeature;
+import com.intuit.karate.cucumber.KarateRuntimeOptions;
 import com.intuit.karate.cucumber.KarateStats;
 import com.intuit.karate.exception.KarateException;
 import com.intuit.karate.ui.App;
@@ -35,6 +39,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -88,6 +93,45 @@ public class Main implements Callable<Void> {
     @Option(names = {"-T", "--threads"}, description = "number of threads when running tests")
     int threads = 1;
 
+    @Option(names = {"--max-threads"}, description = "start with --threads and adjust the thread count as the run progresses, up to this many")
+    int maxThreads;
+
+    @Option(names = {"-f", "--fork"}, description = "run each of the --threads in a separate JVM")
+    boolean fork;
+
+    @Option(names = {"--max-failures"}, description = "stop the run after this many failed scenarios, 1 means fail-fast")
+    int maxFailures;
+
+    @Option(names = {"--max-fail-percent"}, description = "stop the run once this percentage of scenarios has failed")
+    double maxFailPercent;
+
+    @Option(names = {"--fail-on-tag"}, description = "stop the run when a scenario with this tag fails e.g. '@smoke'")
+    List<String> failOnTags;
+
+    @Option(names = {"-i", "--impacted"}, description = "only run tests that failed last time or read files that changed since (needs --output of the last run)")
+    boolean impacted;
+
+    @Option(names = {"-C", "--coordinator"}, description = "hand out the tests to agents that connect on --port (default: any free port)")
+    boolean coordinator;
+
+    @Option(names = {"-A", "--agents"}, description = "number of agents to start on localhost with --coordinator")
+    int agents;
+
+    @Option(names = {"-g", "--agent"}, description = "run as an agent using --threads, for the coordinator at this url e.g. 'http://host:port'")
+    String agent;
+
+    @Option(names = {"--daemon"}, description = "keep a warm JVM running for repeated runs via --client, on --port (default: " + Daemon.DEFAULT_PORT + ")")
+    boolean daemon;
+
+    @Option(names = {"--client"}, description = "send the run to the --daemon on --port (default: " + Daemon.DEFAULT_PORT + ")")
+    boolean client;
+
+    @Option(names = {"-W", "--watch"}, description = "keep running, and re-run the features affected by every change to the tests or --classpath")
+    boolean watch;
+
+    @Option(names = {"--classpath"}, split = ",", description = "class path for java helpers when using --client or --watch, re-loaded for every run e.g. 'target/classes'")
+    List<String> classPath;
+
     @Option(names = {"-o", "--output"}, description = "directory where logs and reports are output (default 'target')")
     String output = "target";
 
@@ -127,10 +171,67 @@ public class Main implements Callable<Void> {
     
     @Override
     public Void call() throws Exception {
+        if (agent != null) {
+            new Agent(agent, threads).run();
+            return null;
+        }
+        if (daemon) {
+            Daemon.start(port == null ? Daemon.DEFAULT_PORT : port).waitSync();
+            return null;
+        }
+        if ((client || watch) && tests != null) {
+            Map<String, Object> request = new LinkedHashMap();
+            request.put("tests", tests.stream().map(f -> new File(f).getAbsolutePath()).collect(Collectors.toList()));
+            request.put("tags", tags);
+            request.put("env", env);
+            request.put("threads", threads);
+            request.put("output", new File(output).getAbsolutePath());
+            request.put("dir", new File(".").getAbsolutePath());
+            if (classPath != null) {
+                request.put("classpath", classPath.stream().map(f -> new File(f).getAbsolutePath()).collect(Collectors.toList()));
+            }
+            if (watch) {
+                new Watcher(request).watch();
+                return null;
+            }
+            Map<String, Object> result = DaemonClient.run(port == null ? Daemon.DEFAULT_PORT : port, request, System.out);
+            if (((Number) result.get("failed")).intValue() > 0) {
+                throw new KarateException("there are test failures");
+            }
+            return null;
+        }
         if (tests != null) {
             if (ui) {
                 App.main(new String[]{tests.get(0), env});
             } else {
+                FailureBudget budget = null;
+                if (maxFailures > 0 || maxFailPercent > 0 || failOnTags != null) {
+                    budget = new FailureBudget().maxFailures(maxFailures).maxFailPercent(maxFailPercent);
+                    if (failOnTags != null) {
+                        failOnTags.forEach(budget::failOnTag);
+                    }
+                }
+                AdaptiveThreads adaptive = maxThreads > threads ? new AdaptiveThreads(threads, maxThreads) : null;
+                if (coordinator || fork) {
+                    String mode = coordinator ? "--coordinator" : "--fork";
+                    String unsupported = null;
+                    if (coordinator && fork) {
+                        unsupported = "--fork";
+                    } else if (budget != null) {
+                        unsupported = "--max-failures, --max-fail-percent and --fail-on-tag";
+                    } else if (impacted) {
+                        unsupported = "--impacted";
+                    } else if (adaptive != null) {
+                        unsupported = "--max-threads";
+                    }
+                    if (unsupported != null) {
+                        System.err.println(mode + " cannot be combined with " + unsupported);
+                        CommandLine.usage(this, System.err);
+                        throw new KarateException("unsupported options for " + mode + ": " + unsupported);
+                    }
+                } else { // with --coordinator or --fork the scenarios run in other JVMs
+                    ScriptBindings.warmUp();
+                }
                 if (env != null) {
                     System.setProperty(ScriptBindings.KARATE_ENV, env);
                 }
@@ -139,7 +240,15 @@ public class Main implements Callable<Void> {
                     System.setProperty(ScriptBindings.KARATE_CONFIG_DIR, new File(".").getPath());
                 }
                 List<String> fixed = tests.stream().map(f -> new File(f).getAbsolutePath()).collect(Collectors.toList());
-                KarateStats stats = CucumberRunner.parallel(tags, fixed, threads, output);
+                KarateStats stats;
+                if (coordinator) {
+                    stats = Coordinator.run(tags, fixed, port == null ? 0 : port, agents, output, env);
+                } else if (fork) {
+                    stats = CucumberRunner.parallelForked(tags, fixed, threads, output);
+                } else {
+                    List<KarateFeature> features = KarateFeature.loadFeatures(new KarateRuntimeOptions(tags, fixed));
+                    stats = CucumberRunner.parallel(features, threads, output, impacted, budget, adaptive);
+                }
                 Collection<File> jsonFiles = org.apache.commons.io.FileUtils.listFiles(new File(output), new String[]{"json"}, true);
                 List<String> jsonPaths = new ArrayList(jsonFiles.size());
                 jsonFiles.forEach(file -> jsonPaths.add(file.getAbsolutePath()));
@@ -162,6 +271,7 @@ public class Main implements Callable<Void> {
                 return null;
             }
         }
+        ScriptBindings.warmUp(); // while the server starts
         FeatureServer server;
         if (cert != null) {
             ssl = true;
@@ -0,0 +1,283 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.netty;
+
+import com.intuit.karate.cucumber.FeatureDependencies;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * runs the tests once, and then again (in the same JVM) every time files in
+ * the feature or class path directories change, but only the features that
+ * changed or read a changed file (called features, read() and karate-config
+ * js) the last time they ran - as recorded in the
+ * {@link FeatureDependencies} of the output dir. a change to java classes
+ * re-runs everything, since there is no way to tell which features use them
+ *
+ * @author pthomas3
+ */
+public class Watcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(Watcher.class);
+
+    public static final long DEFAULT_QUIET_MILLIS = 300;
+
+    private final Map<String, Object> request;
+    private final List<String> tests;
+    private final List<Path> classPath;
+    private final Path output;
+    private final List<Path> roots; // the dirs asked for, which can be within the output dir
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new HashMap();
+    private final Map<WatchKey, Boolean> recursive = new HashMap();
+
+    private long quietMillis = DEFAULT_QUIET_MILLIS;
+    private volatile List<String> lastRun = Collections.emptyList();
+    private volatile int runCount;
+    private boolean overflow;
+
+    /**
+     * @param request the same as for {@link Daemon}: tests, tags, env,
+     * threads, output, classpath and dir (all paths absolute)
+     */
+    public Watcher(Map<String, Object> request) {
+        this.request = request;
+        tests = (List) request.get("tests");
+        List<String> temp = (List) request.get("classpath");
+        classPath = temp == null ? Collections.emptyList()
+                : temp.stream().map(p -> new File(p).getAbsoluteFile().toPath().normalize()).collect(Collectors.toList());
+        output = new File((String) request.get("output")).getAbsoluteFile().toPath().normalize();
+        roots = new ArrayList(classPath);
+        tests.forEach(t -> roots.add(new File(t).getAbsoluteFile().toPath().normalize()));
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public Watcher quietMillis(long quietMillis) {
+        this.quietMillis = quietMillis;
+        return this;
+    }
+
+    public List<String> getLastRun() {
+        return lastRun;
+    }
+
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * blocks until {@link #stop()} is called
+     */
+    public void watch() {
+        for (String test : tests) {
+            File file = new File(test);
+            if (file.isDirectory()) {
+                register(file.toPath(), true);
+            } else {
+                register(file.getAbsoluteFile().getParentFile().toPath(), false);
+            }
+        }
+        for (Path path : classPath) {
+            if (path.toFile().isDirectory()) {
+                register(path, true);
+            }
+        }
+        String dir = (String) request.get("dir");
+        if (dir != null) { // karate-config.js
+            register(new File(dir).toPath(), false);
+        }
+        run(Collections.emptySet(), tests);
+        try {
+            while (true) {
+                System.out.println("watching for changes ...");
+                Set<File> changed = waitForChanges();
+                Collection<String> affected = overflow ? tests : getAffected(changed);
+                overflow = false;
+                if (affected.isEmpty()) {
+                    logger.debug("no features affected by: {}", changed);
+                    continue;
+                }
+                run(changed, affected);
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            logger.debug("watcher stopped");
+        }
+    }
+
+    public void stop() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("error closing watch service: {}", e.getMessage());
+        }
+    }
+
+    private void register(Path root, boolean tree) {
+        Path path = root.toAbsolutePath().normalize();
+        if (isOutput(path) || !path.toFile().isDirectory()) {
+            return;
+        }
+        try {
+            WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            keys.put(key, path);
+            recursive.put(key, tree);
+            if (tree) {
+                try (Stream<Path> children = Files.list(path)) {
+                    children.filter(Files::isDirectory).forEach(child -> register(child, true));
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("cannot watch: {}, {}", path, e.getMessage());
+        }
+    }
+
+    // waits for the first change and then until things are quiet, editors and
+    // builds tend to touch many files (or the same file many times) in a burst
+    private Set<File> waitForChanges() throws InterruptedException {
+        Set<File> changed = new LinkedHashSet();
+        WatchKey key = watchService.take();
+        do {
+            collect(key, changed);
+            key = watchService.poll(quietMillis, TimeUnit.MILLISECONDS);
+        } while (key != null);
+        return changed;
+    }
+
+    private void collect(WatchKey key, Set<File> changed) {
+        Path dir = keys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (dir == null) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) { // lost track, run everything
+                overflow = true;
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (isOutput(path)) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && recursive.get(key) && Files.isDirectory(path)) {
+                register(path, true);
+            }
+            changed.add(path.toFile());
+        }
+        if (!key.reset()) { // dir deleted
+            keys.remove(key);
+            recursive.remove(key);
+        }
+    }
+
+    // the reports written by a run should not trigger the next one, but e.g. with
+    // --output target and --classpath target/classes the classes still have to be watched
+    private boolean isOutput(Path path) {
+        if (!path.startsWith(output)) {
+            return false;
+        }
+        return roots.stream().noneMatch(root -> !root.equals(output) && root.startsWith(output) && path.startsWith(root));
+    }
+
+    private boolean isClassPathChange(File file) {
+        String name = file.getName();
+        if (!name.endsWith(".class") && !name.endsWith(".jar") && !file.isDirectory()) {
+            return false;
+        }
+        Path path = file.toPath();
+        return classPath.stream().anyMatch(path::startsWith);
+    }
+
+    private boolean isUnderTests(File file) {
+        Path path = file.toPath();
+        return tests.stream().anyMatch(t -> path.startsWith(new File(t).toPath()));
+    }
+
+    /**
+     * @param changed files that were created, modified or deleted
+     * @return absolute paths of the features to run again
+     */
+    Collection<String> getAffected(Set<File> changed) {
+        if (changed.stream().anyMatch(this::isClassPathChange)) {
+            return tests;
+        }
+        Set<String> affected = new LinkedHashSet();
+        FeatureDependencies dependencies = new FeatureDependencies(output.toString()); // as saved by the last run
+        for (String path : dependencies.getAffected(changed)) {
+            affected.add(new File(path).getAbsolutePath());
+        }
+        for (File file : changed) { // including new features
+            if (file.getName().endsWith(".feature") && isUnderTests(file)) {
+                affected.add(file.getAbsolutePath());
+            }
+        }
+        return affected.stream().filter(p -> new File(p).isFile()).collect(Collectors.toList());
+    }
+
+    private void run(Set<File> changed, Collection<String> affected) {
+        if (!changed.isEmpty()) {
+            List<String> names = changed.stream().map(File::getName).collect(Collectors.toList());
+            System.out.println("changed: " + names + ", running " + affected.size() + " feature(s)");
+        }
+        Map<String, Object> temp = new LinkedHashMap(request);
+        temp.put("tests", new ArrayList(affected));
+        try {
+            // the daemon run has a fresh class loader and callSingle cache,
+            // and features are always parsed again from disk
+            Map<String, Object> result = Daemon.run(temp, line -> {});
+            System.out.println("features: " + result.get("features") + " | scenarios: " + result.get("scenarios")
+                    + " | failed: " + result.get("failed") + " | " + result.get("elapsedTime") + " ms");
+        } catch (Exception e) {
+            logger.error("run failed: {}", e.getMessage());
+        }
+        lastRun = new ArrayList(affected);
+        runCount++;
+    }
+
+}
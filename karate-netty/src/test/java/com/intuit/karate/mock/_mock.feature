@@ -3,6 +3,7 @@ Feature:
 
 Background:
 * def uuid = function(){ return java.util.UUID.randomUUID() + '' }
+* def retryCounter = new java.util.concurrent.atomic.AtomicInteger()
 
 Scenario: pathMatches('/v1/cats')
     * def responseStatus = 201
@@ -50,3 +51,6 @@ Scenario: pathMatches('/v1/linefeed')
 
 Scenario: pathMatches('/v1/spaces')
     * def response = '\n    \n'
+
+Scenario: pathMatches('/v1/retry')
+    * def response = { count: '#(retryCounter.incrementAndGet())' }
@@ -0,0 +1,13 @@
+Feature: retry until a condition is satisfied
+
+Background:
+* url mockServerUrl
+* configure retry = { count: 5, interval: 10, backoff: 2 }
+
+Scenario: poll until the count is high enough
+
+    Given path 'retry'
+    And retry until response.count > 2
+    When method get
+    Then status 200
+    And match response == { count: 3 }
@@ -0,0 +1,95 @@
+package com.intuit.karate.netty;
+
+import com.intuit.karate.FileUtils;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import static org.junit.Assert.*;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class DaemonTest {
+
+    private static final String FEATURE = "src/test/java/com/intuit/karate/netty/daemon/daemon.feature";
+
+    private static void compileHelper(JavaCompiler compiler, File dir, String value) {
+        File source = new File(dir, "src/daemon/Helper.java");
+        FileUtils.writeToFile(source, "package daemon; public class Helper { public static String value() { return \"" + value + "\"; } }");
+        File classes = new File(dir, "classes");
+        classes.mkdirs();
+        assertEquals(0, compiler.run(null, null, null, "-d", classes.getPath(), source.getPath()));
+    }
+
+    private static Map<String, Object> run(int port, File dir, String env, PrintStream out) {
+        Map<String, Object> request = new HashMap();
+        request.put("tests", Collections.singletonList(new File(FEATURE).getAbsolutePath()));
+        request.put("env", env);
+        request.put("output", new File(dir, "reports").getAbsolutePath());
+        request.put("dir", new File("src/test/java").getAbsolutePath());
+        request.put("classpath", Collections.singletonList(new File(dir, "classes").getAbsolutePath()));
+        return DaemonClient.run(port, request, out);
+    }
+
+    @Test
+    public void testChangedClassesArePickedUp() {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler); // needs a JDK
+        File dir = new File("target/daemon");
+        Daemon daemon = Daemon.start(0);
+        try {
+            compileHelper(compiler, dir, "one");
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            Map<String, Object> result = run(daemon.getPort(), dir, "one", new PrintStream(baos, true));
+            assertEquals(1, result.get("scenarios"));
+            assertEquals(0, result.get("failed"));
+            String out = baos.toString();
+            assertTrue(out, out.contains("scenarios:    1 | failed:    0"));
+            compileHelper(compiler, dir, "two");
+            result = run(daemon.getPort(), dir, "two", System.out);
+            assertEquals(0, result.get("failed"));
+        } finally {
+            daemon.stop();
+        }
+    }
+
+    @Test
+    public void testRequestWithoutTokenIsRejected() throws Exception {
+        Daemon daemon = Daemon.start(0);
+        try {
+            File tokenFile = Daemon.getTokenFile(daemon.getPort());
+            assertTrue(tokenFile.exists());
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile.toPath())));
+            }
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+                OutputStream os = socket.getOutputStream();
+                os.write("{ \"tests\": [] }\n".getBytes(FileUtils.UTF8));
+                os.flush();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), FileUtils.UTF8));
+                String line = reader.readLine();
+                assertTrue(line, line.contains("missing or invalid token"));
+            }
+        } finally {
+            daemon.stop();
+        }
+        assertFalse(Daemon.getTokenFile(daemon.getPort()).exists());
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.intuit.karate.netty;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.cucumber.CucumberRunner;
+import com.intuit.karate.cucumber.KarateFeature;
+import com.intuit.karate.cucumber.KarateRuntimeOptions;
+import com.intuit.karate.cucumber.KarateStats;
+import com.intuit.karate.filter.TagFilter;
+import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.model.CucumberTagStatement;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class DistributedTest {
+
+    private static final String DIR = "src/test/java/com/intuit/karate/netty/agent";
+
+    @Test
+    public void testCoordinatorWithLocalAgents() {
+        String reportDir = "target/agents";
+        KarateStats stats = Coordinator.run(null, Collections.singletonList(DIR), 0, 2, reportDir, null);
+        assertEquals(3, stats.getFeatureCount());
+        assertEquals(4, stats.getTestCount());
+        assertEquals(1, stats.getFailCount());
+        assertTrue(new File(reportDir + "/TEST-agent-1.xml").exists());
+        assertTrue(new File(reportDir + "/TEST-agent-3.json").exists());
+    }
+
+    @Test
+    public void testWorkIsReassignedWhenAgentIsLost() throws Exception {
+        KarateRuntimeOptions kro = new KarateRuntimeOptions(null, Collections.singletonList(DIR));
+        List<KarateFeature> features = KarateFeature.loadFeatures(kro);
+        Coordinator coordinator = Coordinator.start(features, 0, "target/agents-lost", null, 200);
+        String url = "http://127.0.0.1:" + coordinator.getPort();
+        // an agent that takes a feature and then goes silent
+        Map<String, Object> registered = Agent.post(url + CoordinatorHandler.AGENTS, null);
+        String lostId = (String) registered.get("id");
+        Map<String, Object> next = Agent.post(url + CoordinatorHandler.AGENTS + "/" + lostId + "/next", null);
+        assertNotNull(next.get("unit"));
+        Thread thread = new Thread(() -> new Agent(url, 1).run());
+        thread.start();
+        KarateStats stats = coordinator.waitForResults();
+        thread.join();
+        assertEquals(3, stats.getFeatureCount());
+        assertEquals(4, stats.getTestCount());
+        assertEquals(1, stats.getFailCount());
+    }
+
+    public static class SkipTwoTagFilter implements TagFilter {
+
+        @Override
+        public boolean filter(CucumberFeature feature, CucumberTagStatement cucumberTagStatement) {
+            return feature.getPath().endsWith("agent-2.feature");
+        }
+
+    }
+
+    @Test
+    public void testFeaturesEmptiedByTagFilterAreNotDispatched() throws Exception {
+        File dir = new File("target/agents-tag-filter");
+        FileUtils.writeToFile(new File(dir, "META-INF/services/" + TagFilter.class.getName()), SkipTwoTagFilter.class.getName());
+        Thread thread = Thread.currentThread();
+        ClassLoader prev = thread.getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{dir.toURI().toURL()}, prev)) {
+            thread.setContextClassLoader(classLoader);
+            KarateStats stats = Coordinator.run(null, Collections.singletonList(DIR), 0, 1, "target/agents-filtered", null);
+            assertEquals(2, stats.getFeatureCount());
+            assertEquals(3, stats.getTestCount());
+            assertEquals(1, stats.getFailCount());
+            CucumberRunner.releaseTagFilters(classLoader);
+        } finally {
+            thread.setContextClassLoader(prev);
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.intuit.karate.netty;
+
+import com.intuit.karate.exception.KarateException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import picocli.CommandLine;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class MainTest {
+
+    private static String callError(String... args) throws Exception {
+        Main main = CommandLine.populateCommand(new Main(), args);
+        try {
+            main.call();
+            fail("expected a usage error");
+            return null;
+        } catch (KarateException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    public void testOptionsIgnoredByOtherJvmsAreRejected() throws Exception {
+        String feature = "src/test/java/com/intuit/karate/netty/client.feature";
+        assertTrue(callError("--fork", "--max-failures", "1", feature).contains("--max-failures"));
+        assertTrue(callError("--fork", "--impacted", feature).contains("--impacted"));
+        assertTrue(callError("--coordinator", "--fail-on-tag", "smoke", feature).contains("--fail-on-tag"));
+        assertTrue(callError("--coordinator", "-T", "2", "--max-threads", "4", feature).contains("--max-threads"));
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.intuit.karate.netty;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.cucumber.CucumberRunner;
+import com.intuit.karate.cucumber.KarateStats;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import net.masterthought.cucumber.Configuration;
+import net.masterthought.cucumber.ReportBuilder;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class ReportTest {
+
+    @Test
+    public void testReportDirHasOnlyCucumberJson() {
+        File dir = new File("target/report-test");
+        File feature = new File(dir, "features/report.feature");
+        FileUtils.writeToFile(feature, "Feature:\n\nScenario:\n* def a = 1\n* match a == 1\n");
+        String output = new File(dir, "reports").getPath();
+        List<String> tags = Collections.singletonList("~@ignore");
+        List<String> paths = Collections.singletonList(feature.getPath());
+        CucumberRunner.parallel(tags, paths, 1, output);
+        KarateStats stats = CucumberRunner.parallel(tags, paths, 1, output); // with the history of the first run
+        assertEquals(0, stats.getFailCount());
+        // the same as the command-line and the documented report recipe
+        Collection<File> jsonFiles = org.apache.commons.io.FileUtils.listFiles(new File(output), new String[]{"json"}, true);
+        List<String> jsonPaths = new ArrayList(jsonFiles.size());
+        jsonFiles.forEach(file -> jsonPaths.add(file.getAbsolutePath()));
+        Configuration config = new Configuration(new File(dir, "html"), "report-test");
+        assertNotNull("report failed for: " + jsonPaths, new ReportBuilder(jsonPaths, config).generateReports());
+    }
+
+}
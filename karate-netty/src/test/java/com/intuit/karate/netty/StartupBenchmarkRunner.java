@@ -0,0 +1,109 @@
+package com.intuit.karate.netty;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * starts fresh JVMs and measures how long it takes until the first step of a
+ * feature runs, and until a mock server accepts connections, e.g. to compare
+ * with and without the class data sharing archive built by the 'cds' profile:
+ *
+ * mvn test -Dtest=StartupBenchmarkRunner -Dkarate.benchmark.jar=target/karate-0.8.0.jar
+ * -Dkarate.benchmark.java=/path/to/jdk11/bin/java
+ * -Dkarate.benchmark.jvmArgs=-XX:SharedArchiveFile=target/karate.jsa
+ *
+ * @author pthomas3
+ */
+public class StartupBenchmarkRunner {
+
+    private static final String FEATURE = "src/test/java/com/intuit/karate/netty/benchmark/startup.feature";
+    private static final String MOCK = "src/test/java/com/intuit/karate/netty/server.feature";
+    private static final String MARKER = "karate-first-step";
+
+    private static List<String> command(String... args) {
+        List<String> command = new ArrayList();
+        command.add(System.getProperty("karate.benchmark.java", System.getProperty("java.home") + "/bin/java"));
+        String jvmArgs = System.getProperty("karate.benchmark.jvmArgs");
+        if (jvmArgs != null && !jvmArgs.trim().isEmpty()) {
+            command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+        }
+        command.add("-cp");
+        command.add(System.getProperty("karate.benchmark.jar", System.getProperty("java.class.path")));
+        command.add(Main.class.getName());
+        command.addAll(Arrays.asList(args));
+        return command;
+    }
+
+    private static long timeToFirstStep() throws Exception {
+        long startTime = System.nanoTime();
+        Process process = new ProcessBuilder(command("-o", "target/benchmark", FEATURE)).redirectErrorStream(true).start();
+        long elapsed = -1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) { // read till the end so that the process can exit
+                if (elapsed == -1 && line.contains(MARKER)) {
+                    elapsed = System.nanoTime() - startTime;
+                }
+            }
+        }
+        process.waitFor();
+        if (elapsed == -1) {
+            throw new RuntimeException("first step did not run, exit code: " + process.exitValue());
+        }
+        return elapsed / 1000000;
+    }
+
+    private static long timeToMockServerReady() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        long startTime = System.nanoTime();
+        Process process = new ProcessBuilder(command("-m", MOCK, "-p", port + ""))
+                .redirectErrorStream(true).redirectOutput(new File("target/benchmark-mock.log")).start();
+        try {
+            while (process.isAlive()) {
+                try (Socket socket = new Socket("localhost", port)) {
+                    return (System.nanoTime() - startTime) / 1000000;
+                } catch (Exception e) {
+                    Thread.sleep(5);
+                }
+            }
+            throw new RuntimeException("mock server did not start, exit code: " + process.exitValue());
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static String summary(List<Long> times) {
+        List<Long> sorted = new ArrayList(times);
+        Collections.sort(sorted);
+        return "min: " + sorted.get(0) + " ms, median: " + sorted.get(sorted.size() / 2)
+                + " ms, max: " + sorted.get(sorted.size() - 1) + " ms, runs: " + times;
+    }
+
+    @Test
+    public void testStartup() throws Exception {
+        new File("target").mkdirs();
+        int runs = Integer.getInteger("karate.benchmark.runs", 5);
+        timeToFirstStep(); // so that the first run does not pay for a cold disk cache
+        List<Long> firstStep = new ArrayList(runs);
+        List<Long> mockReady = new ArrayList(runs);
+        for (int i = 0; i < runs; i++) {
+            firstStep.add(timeToFirstStep());
+            mockReady.add(timeToMockServerReady());
+        }
+        System.out.println("time to first step: " + summary(firstStep));
+        System.out.println("time to mock server ready: " + summary(mockReady));
+    }
+
+}
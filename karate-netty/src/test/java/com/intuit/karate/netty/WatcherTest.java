@@ -0,0 +1,88 @@
+package com.intuit.karate.netty;
+
+import com.intuit.karate.FileUtils;
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class WatcherTest {
+
+    private static void waitForRun(Watcher watcher, int count) throws Exception {
+        for (int i = 0; i < 300 && watcher.getRunCount() < count; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(count, watcher.getRunCount());
+    }
+
+    @Test
+    public void testOnlyAffectedFeaturesAreRunOnChange() throws Exception {
+        File dir = new File("target/watch");
+        File features = new File(dir, "features");
+        org.apache.commons.io.FileUtils.deleteQuietly(dir);
+        File data = new File(features, "data.json");
+        File reader = new File(features, "reader.feature");
+        File other = new File(features, "other.feature");
+        FileUtils.writeToFile(data, "{ \"foo\": \"bar\" }");
+        FileUtils.writeToFile(reader, "Feature:\n\nScenario:\n* def data = read('data.json')\n* match data.foo == '#string'\n");
+        FileUtils.writeToFile(other, "Feature:\n\nScenario:\n* def a = 1\n");
+        Map<String, Object> request = new HashMap();
+        request.put("tests", Collections.singletonList(features.getAbsolutePath()));
+        request.put("output", new File(dir, "reports").getAbsolutePath());
+        request.put("dir", new File("src/test/java").getAbsolutePath());
+        Watcher watcher = new Watcher(request).quietMillis(100);
+        Thread thread = new Thread(watcher::watch);
+        thread.start();
+        try {
+            waitForRun(watcher, 1); // everything
+            assertEquals(Collections.singletonList(features.getAbsolutePath()), watcher.getLastRun());
+            FileUtils.writeToFile(data, "{ \"foo\": \"baz\" }");
+            waitForRun(watcher, 2);
+            assertEquals(Collections.singletonList(reader.getAbsolutePath()), watcher.getLastRun());
+            File added = new File(features, "added.feature");
+            FileUtils.writeToFile(added, "Feature:\n\nScenario:\n* def b = 2\n");
+            waitForRun(watcher, 3);
+            assertEquals(Collections.singletonList(added.getAbsolutePath()), watcher.getLastRun());
+        } finally {
+            watcher.stop();
+            thread.join(5000);
+        }
+    }
+
+    @Test
+    public void testClassPathWithinOutputIsWatched() throws Exception {
+        File dir = new File("target/watch-output"); // like --output target --classpath target/classes
+        File features = new File(dir, "features");
+        File classes = new File(dir, "classes");
+        org.apache.commons.io.FileUtils.deleteQuietly(dir);
+        classes.mkdirs();
+        FileUtils.writeToFile(new File(features, "first.feature"), "Feature:\n\nScenario:\n* def a = 1\n");
+        FileUtils.writeToFile(new File(features, "second.feature"), "Feature:\n\nScenario:\n* def b = 2\n");
+        Map<String, Object> request = new HashMap();
+        request.put("tests", Collections.singletonList(features.getAbsolutePath()));
+        request.put("output", dir.getAbsolutePath());
+        request.put("classpath", Collections.singletonList(classes.getAbsolutePath()));
+        request.put("dir", new File("src/test/java").getAbsolutePath());
+        Watcher watcher = new Watcher(request).quietMillis(100);
+        Thread thread = new Thread(watcher::watch);
+        thread.start();
+        try {
+            waitForRun(watcher, 1);
+            FileUtils.writeToFile(new File(classes, "Helper.class"), "not really a class");
+            waitForRun(watcher, 2); // everything again
+            assertEquals(Collections.singletonList(features.getAbsolutePath()), watcher.getLastRun());
+            Thread.sleep(1000);
+            assertEquals(2, watcher.getRunCount()); // the reports written to the output dir do not count
+        } finally {
+            watcher.stop();
+            thread.join(5000);
+        }
+    }
+
+}
@@ -0,0 +1,6 @@
+@ignore
+Feature: agent feature two
+
+Scenario: passes
+* def a = [1, 2, 3]
+* match a contains 2
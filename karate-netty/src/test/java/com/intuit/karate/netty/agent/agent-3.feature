@@ -0,0 +1,6 @@
+@ignore
+Feature: agent feature three
+
+Scenario: fails
+* def a = 1
+* match a == 2
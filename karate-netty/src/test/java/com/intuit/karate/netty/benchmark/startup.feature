@@ -0,0 +1,7 @@
+@ignore
+Feature: used by StartupBenchmarkRunner to measure the time to the first step
+
+Scenario:
+    * print 'karate-first-step'
+    * def a = { b: 1 }
+    * match a == { b: '#number' }
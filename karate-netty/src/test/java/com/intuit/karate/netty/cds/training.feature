@@ -0,0 +1,20 @@
+@ignore
+Feature: training run for the class data sharing archive
+    loads the classes that tests and mock servers typically need
+
+Scenario:
+    * def FeatureServer = Java.type('com.intuit.karate.netty.FeatureServer')
+    * def server = FeatureServer.start(new java.io.File('src/test/java/com/intuit/karate/netty/server.feature'), 0, false, null)
+    * url 'http://localhost:' + server.port + '/v1/cats'
+    * request { name: 'Billie' }
+    * method post
+    * status 200
+    * match response == { id: '#number', name: 'Billie' }
+    * def id = response.id
+    * path id
+    * method get
+    * status 200
+    * match response.name == 'Billie'
+    * xml doc = <cat><name>Billie</name></cat>
+    * match doc/cat/name == 'Billie'
+    * eval server.stop()
@@ -0,0 +1,7 @@
+@ignore
+Feature: run via the daemon
+
+Scenario: java helper is re-loaded for every run
+* def Helper = Java.type('daemon.Helper')
+* def value = Helper.value()
+* match value == karate.env
@@ -0,0 +1,101 @@
+package com.intuit.karate.netty.parallel;
+
+import com.intuit.karate.cucumber.CucumberRunner;
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.AfterClass;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class CallParallelismTest {
+
+    private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+    private static final AtomicInteger MAX_IN_FLIGHT = new AtomicInteger();
+
+    private static HttpServer server;
+    private static ExecutorService executor;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        // the mock server handles one request at a time, so this has to be a plain http server
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", exchange -> {
+            MAX_IN_FLIGHT.accumulateAndGet(IN_FLIGHT.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                // before responding, else the client can send its next request before this one is counted out
+                IN_FLIGHT.decrementAndGet();
+            }
+            try {
+                byte[] bytes = "{ \"ok\": true }".getBytes();
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+            } finally {
+                exchange.close();
+            }
+        });
+        executor = Executors.newFixedThreadPool(8);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Before
+    public void before() {
+        MAX_IN_FLIGHT.set(0);
+    }
+
+    private static void run(int perHost) {
+        run(perHost, null);
+    }
+
+    private static void run(int perHost, Map<String, Object> rateLimit) {
+        Map<String, Object> vars = new HashMap();
+        vars.put("rateLimit", rateLimit);
+        vars.put("port", server.getAddress().getPort());
+        vars.put("perHost", perHost);
+        CucumberRunner.runFeature(CallParallelismTest.class, "per-host.feature", vars, false);
+    }
+
+    @Test
+    public void testPerHostCapsRequestsInFlight() {
+        run(2);
+        assertEquals(2, MAX_IN_FLIGHT.get());
+    }
+
+    @Test
+    public void testPerHostAppliesWithRateLimit() {
+        Map<String, Object> rateLimit = new HashMap();
+        rateLimit.put("perSecond", 100);
+        rateLimit.put("burst", 8);
+        run(2, rateLimit);
+        assertEquals(2, MAX_IN_FLIGHT.get());
+    }
+
+    @Test
+    public void testNoPerHostLimit() {
+        run(0);
+        assertTrue("max in flight: " + MAX_IN_FLIGHT.get(), MAX_IN_FLIGHT.get() > 2);
+    }
+
+}
@@ -0,0 +1,7 @@
+@ignore
+Feature:
+
+Scenario:
+* url 'http://localhost:' + port
+* method get
+* status 200
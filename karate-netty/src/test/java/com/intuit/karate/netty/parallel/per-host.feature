@@ -0,0 +1,8 @@
+@ignore
+Feature:
+
+Scenario:
+* eval if (rateLimit) karate.configure('rateLimit', rateLimit)
+* configure callParallelism = { threads: 4, perHost: '#(perHost)' }
+* def result = call read('per-host-called.feature') [{}, {}, {}, {}, {}, {}, {}, {}]
+* match each result[*].response == { ok: true }